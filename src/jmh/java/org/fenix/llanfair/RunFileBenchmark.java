@@ -0,0 +1,80 @@
+package org.fenix.llanfair;
+
+import org.fenix.utils.Resources;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken to save and open a synthetic run file through the
+ * shared XStream of {@link SerializationUtils}, as {@code Actions} does. The
+ * run has a set, best and personal best time for each of its segments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RunFileBenchmark {
+
+	@Param({ "1000" })
+	private int segments;
+
+	private Run run;
+
+	private byte[] file;
+
+	@Setup public void setUp() throws Exception {
+		// Reading a run names it from the localized resources of Llanfair,
+		// which are only loaded by its frame
+		if (Llanfair.getResources() == null) {
+			Field resources = Llanfair.class.getDeclaredField("RESOURCES");
+			resources.setAccessible(true);
+			resources.set(null, new Resources());
+		}
+
+		run = new Run("benchmark");
+		for (int i = 0; i < segments; i++) {
+			Segment segment = new Segment("segment " + i);
+			long millis = 30000L + 17L * i;
+			segment.setTime(new Time(millis + 5000L), Segment.SET);
+			segment.setTime(new Time(millis + 1000L), Segment.RUN);
+			segment.setTime(new Time(millis), Segment.BEST);
+			run.addSegment(segment);
+		}
+		file = save();
+		if (open().getRowCount() != segments) {
+			throw new IllegalStateException("run file not read back");
+		}
+	}
+
+	@Benchmark public byte[] save() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Writer out = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+		SerializationUtils.getXStream().toXML(run, out);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	@Benchmark public Run open() throws Exception {
+		return (Run) SerializationUtils.getXStream().fromXML(
+				new ByteArrayInputStream(file));
+	}
+}
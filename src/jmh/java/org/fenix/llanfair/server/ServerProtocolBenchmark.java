@@ -0,0 +1,68 @@
+package org.fenix.llanfair.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Compares the decoders of the two message formats of the {@link Server},
+ * each decoding the same event from a buffer into a reused event. Run with
+ * {@code -prof gc} to check that neither allocates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ServerProtocolBenchmark {
+
+    private static final int CODE = 1;
+
+    private static final long TIME = 1234567890123L;
+
+    private final ServerProtocol protocol = new ServerProtocol();
+
+    private final ServerEvent event = new ServerEvent();
+
+    private byte[] line;
+
+    private byte[] frame;
+
+    @Setup
+    public void setUp() {
+        line = (CODE + ":" + TIME).getBytes(StandardCharsets.US_ASCII);
+
+        ByteBuffer buffer = ByteBuffer.allocate(ServerProtocol.FRAME_SIZE);
+        buffer.put(ServerProtocol.MAGIC).put((byte) ServerProtocol.VERSION)
+                .put((byte) CODE).put((byte) 0).putInt(1).putLong(TIME);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        frame = buffer.array();
+    }
+
+    @Benchmark
+    public long decodeText() {
+        protocol.decodeText(line, 0, line.length, event);
+        return event.getNanoTime();
+    }
+
+    @Benchmark
+    public long decodeBinary() {
+        protocol.decodeBinary(frame, 0, event);
+        return event.getNanoTime();
+    }
+}
@@ -2,35 +2,44 @@ package org.fenix.WorldRecord;
 
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 import java.io.*;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 /**
  * JSONReader class to fetch JSON from api
+ *
+ * Responses are requested gzip-compressed and parsed straight from the
+ * network stream. Connections are kept alive between requests, which is why
+ * every response is read to the end. Responses carrying an ETag are kept so
+ * that requesting the same url again only revalidates them.
  * @author  4ilo 2018
  */
 public class JSONReader
 {
     /**
-     * Get the content of the given reader as a string
-     * @param reader a reader object
-     * @return String with the data of the reader
-     * @throws IOException
+     * Connect and read timeout in milliseconds
      */
-    private static String readAll(Reader reader) throws IOException
-    {
-        StringBuilder builder = new StringBuilder();
-        int cp;
+    private static final int TIMEOUT = 10000;
 
-        while((cp = reader.read()) != -1)
-        {
-            builder.append((char) cp);
-        }
+    /**
+     * Maximum number of responses kept for revalidation
+     */
+    private static final int CACHE_SIZE = 64;
 
-        return builder.toString();
-    }
+    private static final Map<String, CachedResponse> CACHE =
+            new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest)
+                {
+                    return size() > CACHE_SIZE;
+                }
+            };
 
     /**
      * Read the json from the given json-api url
@@ -41,18 +50,92 @@ public class JSONReader
      */
     public static JSONObject readJsonFromUrl(String url) throws IOException, JSONException
     {
-        InputStream stream = new URL(url).openStream();
+        CachedResponse cached;
+        synchronized(CACHE)
+        {
+            cached = CACHE.get(url);
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        connection.setRequestProperty("Accept", "application/json");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        if(cached != null)
+            connection.setRequestProperty("If-None-Match", cached.etag);
 
+        int status = connection.getResponseCode();
+        if(status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null)
+        {
+            drain(connection.getInputStream());
+            return cached.json;
+        }
+        if(status >= 400)
+        {
+            drain(connection.getErrorStream());
+            throw new IOException("HTTP " + status + " for " + url);
+        }
+
+        InputStream stream = connection.getInputStream();
+        if("gzip".equalsIgnoreCase(connection.getContentEncoding()))
+            stream = new GZIPInputStream(stream);
+
+        JSONObject json;
         try
         {
             BufferedReader reader = new BufferedReader(new InputStreamReader(stream, Charset.forName("UTF-8")));
-            String jsonText = readAll(reader);
-
-            return new JSONObject(jsonText);
+            json = new JSONObject(new JSONTokener(reader));
 
+            // Let the connection be reused
+            while(reader.read() != -1);
         } finally
         {
             stream.close();
         }
+
+        String etag = connection.getHeaderField("ETag");
+        if(etag != null)
+        {
+            synchronized(CACHE)
+            {
+                CACHE.put(url, new CachedResponse(etag, json));
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Read the given stream to the end and close it
+     * @param stream the stream, can be null
+     */
+    private static void drain(InputStream stream)
+    {
+        if(stream == null)
+            return;
+
+        try
+        {
+            byte[] buffer = new byte[4096];
+            while(stream.read(buffer) != -1);
+            stream.close();
+        } catch(IOException e)
+        {
+            // $FALL-THROUGH$
+        }
+    }
+
+    /**
+     * A response along with the ETag it was served with
+     */
+    private static class CachedResponse
+    {
+        final String etag;
+        final JSONObject json;
+
+        CachedResponse(String etag, JSONObject json)
+        {
+            this.etag = etag;
+            this.json = json;
+        }
     }
 }
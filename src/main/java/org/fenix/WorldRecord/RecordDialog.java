@@ -5,11 +5,17 @@ import org.fenix.llanfair.dialog.EditRun;
 import org.fenix.llanfair.dialog.LlanfairDialog;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Dialog window to select a world record on speedrun.com
@@ -17,8 +23,38 @@ import java.util.ArrayList;
  */
 public class RecordDialog extends LlanfairDialog
 {
+    /**
+     * Number of milliseconds without typing after which the game is searched
+     */
+    private static final int SEARCH_DELAY = 400;
+
+    /**
+     * Kinds of requests, each one making the results of the following kinds
+     * outdated
+     */
+    private static final int GAMES = 0;
+    private static final int CATEGORIES = 1;
+    private static final int RECORD = 2;
+
+    /**
+     * Threads fetching from speedrun.com, so that requests of different kinds
+     * run in parallel and never block the interface
+     */
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "Llanfair speedrun.com request");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     final private Llanfair master;
 
+    private final Future<?>[] requests = new Future<?>[RECORD + 1];
+    private final int[] generations = new int[RECORD + 1];
+    private final Timer searchTimer;
+
     private JLabel searchLabel = new JLabel("Search game:");
     private JButton searchButton = new JButton("Search");
     private JTextField searchField = new JTextField();
@@ -59,10 +95,35 @@ public class RecordDialog extends LlanfairDialog
             searchButton.addActionListener(new ActionListener() {
                 public void actionPerformed(ActionEvent e)
                 {
+                    searchTimer.stop();
                     searchGame(searchField.getText());
                 }
             });
         }
+        searchTimer = new Timer(SEARCH_DELAY, new ActionListener() {
+            public void actionPerformed(ActionEvent e)
+            {
+                if(!searchField.getText().trim().isEmpty())
+                    searchGame(searchField.getText());
+            }
+        });
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e)
+            {
+                searchTimer.restart();
+            }
+
+            public void removeUpdate(DocumentEvent e)
+            {
+                searchTimer.restart();
+            }
+
+            public void changedUpdate(DocumentEvent e)
+            {
+                searchTimer.restart();
+            }
+        });
         JPanel gamesPanel = new JPanel(new GridLayout(1,2));
         {
             gamesPanel.add(gamesLabel);
@@ -115,59 +176,153 @@ public class RecordDialog extends LlanfairDialog
      * Search the game title on speedrun.com
      * @param name  The name of the game
      */
-    private void searchGame(String name)
+    private void searchGame(final String name)
     {
         this.resetFields();
 
-        ArrayList<Game> games = new ArrayList<>();
-
-        try {
-            games = WorldRecordParser.searchGames(name);
-        } catch (IOException e)
-        {
-            master.showError("Error searching for matching games from speedrun.com.", e);
-        }
+        start(new Request<ArrayList<Game>>(GAMES) {
+            ArrayList<Game> fetch() throws IOException
+            {
+                return WorldRecordParser.searchGames(name);
+            }
 
-        this.setGames(games);
-        this.addGameListener();
+            void done(ArrayList<Game> result, IOException e)
+            {
+                if(e != null)
+                {
+                    master.showError("Error searching for matching games from speedrun.com.", e);
+                    result = new ArrayList<>();
+                }
+                setGames(result);
+                addGameListener();
+            }
+        });
     }
 
     /**
      * Get the categories for a game on speedrun.com
      * @param game A game object received from the game search
      */
-    private void getCategories(Game game)
+    private void getCategories(final Game game)
     {
-        ArrayList<Category> categories = new ArrayList<>();
-
-        try {
-            categories = WorldRecordParser.getCategories(game);
-        } catch (IOException e)
-        {
-            master.showError("Error fetching game categories from speedrun.com.", e);
-        }
+        start(new Request<ArrayList<Category>>(CATEGORIES) {
+            ArrayList<Category> fetch() throws IOException
+            {
+                return WorldRecordParser.getCategories(game);
+            }
 
-        this.setCategories(categories);
-        this.addCategoryListener();
+            void done(ArrayList<Category> result, IOException e)
+            {
+                if(e != null)
+                {
+                    master.showError("Error fetching game categories from speedrun.com.", e);
+                    result = new ArrayList<>();
+                }
+                categories.removeActionListener(categoryListener);
+                setCategories(result);
+                addCategoryListener();
+            }
+        });
     }
 
     /**
      * Get the world record time and owner from speedrun.com
      * @param category A category object received from the category search
      */
-    private void getWorldRecord(Category category)
+    private void getWorldRecord(final Category category)
     {
-        String worldRecord = "";
+        start(new Request<String>(RECORD) {
+            String fetch() throws IOException
+            {
+                return WorldRecordParser.getRecord(category);
+            }
 
-        try {
-            worldRecord = WorldRecordParser.getRecord(category);
-        } catch (IOException e)
+            void done(String result, IOException e)
+            {
+                if(e != null)
+                {
+                    master.showError("Error fetching game category world record time/owner from speedrun.com.", e);
+                    result = "";
+                }
+                worldRecord.setText(result);
+                RecordDialog.this.category = category;
+            }
+        });
+    }
+
+    /**
+     * Start the given request, cancelling the requests of the same kind and
+     * of the following kinds which are now outdated
+     * @param request The request to start
+     */
+    private void start(Request<?> request)
+    {
+        for(int kind = request.kind; kind <= RECORD; kind++)
         {
-            master.showError("Error fetching game category world record time/owner from speedrun.com.", e);
+            generations[kind]++;
+            if(requests[kind] != null)
+                requests[kind].cancel(true);
+            requests[kind] = null;
         }
+        request.generation = generations[request.kind];
+        requests[request.kind] = EXECUTOR.submit(request);
+    }
 
-        this.worldRecord.setText(worldRecord);
-        this.category = category;
+    /**
+     * A request to speedrun.com made in the background. Its result is given
+     * back on the event dispatching thread, unless a newer request made it
+     * outdated in the meantime.
+     * @param <T> Type of the result
+     */
+    private abstract class Request<T> implements Runnable
+    {
+        final int kind;
+        int generation;
+
+        Request(int kind)
+        {
+            this.kind = kind;
+        }
+
+        /**
+         * Fetch the result, called in the background
+         */
+        abstract T fetch() throws IOException;
+
+        /**
+         * Use the result, called on the event dispatching thread
+         * @param result The result, or null if the request failed
+         * @param e The error if the request failed, or null
+         */
+        abstract void done(T result, IOException e);
+
+        public void run()
+        {
+            T result = null;
+            IOException error = null;
+            try {
+                result = fetch();
+            } catch(IOException e)
+            {
+                error = e;
+            } catch(RuntimeException e)
+            {
+                error = new IOException(e);
+            }
+
+            final T value = result;
+            final IOException exception = error;
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run()
+                {
+                    if(generations[kind] == generation)
+                    {
+                        requests[kind] = null;
+                        done(value, exception);
+                    }
+                }
+            });
+        }
     }
 
     /**
@@ -207,6 +362,7 @@ public class RecordDialog extends LlanfairDialog
      */
     private void close()
     {
+        searchTimer.stop();
         this.setVisible(false);
     }
 
@@ -215,6 +371,7 @@ public class RecordDialog extends LlanfairDialog
      */
     private void actionOk()
     {
+        searchTimer.stop();
         this.category = ((Category) categories.getSelectedItem());
         this.setVisible(false);
 
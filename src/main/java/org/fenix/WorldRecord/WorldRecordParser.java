@@ -4,6 +4,7 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.net.URLEncoder;
 import java.util.ArrayList;
 
 /**
@@ -11,6 +12,11 @@ import java.util.ArrayList;
  */
 public class WorldRecordParser
 {
+    /**
+     * Base url of the speedrun.com api
+     */
+    public static final String API_URL = "https://www.speedrun.com/api/v1";
+
     /**
      * Search the speedrun.com database for the game with the given name
      * @param name The name of the game you want to search
@@ -19,7 +25,7 @@ public class WorldRecordParser
      */
     public static ArrayList<Game> searchGames(String name) throws IOException
     {
-        String url = "https://www.speedrun.com/api/v1/games?name=" + name;
+        String url = API_URL + "/games?name=" + URLEncoder.encode(name, "UTF-8");
         JSONArray json_games;
         ArrayList<Game> games = new ArrayList<>();
 
@@ -48,7 +54,7 @@ public class WorldRecordParser
      */
     public static ArrayList<Category> getCategories(Game game) throws IOException
     {
-        String url = "https://www.speedrun.com/api/v1/games/" + game.getId() + "/categories";
+        String url = API_URL + "/games/" + game.getId() + "/categories";
 
         ArrayList<Category> categories = new ArrayList<>();
 
@@ -76,14 +82,29 @@ public class WorldRecordParser
      */
     public static String getRecord(Category category) throws IOException
     {
-        String url = "https://www.speedrun.com/api/v1/categories/" + category.getId() + "/records";
+        return getRecord(API_URL, category);
+    }
+
+    /**
+     * Get the world record string for the given speedrun.com category from the given api
+     * @param apiUrl Base url of the api, such as {@link #API_URL}
+     * @param category WorldRecord.Category object received from a category search
+     * @return The world record string
+     * @throws IOException
+     */
+    public static String getRecord(String apiUrl, Category category) throws IOException
+    {
+        // Only the first place is needed, along with its player embedded in the response
+        String url = apiUrl + "/categories/" + category.getId() + "/records?top=1&embed=players";
 
         JSONObject json = JSONReader.readJsonFromUrl(url);
-        JSONArray json_runs = json.getJSONArray("data").getJSONObject(0).getJSONArray("runs");
+        JSONObject leaderboard = json.getJSONArray("data").getJSONObject(0);
+        JSONArray json_runs = leaderboard.getJSONArray("runs");
 
         JSONObject wr_run = json_runs.getJSONObject(0).getJSONObject("run");
 
-        String player_name = getPlayerName(wr_run.getJSONArray("players").getJSONObject(0));
+        String player_name = getPlayerName(wr_run.getJSONArray("players").getJSONObject(0),
+                leaderboard.optJSONObject("players"));
 
         return "World record: " + parseTime(wr_run.getJSONObject("times").getFloat("primary_t")) + " by " + player_name;
     }
@@ -91,11 +112,27 @@ public class WorldRecordParser
     /**
      * Get the speedrun.com player name for the given player JSONObject
      * @param player    The player JSONObject extracted from a run object
+     * @param embedded  The players embedded in the response, can be null
      * @return The players name
      * @throws IOException
      */
-    private static String getPlayerName(JSONObject player) throws IOException
+    private static String getPlayerName(JSONObject player, JSONObject embedded) throws IOException
     {
+        if(player.optString("rel").equals("guest") && player.has("name"))
+            return player.getString("name");
+
+        if(embedded != null)
+        {
+            String id = player.optString("id");
+            for(Object data: embedded.getJSONArray("data"))
+            {
+                JSONObject obj = (JSONObject) data;
+                if(obj.optString("id").equals(id) && obj.has("names"))
+                    return obj.getJSONObject("names").get("international").toString();
+            }
+        }
+
+        // Not embedded, ask for it
         String uri = player.get("uri").toString();
         JSONObject json = JSONReader.readJsonFromUrl(uri);
         return json.getJSONObject("data").getJSONObject("names").get("international").toString();
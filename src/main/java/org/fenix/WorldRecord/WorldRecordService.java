@@ -0,0 +1,271 @@
+package org.fenix.WorldRecord;
+
+import org.fenix.llanfair.Clock;
+import org.fenix.utils.UserSettings;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Asynchronous access to the world records of speedrun.com categories.
+ * Records are fetched on a background thread and cached in memory and on
+ * disk for {@code TTL} milliseconds, so asking for a record never blocks
+ * the caller: the last known value is returned right away and the caller is
+ * notified on the event dispatching thread once a fresher one is fetched.
+ * When speedrun.com cannot be reached the last known value keeps being used.
+ * Ages are measured with the wall-clock time of the {@link Clock}.
+ */
+public class WorldRecordService
+{
+    /**
+     * Number of milliseconds during which a fetched record is used without
+     * being fetched again
+     */
+    public static final long TTL = 30L * 60L * 1000L;
+
+    /**
+     * Number of milliseconds to wait before fetching a record again after a
+     * failed attempt
+     */
+    public static final long RETRY_DELAY = 60L * 1000L;
+
+    /**
+     * Record string used when no value has ever been fetched
+     */
+    public static final String UNKNOWN = "Unknown World Record";
+
+    private static final String CACHE_FILE = "records.properties";
+
+    private static WorldRecordService instance = null;
+
+    /**
+     * Callback notified when the record of a category has been fetched
+     */
+    public interface Listener
+    {
+        /**
+         * Called on the event dispatching thread with the fetched record
+         * @param category The category whose record was fetched
+         * @param record The new record string
+         */
+        void recordFetched(Category category, String record);
+    }
+
+    private final String apiUrl;
+    private final File cacheFile;
+    private final long ttl;
+    private final ExecutorService executor;
+
+    private final Map<String, Entry> cache = new HashMap<>();
+    private final Map<String, Long> failures = new HashMap<>();
+
+    /**
+     * Listeners waiting for each category being fetched
+     */
+    private final Map<String, List<Listener>> fetching = new HashMap<>();
+
+    /**
+     * Creates a service fetching the records from the given api and caching
+     * them in the given file
+     * @param apiUrl Base url of the api, such as {@link WorldRecordParser#API_URL}
+     * @param cacheFile The disk cache, or null to only cache in memory
+     * @param ttl Number of milliseconds a record is considered fresh
+     */
+    public WorldRecordService(String apiUrl, File cacheFile, long ttl)
+    {
+        this.apiUrl = apiUrl;
+        this.cacheFile = cacheFile;
+        this.ttl = ttl;
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "Llanfair world records");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        load();
+    }
+
+    /**
+     * Get the service used by the application, querying speedrun.com
+     * @return The shared service
+     */
+    public static synchronized WorldRecordService getInstance()
+    {
+        if(instance == null)
+        {
+            instance = new WorldRecordService(WorldRecordParser.API_URL,
+                    new File(UserSettings.getSettingsPath(), CACHE_FILE), TTL);
+        }
+        return instance;
+    }
+
+    /**
+     * Get the last known record of the given category without blocking. If
+     * this value is missing or outdated, a fetch is started in the background
+     * and the listener will be notified once it completes.
+     * @param category The category, whose id may be empty
+     * @param listener Notified of the fetched record, can be null
+     * @return The last known record string, or {@link #UNKNOWN}
+     */
+    public String getRecord(Category category, Listener listener)
+    {
+        String id = category.getId();
+        if(id.isEmpty())
+            return UNKNOWN;
+
+        long now = Clock.get().wallMillis();
+        synchronized(this)
+        {
+            Entry entry = cache.get(id);
+            Long failure = failures.get(id);
+            boolean fresh = entry != null && now - entry.fetched < ttl;
+            boolean retry = failure == null || now - failure >= RETRY_DELAY;
+
+            List<Listener> listeners = fetching.get(id);
+            if(listeners == null && !fresh && retry)
+            {
+                listeners = new ArrayList<>();
+                fetching.put(id, listeners);
+                executor.execute(new Fetch(category));
+            }
+            if(listeners != null && listener != null)
+                listeners.add(listener);
+
+            return entry == null ? UNKNOWN : entry.record;
+        }
+    }
+
+    /**
+     * Fetches the record of a category and notifies the listeners waiting
+     * for it
+     */
+    private class Fetch implements Runnable
+    {
+        private final Category category;
+
+        Fetch(Category category)
+        {
+            this.category = category;
+        }
+
+        public void run()
+        {
+            String id = category.getId();
+            String record;
+            try {
+                record = WorldRecordParser.getRecord(apiUrl, category);
+            } catch(Exception e)
+            {
+                record = null;
+            }
+
+            final List<Listener> listeners;
+            synchronized(WorldRecordService.this)
+            {
+                listeners = fetching.remove(id);
+                if(record == null)
+                {
+                    failures.put(id, Clock.get().wallMillis());
+                    return;
+                }
+                cache.put(id, new Entry(record, Clock.get().wallMillis()));
+                failures.remove(id);
+                save();
+            }
+
+            final String fetched = record;
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run()
+                {
+                    for(Listener listener : listeners)
+                        listener.recordFetched(category, fetched);
+                }
+            });
+        }
+    }
+
+    /**
+     * Load the disk cache, ignoring it if it is unreadable
+     */
+    private synchronized void load()
+    {
+        if(cacheFile == null || !cacheFile.exists())
+            return;
+
+        Properties properties = new Properties();
+        try(InputStream in = new FileInputStream(cacheFile))
+        {
+            properties.load(in);
+        } catch(IOException e)
+        {
+            return;
+        }
+        for(String id : properties.stringPropertyNames())
+        {
+            String value = properties.getProperty(id);
+            int separator = value.indexOf('|');
+            if(separator <= 0)
+                continue;
+            try {
+                long fetched = Long.parseLong(value.substring(0, separator));
+                cache.put(id, new Entry(value.substring(separator + 1), fetched));
+            } catch(NumberFormatException e)
+            {
+                // $FALL-THROUGH$
+            }
+        }
+    }
+
+    /**
+     * Write the cache to disk. Failing to do so only loses the cache.
+     */
+    private synchronized void save()
+    {
+        if(cacheFile == null)
+            return;
+
+        Properties properties = new Properties();
+        for(Map.Entry<String, Entry> entry : cache.entrySet())
+        {
+            Entry value = entry.getValue();
+            properties.setProperty(entry.getKey(), value.fetched + "|" + value.record);
+        }
+        try(OutputStream out = new FileOutputStream(cacheFile))
+        {
+            properties.store(out, "speedrun.com world records");
+        } catch(IOException e)
+        {
+            // $FALL-THROUGH$
+        }
+    }
+
+    /**
+     * A record string along with the time it was fetched at
+     */
+    private static class Entry
+    {
+        final String record;
+        final long fetched;
+
+        Entry(String record, long fetched)
+        {
+            this.record = record;
+            this.fetched = fetched;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package org.fenix.llanfair;
 
-import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.DomDriver;
 import org.fenix.llanfair.config.Settings;
 import org.fenix.llanfair.dialog.EditRun;
 import org.fenix.llanfair.dialog.EditSettings;
@@ -11,7 +9,6 @@ import org.fenix.llanfair.server.ServerAction;
 import org.fenix.llanfair.server.ServerEvent;
 import org.fenix.utils.UserSettings;
 import org.fenix.utils.about.AboutDialog;
-import org.jnativehook.keyboard.NativeKeyEvent;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -20,6 +17,7 @@ import java.awt.event.ActionEvent;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ResourceBundle;
 
 /**
@@ -37,7 +35,6 @@ public final class Actions {
 		SAVE
 	}
 
-	private static final long GHOST_DELAY = 300L;
 	private static ResourceBundle BUNDLE = null;
 
 	private Llanfair master;
@@ -48,9 +45,6 @@ public final class Actions {
 	private File file;
 	private JFileChooser fileChooser;
 
-	private volatile long lastUnsplit;
-	private volatile long lastSkip;
-
 	/**
 	 * Creates a new delegate. This constructor is package private since it
 	 * only need be called by the main class.
@@ -65,47 +59,48 @@ public final class Actions {
 		fileChooser = new JFileChooser(UserSettings.getSplitsPath(this.file));
 		fileChooser.setFileFilter(new FileNameExtensionFilter("" + Language.RUN_FILE_FILTER, "lfs"));
 
-		lastUnsplit = 0L;
-		lastSkip = 0L;
-
 		if ( BUNDLE == null ) {
 			BUNDLE = Llanfair.getResources().getBundle( "llanfair" );
 		}
 	}
 
 	/**
-	 * Processes the given native key event. This method must be called from
-	 * a thread to prevent possible deadlock.
+	 * Processes the given hotkey. This method is called from the native hook
+	 * thread: timing commands are submitted to the timing core right away with
+	 * the time stamp of the key press, so that they do not wait for the event
+	 * dispatching thread. Only the reset, which may ask for a confirmation, is
+	 * handed over to the event dispatching thread.
 	 *
-	 * @param event the native key event to process
+	 * @param hotkey the hotkey triggered by the key press
+	 * @param time the {@link Clock} time stamp of the key press
 	 */
-	void process( NativeKeyEvent event ) {
-		assert ( event != null );
-
-		int keyCode = event.getKeyCode();
-		Run run = master.getRun();
-		Run.State state = run.getState();
-
-		if ( keyCode == Settings.hotkeySplit.get() ) {
-			split();
-		} else if ( keyCode == Settings.hotkeyReset.get() ) {
-			reset();
-		} else if ( keyCode == Settings.hotkeyUnsplit.get() ) {
-			unsplit();
-		} else if ( keyCode == Settings.hotkeySkip.get() ) {
-			skip();
-		} else if ( keyCode == Settings.hotkeyStop.get() ) {
-			if ( state == Run.State.ONGOING ) {
-				run.stop();
-			}
-		} else if ( keyCode == Settings.hotkeyPause.get() ) {
-			if ( state == Run.State.ONGOING ) {
-				run.pause();
-			} else if ( state == Run.State.PAUSED ) {
-				run.resume();
-			}
-		} else if ( keyCode == Settings.hotkeyLock.get() ) {
+	void process( HotkeyTable.Hotkey hotkey, long time ) {
+		assert ( hotkey != null );
+
+		TimingCore core = master.getTimingCore();
+
+		switch ( hotkey ) {
+		case SPLIT:
+			core.submit( TimingCore.Command.Type.SPLIT, time );
+			break;
+		case RESET:
+			requestReset();
+			break;
+		case UNSPLIT:
+			core.submit( TimingCore.Command.Type.UNSPLIT, time );
+			break;
+		case SKIP:
+			core.submit( TimingCore.Command.Type.SKIP, time );
+			break;
+		case STOP:
+			core.submit( TimingCore.Command.Type.STOP, time );
+			break;
+		case PAUSE:
+			core.submit( TimingCore.Command.Type.TOGGLE_PAUSE, time );
+			break;
+		case LOCK:
 			master.setIgnoreNativeInputs( !master.ignoresNativeInputs() );
+			break;
 		}
 	}
 
@@ -137,9 +132,7 @@ public final class Actions {
 		} else if ( source == MenuItem.IMPORT ) {
 			importOtherFormat();
 		} else if ( source == MenuItem.SAVE ) {
-			run.saveLiveTimes( !run.isPersonalBest() );
-			run.reset();
-			save(this.file);
+			save( this.file, TimingCore.Command.Type.SAVE_AND_RESET );
 		} else if ( source == MenuItem.SAVE_AS ) {
 			save(null);
 		} else if ( source == MenuItem.RESET ) {
@@ -168,82 +161,69 @@ public final class Actions {
 					currentServer = null;
 					master.setServerStarted(false);
 				}
-				if (run.getState() == Run.State.ONGOING)
-					run.stop();
-				run.reset();
-
-				// exit the app
-				master.dispose();
+				master.getTimingCore().submit( TimingCore.Command.Type.STOP );
+
+				// exit the app once the run has been reset and saved
+				master.getTimingCore().submit( TimingCore.Command.Type.RESET,
+						new TimingCore.Callback() {
+					@Override public void processed( Run run ) {
+						SwingUtilities.invokeLater( new Runnable() {
+							@Override public void run() {
+								master.dispose();
+							}
+						} );
+					}
+				} );
 			}
 		}
 	}
 
+	/**
+	 * Processes an event received by the server. The event is forwarded to
+	 * the timing core without waiting for it to be applied, so this method
+	 * returns immediately whatever the state of the event dispatching thread.
+	 *
+	 * @param event the event to process
+	 */
 	public void processServerEvent(ServerEvent event) {
-		System.out.println(event);
-		Run run = master.getRun();
-		Run.State state = run.getState();
+		TimingCore core = master.getTimingCore();
+		long time = Clock.get().fromWallMillis(event.getNanoTime());
 
 		switch(event.getAction()) {
 			case START:
-				run.start(event.getNanoTime());
+				core.submit(TimingCore.Command.Type.START, time);
 				break;
 			case SPLIT:
-				split(event.getNanoTime(), false);
+				core.submit(TimingCore.Command.Type.SERVER_SPLIT, time);
 				break;
 			case PAUSE:
-				if (state == Run.State.ONGOING)
-					run.pause(event.getNanoTime());
+				core.submit(TimingCore.Command.Type.PAUSE, time);
 				break;
 			case RESUME:
-				if (state == Run.State.PAUSED)
-					run.resume(event.getNanoTime());
+				core.submit(TimingCore.Command.Type.RESUME, time);
 				break;
 			case END:
-				if (state == Run.State.ONGOING)
-					run.stop();
+				core.submit(TimingCore.Command.Type.STOP);
 				break;
 			case RESET:
-				reset();
+				requestReset();
 				break;
 			case RESTART: // Just in case
-				if (state == Run.State.ONGOING)
-					run.stop();
-				reset();
-//				split(event.getNanoTime(), false);
+				core.submit(TimingCore.Command.Type.STOP);
+				requestReset();
 		}
 	}
 
 	/**
-	 * Performs a split or starts the run if it is ready. Can also resume a
-	 * paused run in case the run is segmented.
+	 * Resets the current run from any thread. Since the reset might need the
+	 * user's confirmation, it is performed on the event dispatching thread.
 	 */
-	private void split() {
-		split(System.currentTimeMillis(), true);
-	}
-
-	private void split(long nanoTime, boolean keyInput) {
-		Run run = master.getRun();
-		Run.State state = run.getState();
-		if ( state == Run.State.ONGOING ) {
-			long milli = nanoTime;
-			long start = run.getSegment( run.getCurrent() ).getStartTime();
-			if ( keyInput && milli - start > GHOST_DELAY ) {
-				run.split(nanoTime);
-			}
-			else { // if(milli - start > 100L)
-				run.split(nanoTime);
-//				run.pause(nanoTime);
+	private void requestReset() {
+		SwingUtilities.invokeLater( new Runnable() {
+			@Override public void run() {
+				reset();
 			}
-		} else if ( state == Run.State.READY && keyInput ) {
-			run.start(nanoTime);
-		} else if ( state == Run.State.PAUSED && run.isSegmented() ) { // && run.isSegmented()
-			run.resume(nanoTime);
-//			if(!keyInput) {
-//				run.resume(nanoTime - 1L);
-//				run.split(nanoTime);
-//				run.pause(nanoTime + 1L);
-//			}
-		}
+		} );
 	}
 
 	/**
@@ -254,40 +234,7 @@ public final class Actions {
 		Run run = master.getRun();
 		if ( run.getState() != Run.State.NULL ) {
 			if ( !Settings.warnOnReset.get() || confirmOverwrite() ) {
-				run.reset();
-			}
-		}
-	}
-
-	/**
-	 * Performs an "unsplit" on the current run. If a split has been made, it
-	 * is canceled and the time that passed after said split is added back to
-	 * the timer, as if the split had not taken place.
-	 */
-	private void unsplit() {
-		Run run = master.getRun();
-		Run.State state = run.getState();
-		if ( state == Run.State.ONGOING || state == Run.State.STOPPED ) {
-			long milli = System.currentTimeMillis();
-			if ( milli - lastUnsplit > GHOST_DELAY ) {
-				lastUnsplit = milli;
-				run.unsplit();
-			}
-		}
-	}
-
-	/**
-	 * Skips the current split in the run. Skipping a split sets an undefined
-	 * time for the current segment and merges the live time of the current
-	 * segment with the following one.
-	 */
-	private void skip() {
-		Run run = master.getRun();
-		if ( run.getState() == Run.State.ONGOING ) {
-			long milli = System.currentTimeMillis();
-			if ( milli - lastSkip > GHOST_DELAY ) {
-				lastSkip = milli;
-				run.skip();
+				master.getTimingCore().submit( TimingCore.Command.Type.RESET );
 			}
 		}
 	}
@@ -349,9 +296,9 @@ public final class Actions {
 		boolean before = master.ignoresNativeInputs();
 		master.setIgnoreNativeInputs( true );
 
-		Run run = master.getRun();
-		boolean betterRun = run.isPersonalBest();
-		boolean betterSgt = run.hasSegmentsBest();
+		Run.Snapshot snapshot = master.getRun().getSnapshot();
+		boolean betterRun = snapshot.isPersonalBest();
+		boolean betterSgt = snapshot.hasSegmentsBest();
 
 		boolean confirmed = true;
 
@@ -367,9 +314,7 @@ public final class Actions {
 			if ( option == JOptionPane.CANCEL_OPTION )
 				confirmed = false;
 			else if ( option == JOptionPane.YES_OPTION ) {
-				run.saveLiveTimes( !betterRun );
-				run.reset();
-				save(this.file);
+				save( this.file, TimingCore.Command.Type.SAVE_AND_RESET );
 				confirmed = true;
 			}
 		}
@@ -411,16 +356,24 @@ public final class Actions {
 	 * @throws Exception if the reading operation fails
 	 */
 	private void open() throws Exception {
+		// The file might still be waiting to be serialized or written
+		master.getTimingCore().await( SaveExecutor.FLUSH_TIMEOUT );
+		master.getSaveExecutor().flush( SaveExecutor.FLUSH_TIMEOUT );
+
 		BufferedInputStream in = null;
 		try {
 			in = new BufferedInputStream( new FileInputStream( file ) );
+			Run opened;
 			try {
 				in.mark( Integer.MAX_VALUE );
-				xmlRead( in );
+				opened = xmlRead( in );
 			} catch ( Exception ex ) {
 				in.reset();
-				legacyRead( new ObjectInputStream( in ) );
+				opened = legacyRead( new ObjectInputStream( in ) );
 			}
+			// The run belongs to the timing core as soon as it is set
+			opened.setAttemptLog( new AttemptLog( file ) );
+			master.setRun( opened );
 			MenuItem.recentlyOpened( "" + file );
 		} catch ( Exception ex ) {
 			throw ex;
@@ -439,11 +392,10 @@ public final class Actions {
 	 * exception if confronted with such run file.
 	 *
 	 * @param in the input stream on the run file
+	 * @return the run read
 	 */
-	private void xmlRead( InputStream in ) {
-		XStream xml = new XStream( new DomDriver() );
-		SerializationUtils.customize(xml);
-		master.setRun( ( Run ) xml.fromXML( in ) );
+	private Run xmlRead( InputStream in ) {
+		return ( Run ) SerializationUtils.getXStream().fromXML( in );
 	}
 
 	/**
@@ -451,15 +403,17 @@ public final class Actions {
 	 * might fail if the given file is not a Llanfair run.
 	 *
 	 * @param in an input stream on the run file
+	 * @return the run read
 	 * @throws Exception if the stream cannot be read
 	 */
-	private void legacyRead( ObjectInputStream in ) throws Exception {
-		master.setRun( ( Run ) in.readObject() );
+	private Run legacyRead( ObjectInputStream in ) throws Exception {
+		Run run = ( Run ) in.readObject();
 		try {
 			Settings.dimension.set( ( Dimension ) in.readObject(), true );
 		} catch ( Exception ex ) {
 			// $FALL-THROUGH$
 		}
+		return run;
 	}
 
 	/**
@@ -469,8 +423,26 @@ public final class Actions {
 	 * @param file the file to save to, or if null, the user is prompted to select one
 	 */
 	private void save(File file) {
+		save( file, TimingCore.Command.Type.SYNC );
+	}
+
+	/**
+	 * Saves the currently opened run to the given file once the timing core
+	 * has applied the given command. If no file is given, the user is asked
+	 * for one; if they cancel, the command is still applied but nothing is
+	 * saved. The run is serialized on
+	 * the timing core thread, so that it cannot change while being read, and
+	 * the file is written in the background by the {@link SaveExecutor}.
+	 *
+	 * @param file the file to save to, or if null, the user is prompted to select one
+	 * @param type the command to apply to the run before saving it
+	 */
+	private void save( File file, TimingCore.Command.Type type ) {
 		if ( file == null ) {
 			if ( ( file = selectFile(FILE_CHOOSER_TYPE.SAVE) ) == null ) {
+				if ( type != TimingCore.Command.Type.SYNC ) {
+					master.getTimingCore().submit( type );
+				}
 				return;
 			}
 		}
@@ -478,22 +450,36 @@ public final class Actions {
 		Settings.coordinates.set( master.getLocationOnScreen(), true );
 		Settings.dimension.set( master.getSize(), true );
 
-		String name = file.getName();
-		BufferedOutputStream out = null;
+		final File target = file;
+		master.getTimingCore().submit( type, new TimingCore.Callback() {
+			@Override public void processed( Run run ) {
+				write( run, target );
+			}
+		} );
+	}
+
+	/**
+	 * Serializes the given run and hands it over to the {@link SaveExecutor}
+	 * to be written to the given file. Called from the timing core thread.
+	 *
+	 * @param run the run to save
+	 * @param file the file to save to
+	 */
+	private void write( Run run, File file ) {
+		final String name = file.getName();
 		try {
-			XStream xml = new XStream( new DomDriver() );
-			SerializationUtils.customize(xml);
-			xml.autodetectAnnotations(true);
-			out = new BufferedOutputStream( new FileOutputStream( file ) );
-			xml.toXML( master.getRun(), out );
+			ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+			Writer out = new OutputStreamWriter( snapshot, StandardCharsets.UTF_8 );
+			SerializationUtils.getXStream().toXML( run, out );
+			out.close();
+			master.getSaveExecutor().submit( file, snapshot.toByteArray() );
+			run.setAttemptLog( new AttemptLog( file ) );
 		} catch ( Exception ex ) {
-			master.showError( Language.error_write_file.get( name ) );
-		} finally {
-			try {
-				out.close();
-			} catch ( Exception ex ) {
-				// $FALL-THROUGH$
-			}
+			SwingUtilities.invokeLater( new Runnable() {
+				@Override public void run() {
+					master.showError( Language.error_write_file.get( name ) );
+				}
+			} );
 		}
 	}
 
@@ -590,11 +576,29 @@ public final class Actions {
 		}
 	}
 
+	/**
+	 * Notifies the user that a client connected to the server. The message is
+	 * displayed asynchronously so that the server thread is never blocked by
+	 * the dialog.
+	 */
 	public void showConnected() {
-		master.showMessage(Language.GAME_CONNECTED.get());
+		SwingUtilities.invokeLater( new Runnable() {
+			@Override public void run() {
+				master.showMessage(Language.GAME_CONNECTED.get());
+			}
+		} );
 	}
 
+	/**
+	 * Notifies the user that a client disconnected from the server. The
+	 * message is displayed asynchronously so that the server thread is never
+	 * blocked by the dialog.
+	 */
 	public void showDisconnected() {
-		master.showMessage(Language.GAME_DISCONNECTED.get());
+		SwingUtilities.invokeLater( new Runnable() {
+			@Override public void run() {
+				master.showMessage(Language.GAME_DISCONNECTED.get());
+			}
+		} );
 	}
 }
@@ -0,0 +1,491 @@
+package org.fenix.llanfair;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of every attempt made on a run. The log lives next to the
+ * run file and receives one record per attempt when the run is reset, so the
+ * history of attempts is kept without rewriting the run file itself.
+ *
+ * <p>Records are appended by a background thread, shared by every log, which
+ * writes every pending record at once before forcing them to disk, so
+ * appending never blocks the caller. Reading maps the file in memory.</p>
+ *
+ * <p>The file starts with the four bytes {@code LFA1} and is followed by
+ * records of the form, all numbers being big-endian:</p>
+ *
+ * <pre>
+ * size  field
+ *    4  length of the record body in bytes
+ *    8  wall-clock time of the start of the attempt, in ms since the epoch
+ *    4  number of segments n
+ *    4  index of the segment being run when the attempt ended, n if the
+ *       attempt was completed
+ *  8*n  live time of each segment in nanoseconds, -1 if undefined
+ *    4  number of pauses p
+ *  8*p  start of each pause, in nanoseconds since the start of the attempt
+ *  8*p  duration of each pause in nanoseconds
+ *    4  CRC-32 of the record body
+ * </pre>
+ *
+ * <p>A record whose checksum does not match, such as a record interrupted by
+ * a crash, ends the readable part of the log.</p>
+ */
+public final class AttemptLog {
+
+	// -------------------------------------------------------------- CONSTANTS
+
+	/**
+	 * Extension appended to the name of the run file to name its log.
+	 */
+	public static final String EXTENSION = ".attempts";
+
+	private static final byte[] MAGIC = { 'L', 'F', 'A', '1' };
+
+	/**
+	 * Marker written in place of an undefined live time.
+	 */
+	static final long UNDEFINED = -1L;
+
+	/**
+	 * Records waiting to be written by the background writer, whatever their
+	 * log.
+	 */
+	private static final LinkedBlockingQueue<Entry> PENDING
+			= new LinkedBlockingQueue<Entry>();
+
+	private static Thread writer = null;
+
+	// ------------------------------------------------------------- ATTRIBUTES
+
+	private final File runFile;
+
+	private final File file;
+
+	// ----------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Opens the log of the given run file. The log file itself is only
+	 * created when the first attempt is appended.
+	 *
+	 * @param runFile the run file whose attempts are logged
+	 */
+	public AttemptLog(File runFile) {
+		this.runFile = runFile;
+		file = new File(runFile.getPath() + EXTENSION);
+	}
+
+	/**
+	 * Waits for every attempt appended so far, to any log, to be written. Waits
+	 * at most the given number of milliseconds.
+	 *
+	 * @param timeout the maximum number of milliseconds to wait
+	 */
+	public static void flush(long timeout) {
+		CountDownLatch latch = new CountDownLatch(1);
+		enqueue(new Entry(null, null, latch));
+		try {
+			latch.await(timeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// -------------------------------------------------------------- INTERFACE
+
+	/**
+	 * Returns the run file whose attempts are logged.
+	 *
+	 * @return the run file
+	 */
+	public File getRunFile() {
+		return runFile;
+	}
+
+	/**
+	 * Returns the file backing this log.
+	 *
+	 * @return the log file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Appends the given attempt to the log. The attempt is written in the
+	 * background and this method returns immediately.
+	 *
+	 * @param attempt the attempt to append
+	 */
+	public void append(Attempt attempt) {
+		if (attempt == null) {
+			throw new NullPointerException("null attempt");
+		}
+		enqueue(new Entry(this, attempt, null));
+	}
+
+	/**
+	 * Reads every attempt stored in the log, oldest first. Attempts still
+	 * pending are not included, and a log whose header was never entirely
+	 * written, such as after a crash, is empty.
+	 *
+	 * @return the list of logged attempts, possibly empty
+	 * @throws IOException if the log cannot be read
+	 */
+	public List<Attempt> read() throws IOException {
+		if (!file.exists()) {
+			return Collections.emptyList();
+		}
+		List<Attempt> attempts = new ArrayList<Attempt>();
+		try (FileChannel channel = FileChannel.open(
+				file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() < MAGIC.length) {
+				return attempts;
+			}
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+			if (!hasMagic(buffer)) {
+				throw new IOException("not an attempt log: " + file);
+			}
+			CRC32 crc = new CRC32();
+			while (buffer.remaining() >= 4) {
+				Attempt attempt = decode(buffer, crc);
+				if (attempt == null) {
+					break;
+				}
+				attempts.add(attempt);
+			}
+		}
+		return attempts;
+	}
+
+	// -------------------------------------------------------------- UTILITIES
+
+	/**
+	 * Queues the given entry, starting the background writer if needed.
+	 */
+	private static synchronized void enqueue(Entry entry) {
+		if (writer == null) {
+			writer = new Thread(new Runnable() {
+				@Override public void run() {
+					write();
+				}
+			}, "Llanfair attempt log");
+			writer.setDaemon(true);
+			writer.start();
+		}
+		PENDING.offer(entry);
+	}
+
+	/**
+	 * Main loop of the background writer. Waits for an attempt, then writes
+	 * it along with every other pending attempt, grouped by log, before
+	 * releasing the callers of {@link #flush(long)} waiting on them.
+	 */
+	private static void write() {
+		List<Entry> batch = new ArrayList<Entry>();
+		List<Attempt> attempts = new ArrayList<Attempt>();
+		while (true) {
+			try {
+				batch.add(PENDING.take());
+			} catch (InterruptedException ex) {
+				continue;
+			}
+			PENDING.drainTo(batch);
+			for (int i = 0; i < batch.size(); i++) {
+				AttemptLog log = batch.get(i).log;
+				if (log == null) {
+					continue;
+				}
+				for (int j = i; j < batch.size(); j++) {
+					Entry entry = batch.get(j);
+					if (entry.log == log) {
+						attempts.add(entry.attempt);
+						batch.set(j, new Entry(null, null, entry.latch));
+					}
+				}
+				try {
+					log.writeBatch(attempts);
+				} catch (IOException ex) {
+					ex.printStackTrace();
+				}
+				attempts.clear();
+			}
+			for (Entry entry : batch) {
+				if (entry.latch != null) {
+					entry.latch.countDown();
+				}
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Appends the given attempts to the log file and forces them to disk.
+	 */
+	private void writeBatch(List<Attempt> batch) throws IOException {
+		int size = 0;
+		for (Attempt attempt : batch) {
+			size += 8 + attempt.getBodySize();
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(MAGIC.length + size);
+		CRC32 crc = new CRC32();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			// A header interrupted by a crash is written again
+			if (channel.size() < MAGIC.length) {
+				channel.truncate(0L);
+				buffer.put(MAGIC);
+			}
+			for (Attempt attempt : batch) {
+				encode(attempt, buffer, crc);
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		}
+	}
+
+	private static boolean hasMagic(ByteBuffer buffer) {
+		if (buffer.remaining() < MAGIC.length) {
+			return false;
+		}
+		for (byte b : MAGIC) {
+			if (buffer.get() != b) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void encode(Attempt attempt, ByteBuffer buffer, CRC32 crc) {
+		int bodySize = attempt.getBodySize();
+		buffer.putInt(bodySize);
+		int start = buffer.position();
+
+		buffer.putLong(attempt.startTime);
+		buffer.putInt(attempt.liveTimes.length);
+		buffer.putInt(attempt.resetIndex);
+		for (long live : attempt.liveTimes) {
+			buffer.putLong(live);
+		}
+		buffer.putInt(attempt.pauseStarts.length);
+		for (long pause : attempt.pauseStarts) {
+			buffer.putLong(pause);
+		}
+		for (long pause : attempt.pauseDurations) {
+			buffer.putLong(pause);
+		}
+		crc.reset();
+		crc.update(buffer.array(), start, bodySize);
+		buffer.putInt((int) crc.getValue());
+	}
+
+	/**
+	 * Decodes the record at the position of the given buffer, or returns
+	 * {@code null} if the record is truncated or corrupted. The record is
+	 * read in place, without copying its body out of the buffer.
+	 */
+	private static Attempt decode(ByteBuffer buffer, CRC32 crc) {
+		int bodySize = buffer.getInt();
+		if (bodySize < 20 || bodySize + 4 > buffer.remaining()) {
+			return null;
+		}
+		int end = buffer.position() + bodySize;
+
+		ByteBuffer body = buffer.duplicate();
+		body.limit(end);
+		crc.reset();
+		crc.update(body);
+		if ((int) crc.getValue() != buffer.getInt(end)) {
+			return null;
+		}
+		long startTime  = buffer.getLong();
+		int  count      = buffer.getInt();
+		int  resetIndex = buffer.getInt();
+		if (count < 0 || end - buffer.position() < 8L * count + 4L) {
+			return null;
+		}
+		long[] liveTimes = getLongs(buffer, count);
+		int pauses = buffer.getInt();
+		if (pauses < 0 || end - buffer.position() != 16L * pauses) {
+			return null;
+		}
+		long[] pauseStarts    = getLongs(buffer, pauses);
+		long[] pauseDurations = getLongs(buffer, pauses);
+		buffer.position(end + 4);
+		return new Attempt(
+				startTime, liveTimes, resetIndex, pauseStarts, pauseDurations);
+	}
+
+	/**
+	 * Reads the given number of longs at the position of the given buffer,
+	 * moving its position past them.
+	 */
+	private static long[] getLongs(ByteBuffer buffer, int count) {
+		long[] values = new long[count];
+		buffer.asLongBuffer().get(values);
+		buffer.position(buffer.position() + 8 * count);
+		return values;
+	}
+
+	// ---------------------------------------------------------- INTERNAL TYPE
+
+	/**
+	 * An attempt waiting to be written to its log, or a marker with a latch
+	 * released once every entry queued before it is written.
+	 */
+	private static final class Entry {
+
+		final AttemptLog log;
+
+		final Attempt attempt;
+
+		final CountDownLatch latch;
+
+		Entry(AttemptLog log, Attempt attempt, CountDownLatch latch) {
+			this.log     = log;
+			this.attempt = attempt;
+			this.latch   = latch;
+		}
+	}
+
+	/**
+	 * A single attempt of a run, as stored in the log. Attempts are immutable.
+	 */
+	public static final class Attempt {
+
+		private final long startTime;
+
+		private final long[] liveTimes;
+
+		private final int resetIndex;
+
+		private final long[] pauseStarts;
+
+		private final long[] pauseDurations;
+
+		/**
+		 * Creates a new attempt. The arrays are not copied and must not be
+		 * modified afterwards.
+		 *
+		 * @param startTime wall-clock time of the start, in ms since the epoch
+		 * @param liveTimes live time of each segment in nanoseconds, negative
+		 *        if undefined
+		 * @param resetIndex index of the segment being run when the attempt
+		 *        ended
+		 * @param pauseStarts start of each pause in nanoseconds since the
+		 *        start of the attempt
+		 * @param pauseDurations duration of each pause in nanoseconds
+		 */
+		Attempt(long startTime, long[] liveTimes, int resetIndex,
+				long[] pauseStarts, long[] pauseDurations) {
+			if (pauseStarts.length != pauseDurations.length) {
+				throw new IllegalArgumentException("unmatched pauses");
+			}
+			this.startTime      = startTime;
+			this.liveTimes      = liveTimes;
+			this.resetIndex     = resetIndex;
+			this.pauseStarts    = pauseStarts;
+			this.pauseDurations = pauseDurations;
+		}
+
+		/**
+		 * Returns the wall-clock time at which the attempt started.
+		 *
+		 * @return the start time in milliseconds since the epoch
+		 */
+		public long getStartTime() {
+			return startTime;
+		}
+
+		/**
+		 * Returns the number of segments the run had during the attempt.
+		 *
+		 * @return the number of segments
+		 */
+		public int getSegmentCount() {
+			return liveTimes.length;
+		}
+
+		/**
+		 * Returns the live time of the given segment during the attempt.
+		 *
+		 * @param segmentIndex the index of the segment
+		 * @return the live time or {@code null} if undefined
+		 */
+		public Time getLiveTime(int segmentIndex) {
+			long live = liveTimes[segmentIndex];
+			return (live < 0L ? null : Time.ofNanos(live));
+		}
+
+		/**
+		 * Returns the index of the segment being run when the attempt was
+		 * reset, or the number of segments if the attempt was completed.
+		 *
+		 * @return the index of the segment the attempt ended on
+		 */
+		public int getResetIndex() {
+			return resetIndex;
+		}
+
+		/**
+		 * Indicates whether the last split of the run was made.
+		 *
+		 * @return {@code true} if the attempt was completed
+		 */
+		public boolean isCompleted() {
+			return resetIndex >= liveTimes.length;
+		}
+
+		/**
+		 * Returns the number of times the attempt was paused.
+		 *
+		 * @return the number of pauses
+		 */
+		public int getPauseCount() {
+			return pauseStarts.length;
+		}
+
+		/**
+		 * Returns the start of the given pause.
+		 *
+		 * @param pauseIndex the index of the pause
+		 * @return the start of the pause in nanoseconds since the start of
+		 *         the attempt
+		 */
+		public long getPauseStart(int pauseIndex) {
+			return pauseStarts[pauseIndex];
+		}
+
+		/**
+		 * Returns the duration of the given pause.
+		 *
+		 * @param pauseIndex the index of the pause
+		 * @return the duration of the pause in nanoseconds
+		 */
+		public long getPauseDuration(int pauseIndex) {
+			return pauseDurations[pauseIndex];
+		}
+
+		private int getBodySize() {
+			return 20 + 8 * liveTimes.length + 16 * pauseStarts.length;
+		}
+	}
+}
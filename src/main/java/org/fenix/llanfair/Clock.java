@@ -0,0 +1,140 @@
+package org.fenix.llanfair;
+
+/**
+ * Source of time for every timing operation of a run. The default clock is
+ * monotonic and backed by {@link System#nanoTime()}, meaning it has a
+ * nanosecond resolution and is not affected by adjustments of the system
+ * clock (such as NTP corrections) during a run. Values returned by a clock
+ * have an arbitrary origin and are only meaningful when compared to other
+ * values of the same clock.
+ *
+ * <p>The clock in use can be replaced with {@link #set(Clock)}, for instance
+ * by a {@link Manual} clock to drive a run deterministically.</p>
+ */
+public abstract class Clock {
+
+	/**
+	 * Number of nanoseconds in a millisecond.
+	 */
+	public static final long NANOS_PER_MILLI = 1000000L;
+
+	/**
+	 * The system clock, used by default.
+	 */
+	public static final Clock SYSTEM = new Clock() {
+		@Override public long nanoTime() {
+			return System.nanoTime();
+		}
+
+		@Override public long wallMillis() {
+			return System.currentTimeMillis();
+		}
+	};
+
+	private static volatile Clock current = SYSTEM;
+
+	/**
+	 * Returns the clock currently in use.
+	 *
+	 * @return the current clock
+	 */
+	public static Clock get() {
+		return current;
+	}
+
+	/**
+	 * Replaces the clock in use. Should not be called while a run is on-going
+	 * as the time stamps of the two clocks cannot be compared.
+	 *
+	 * @param clock the new clock, cannot be {@code null}
+	 */
+	public static void set(Clock clock) {
+		if (clock == null) {
+			throw new NullPointerException("null clock");
+		}
+		current = clock;
+	}
+
+	/**
+	 * Returns the current value of this clock in nanoseconds.
+	 *
+	 * @return the current time stamp of this clock
+	 */
+	public abstract long nanoTime();
+
+	/**
+	 * Returns the current wall-clock time, as the number of milliseconds since
+	 * the epoch.
+	 *
+	 * @return the current wall-clock time
+	 */
+	public abstract long wallMillis();
+
+	/**
+	 * Converts a wall-clock time, such as the ones sent by the clients of the
+	 * server, to a time stamp of this clock.
+	 *
+	 * @param epochMillis a number of milliseconds since the epoch
+	 * @return the matching time stamp of this clock
+	 */
+	public long fromWallMillis(long epochMillis) {
+		return nanoTime() - (wallMillis() - epochMillis) * NANOS_PER_MILLI;
+	}
+
+	/**
+	 * A clock which only moves forward when told to. Its wall-clock time
+	 * starts at the given value and moves along with its time stamps.
+	 */
+	public static class Manual extends Clock {
+
+		private final long wallOrigin;
+
+		private volatile long nanos;
+
+		/**
+		 * Creates a manual clock starting at zero nanoseconds.
+		 *
+		 * @param wallOrigin the wall-clock time matching the time stamp zero
+		 */
+		public Manual(long wallOrigin) {
+			this.wallOrigin = wallOrigin;
+			this.nanos      = 0L;
+		}
+
+		/**
+		 * Creates a manual clock whose wall-clock time starts at the epoch.
+		 */
+		public Manual() {
+			this(0L);
+		}
+
+		@Override public long nanoTime() {
+			return nanos;
+		}
+
+		@Override public long wallMillis() {
+			return wallOrigin + nanos / NANOS_PER_MILLI;
+		}
+
+		/**
+		 * Moves this clock forward by the given number of nanoseconds.
+		 *
+		 * @param delta the number of nanoseconds to add, cannot be negative
+		 */
+		public synchronized void advance(long delta) {
+			if (delta < 0L) {
+				throw new IllegalArgumentException("negative delta");
+			}
+			nanos += delta;
+		}
+
+		/**
+		 * Moves this clock forward by the given number of milliseconds.
+		 *
+		 * @param delta the number of milliseconds to add, cannot be negative
+		 */
+		public void advanceMillis(long delta) {
+			advance(delta * NANOS_PER_MILLI);
+		}
+	}
+}
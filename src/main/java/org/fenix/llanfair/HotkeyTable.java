@@ -0,0 +1,255 @@
+package org.fenix.llanfair;
+
+import org.fenix.llanfair.config.Settings;
+import org.jnativehook.NativeInputEvent;
+import org.jnativehook.keyboard.NativeKeyEvent;
+
+import java.util.Arrays;
+
+/**
+ * An immutable table mapping a key code and the modifiers held with it to the
+ * hotkey it triggers. The table is compiled from the settings once, whenever
+ * a hotkey setting changes, so that looking up a key press is a couple of
+ * array accesses and never touches the configuration.
+ *
+ * <p>A binding is stored in a hotkey setting as the key code in its lower
+ * sixteen bits and the modifiers of the chord above them, so that bindings
+ * from before chords were supported still read as plain keys. A chord is
+ * triggered only if its modifiers are held, while a plain key is triggered
+ * whatever the modifiers held, unless a chord on the same key matches. Each
+ * hotkey has a primary and an alternate binding.</p>
+ */
+public final class HotkeyTable {
+
+	// -------------------------------------------------------------- CONSTANTS
+
+	/**
+	 * Value of a disabled binding.
+	 */
+	public static final int DISABLED = -1;
+
+	public static final int SHIFT = 1;
+	public static final int CTRL  = 2;
+	public static final int ALT   = 4;
+	public static final int META  = 8;
+
+	private static final int KEY_MASK = 0xFFFF;
+
+	private static final int MODIFIERS_OFFSET = 16;
+
+	/**
+	 * Value of a free slot in the table, which cannot be a binding.
+	 */
+	private static final int FREE = -1;
+
+	/**
+	 * The hotkeys, in the order they take precedence when several share a
+	 * binding.
+	 */
+	enum Hotkey {
+		SPLIT(Settings.hotkeySplit, Settings.altHotkeySplit),
+		RESET(Settings.hotkeyReset, Settings.altHotkeyReset),
+		UNSPLIT(Settings.hotkeyUnsplit, Settings.altHotkeyUnsplit),
+		SKIP(Settings.hotkeySkip, Settings.altHotkeySkip),
+		STOP(Settings.hotkeyStop, Settings.altHotkeyStop),
+		PAUSE(Settings.hotkeyPause, Settings.altHotkeyPause),
+		LOCK(Settings.hotkeyLock, Settings.altHotkeyLock);
+
+		private final Settings.Property<Integer> primary;
+
+		private final Settings.Property<Integer> alternate;
+
+		private Hotkey(Settings.Property<Integer> primary,
+				Settings.Property<Integer> alternate) {
+			this.primary   = primary;
+			this.alternate = alternate;
+		}
+	}
+
+	// ------------------------------------------------------------- ATTRIBUTES
+
+	/**
+	 * Open addressed table of the bindings, with the hotkey of each binding
+	 * at the same index.
+	 */
+	private final int[] bindings;
+
+	private final Hotkey[] hotkeys;
+
+	private final boolean global;
+
+	// ----------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Compiles the table of the hotkeys currently defined in the settings.
+	 */
+	HotkeyTable() {
+		// Two bindings per hotkey, in a table at most half full
+		Hotkey[] values = Hotkey.values();
+		int capacity = Integer.highestOneBit(values.length * 4) << 1;
+
+		bindings = new int[capacity];
+		hotkeys  = new Hotkey[capacity];
+		global   = Settings.useGlobalHotkeys.get();
+
+		Arrays.fill(bindings, FREE);
+		for (Hotkey hotkey : values) {
+			put(hotkey.primary.get(), hotkey);
+			put(hotkey.alternate.get(), hotkey);
+		}
+	}
+
+	// -------------------------------------------------------------- INTERFACE
+
+	/**
+	 * Returns whether the hotkeys are active while Llanfair is not focused.
+	 */
+	boolean isGlobal() {
+		return global;
+	}
+
+	/**
+	 * Returns the hotkey triggered by the given key press, or {@code null} if
+	 * the key is not bound.
+	 *
+	 * @param keyCode the key code of the key press
+	 * @param nativeModifiers the modifiers of the key press, as returned by
+	 *  {@link NativeInputEvent#getModifiers()}
+	 * @return the hotkey triggered, or {@code null} if none
+	 */
+	Hotkey get(int keyCode, int nativeModifiers) {
+		int modifiers = getModifiers(nativeModifiers);
+		if (modifiers != 0) {
+			Hotkey hotkey = find(encode(keyCode, modifiers));
+			if (hotkey != null) {
+				return hotkey;
+			}
+		}
+		return find(encode(keyCode, 0));
+	}
+
+	/**
+	 * Returns the binding of the given key code, held with the given
+	 * modifiers.
+	 *
+	 * @param keyCode the key code of the binding
+	 * @param modifiers the modifiers of the chord, a combination of
+	 *  {@code SHIFT}, {@code CTRL}, {@code ALT} and {@code META}
+	 * @return the binding to store in a hotkey setting
+	 */
+	public static int encode(int keyCode, int modifiers) {
+		return (keyCode & KEY_MASK) | (modifiers << MODIFIERS_OFFSET);
+	}
+
+	/**
+	 * Returns the modifiers of a chord from the modifiers of a native event,
+	 * ignoring on which side of the keyboard they are and the mouse buttons.
+	 *
+	 * @param nativeModifiers the modifiers of a native event
+	 * @return the modifiers of the chord
+	 */
+	public static int getModifiers(int nativeModifiers) {
+		int modifiers = 0;
+		if ((nativeModifiers & NativeInputEvent.SHIFT_MASK) != 0) {
+			modifiers |= SHIFT;
+		}
+		if ((nativeModifiers & NativeInputEvent.CTRL_MASK) != 0) {
+			modifiers |= CTRL;
+		}
+		if ((nativeModifiers & NativeInputEvent.ALT_MASK) != 0) {
+			modifiers |= ALT;
+		}
+		if ((nativeModifiers & NativeInputEvent.META_MASK) != 0) {
+			modifiers |= META;
+		}
+		return modifiers;
+	}
+
+	/**
+	 * Returns whether the given key code is one of a modifier key, which can
+	 * only be part of a chord.
+	 *
+	 * @param keyCode the key code to check
+	 * @return {@code true} if the key is a modifier
+	 */
+	public static boolean isModifierKey(int keyCode) {
+		switch (keyCode) {
+		case NativeKeyEvent.VC_SHIFT_L:
+		case NativeKeyEvent.VC_SHIFT_R:
+		case NativeKeyEvent.VC_CONTROL_L:
+		case NativeKeyEvent.VC_CONTROL_R:
+		case NativeKeyEvent.VC_ALT_L:
+		case NativeKeyEvent.VC_ALT_R:
+		case NativeKeyEvent.VC_META_L:
+		case NativeKeyEvent.VC_META_R:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the text describing the given binding, such as
+	 * {@code Ctrl+F1}.
+	 *
+	 * @param binding the binding to describe, cannot be {@code DISABLED}
+	 * @return the text of the binding
+	 */
+	public static String getText(int binding) {
+		String key = NativeKeyEvent.getKeyText(binding & KEY_MASK);
+		int modifiers = binding >>> MODIFIERS_OFFSET;
+		if (modifiers == 0) {
+			return key;
+		}
+		int nativeModifiers = 0;
+		if ((modifiers & SHIFT) != 0) {
+			nativeModifiers |= NativeInputEvent.SHIFT_L_MASK;
+		}
+		if ((modifiers & CTRL) != 0) {
+			nativeModifiers |= NativeInputEvent.CTRL_L_MASK;
+		}
+		if ((modifiers & ALT) != 0) {
+			nativeModifiers |= NativeInputEvent.ALT_L_MASK;
+		}
+		if ((modifiers & META) != 0) {
+			nativeModifiers |= NativeInputEvent.META_L_MASK;
+		}
+		return NativeInputEvent.getModifiersText(nativeModifiers) + "+" + key;
+	}
+
+	// -------------------------------------------------------------- UTILITIES
+
+	/**
+	 * Binds the given hotkey, unless the binding is disabled or already bound
+	 * to a hotkey taking precedence.
+	 */
+	private void put(Integer binding, Hotkey hotkey) {
+		if (binding == null || binding < 0) {
+			return;
+		}
+		int slot = indexOf(binding);
+		if (bindings[slot] == FREE) {
+			bindings[slot] = binding;
+			hotkeys[slot]  = hotkey;
+		}
+	}
+
+	private Hotkey find(int binding) {
+		int slot = indexOf(binding);
+		return bindings[slot] == FREE ? null : hotkeys[slot];
+	}
+
+	/**
+	 * Returns the slot holding the given binding, or the free slot where it
+	 * would be. The table is never more than half full, so there is always a
+	 * free slot.
+	 */
+	private int indexOf(int binding) {
+		int mask = bindings.length - 1;
+		int slot = (binding * 0x9E3779B9) >>> 16 & mask;
+		while (bindings[slot] != FREE && bindings[slot] != binding) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+}
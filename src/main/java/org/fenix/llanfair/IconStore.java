@@ -0,0 +1,352 @@
+package org.fenix.llanfair;
+
+import org.fenix.utils.UserSettings;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Content-addressed store of the icons of the segments. Each icon is saved
+ * once as a PNG file named after the SHA-256 hash of its content, so run
+ * files only need to reference icons by hash and identical icons are shared
+ * by every segment and every run using them. Run files still carry the PNG
+ * of each of their icons once, so that they can be opened where the store
+ * does not have them, such as on another computer.
+ *
+ * <p>Icons read from the store are {@link StoredIcon}s, which only decode
+ * their PNG file the first time they are painted.</p>
+ */
+public final class IconStore {
+
+	// -------------------------------------------------------------- CONSTANTS
+
+	/**
+	 * Directory of the store, in the user settings directory.
+	 */
+	private static final File DIRECTORY
+			= new File(UserSettings.getSettingsPath(), "icons");
+
+	private static final String EXTENSION = ".png";
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final Logger LOGGER = Logger.getLogger(IconStore.class.getName());
+
+	/**
+	 * Icons already handed out, by hash, so that an icon used several times
+	 * is only decoded once.
+	 */
+	private static final Map<String, WeakReference<StoredIcon>> ICONS
+			= new HashMap<String, WeakReference<StoredIcon>>();
+
+	// ----------------------------------------------------------- CONSTRUCTORS
+
+	private IconStore() {}
+
+	// -------------------------------------------------------------- INTERFACE
+
+	/**
+	 * Saves the given icon in the store if it is not already there and
+	 * returns the stored version of it.
+	 *
+	 * @param icon the icon to store
+	 * @return the stored icon, which is {@code icon} itself if it was
+	 *         already stored
+	 * @throws IOException if the icon cannot be written to the store
+	 */
+	public static StoredIcon store(ImageIcon icon) throws IOException {
+		if (icon instanceof StoredIcon) {
+			return (StoredIcon) icon;
+		}
+		BufferedImage image = toBufferedImage(icon);
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		if (!ImageIO.write(image, "png", png)) {
+			throw new IOException("no PNG encoder");
+		}
+		byte[] data = png.toByteArray();
+		String hash = hash(data);
+		write(hash, data);
+
+		synchronized (ICONS) {
+			StoredIcon stored = lookup(hash);
+			if (stored == null) {
+				stored = new StoredIcon(hash, image);
+				ICONS.put(hash, new WeakReference<StoredIcon>(stored));
+			}
+			return stored;
+		}
+	}
+
+	/**
+	 * Same as {@link #store(ImageIcon)} but returns the given icon as is if
+	 * it cannot be stored. It will then be stored, or embedded, when saved.
+	 *
+	 * @param icon the icon to store
+	 * @return the stored icon, or {@code icon} if the store is unavailable
+	 */
+	public static ImageIcon intern(ImageIcon icon) {
+		try {
+			return store(icon);
+		} catch (IOException ex) {
+			return icon;
+		}
+	}
+
+	/**
+	 * Returns the icon of the given PNG content, as carried by a run file,
+	 * saving it in the store if it is not already there. If the store is not
+	 * available, the icon is decoded right away and only kept in memory.
+	 *
+	 * @param data   the PNG content of the icon
+	 * @param width  the width of the icon
+	 * @param height the height of the icon
+	 * @return the icon of given content
+	 * @throws IOException if the content is not a readable image
+	 */
+	public static StoredIcon restore(byte[] data, int width, int height)
+			throws IOException {
+		String hash = hash(data);
+		StoredIcon restored;
+		try {
+			write(hash, data);
+			restored = new StoredIcon(hash, width, height);
+		} catch (IOException ex) {
+			LOGGER.log(Level.WARNING, "Cannot save icon " + hash, ex);
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+			if (image == null) {
+				throw new IOException("not an image");
+			}
+			restored = new StoredIcon(hash, image);
+		}
+		synchronized (ICONS) {
+			StoredIcon stored = lookup(hash);
+			// An icon found missing earlier has not been decoded again
+			if (stored == null || stored.isBlank()) {
+				stored = restored;
+				ICONS.put(hash, new WeakReference<StoredIcon>(stored));
+			}
+			return stored;
+		}
+	}
+
+	/**
+	 * Returns the PNG content of the given icon, as saved in the store, or
+	 * {@code null} if the store does not have it.
+	 *
+	 * @param icon the icon to read
+	 * @return the PNG content of the icon, or {@code null}
+	 */
+	public static byte[] getData(StoredIcon icon) {
+		try {
+			return Files.readAllBytes(getFile(icon.getHash()).toPath());
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the icon of given hash and dimensions. The icon is not decoded
+	 * until it is painted.
+	 *
+	 * @param hash   the hash of the icon
+	 * @param width  the width of the icon
+	 * @param height the height of the icon
+	 * @return the icon of given hash
+	 */
+	public static StoredIcon get(String hash, int width, int height) {
+		synchronized (ICONS) {
+			StoredIcon stored = lookup(hash);
+			if (stored == null) {
+				stored = new StoredIcon(hash, width, height);
+				ICONS.put(hash, new WeakReference<StoredIcon>(stored));
+			}
+			return stored;
+		}
+	}
+
+	// -------------------------------------------------------------- UTILITIES
+
+	private static StoredIcon lookup(String hash) {
+		WeakReference<StoredIcon> reference = ICONS.get(hash);
+		return (reference == null ? null : reference.get());
+	}
+
+	private static File getFile(String hash) {
+		return new File(DIRECTORY, hash + EXTENSION);
+	}
+
+	/**
+	 * Saves the given PNG content in the store, unless already there.
+	 */
+	private static void write(String hash, byte[] data) throws IOException {
+		File file = getFile(hash);
+		if (file.exists()) {
+			return;
+		}
+		if (!DIRECTORY.isDirectory() && !DIRECTORY.mkdirs()) {
+			throw new IOException("cannot create " + DIRECTORY);
+		}
+		File temp = File.createTempFile(hash, ".tmp", DIRECTORY);
+		try {
+			Files.write(temp.toPath(), data);
+			Files.move(temp.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			temp.delete();
+		}
+	}
+
+	private static String hash(byte[] data) {
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256").digest(data);
+		} catch (NoSuchAlgorithmException ex) {
+			// Every Java platform is required to support SHA-256.
+			throw new IllegalStateException(ex);
+		}
+		char[] hex = new char[digest.length * 2];
+		for (int i = 0; i < digest.length; i++) {
+			hex[2 * i]     = HEX[(digest[i] >> 4) & 0xF];
+			hex[2 * i + 1] = HEX[digest[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	private static BufferedImage toBufferedImage(ImageIcon icon) {
+		Image image = icon.getImage();
+		if (image instanceof BufferedImage) {
+			return (BufferedImage) image;
+		}
+		BufferedImage buffer = new BufferedImage(
+				Math.max(1, icon.getIconWidth()),
+				Math.max(1, icon.getIconHeight()),
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2 = buffer.createGraphics();
+		icon.paintIcon(null, g2, 0, 0);
+		g2.dispose();
+		return buffer;
+	}
+
+	// ---------------------------------------------------------- INTERNAL TYPE
+
+	/**
+	 * An icon backed by a file of the store. The dimensions of the icon are
+	 * known up front and its image is only decoded when first needed.
+	 */
+	public static final class StoredIcon extends ImageIcon {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String hash;
+
+		private final int width;
+
+		private final int height;
+
+		private boolean loaded;
+
+		private StoredIcon(String hash, int width, int height) {
+			this.hash   = hash;
+			this.width  = width;
+			this.height = height;
+			this.loaded = false;
+		}
+
+		private StoredIcon(String hash, Image image) {
+			super(image);
+			this.hash   = hash;
+			this.width  = super.getIconWidth();
+			this.height = super.getIconHeight();
+			this.loaded = true;
+		}
+
+		/**
+		 * Returns the hash identifying this icon in the store.
+		 *
+		 * @return the hash of this icon
+		 */
+		public String getHash() {
+			return hash;
+		}
+
+		@Override public int getIconWidth() {
+			return width;
+		}
+
+		@Override public int getIconHeight() {
+			return height;
+		}
+
+		@Override public Image getImage() {
+			load();
+			return super.getImage();
+		}
+
+		@Override public int getImageLoadStatus() {
+			load();
+			return super.getImageLoadStatus();
+		}
+
+		@Override public synchronized void paintIcon(
+				Component c, Graphics g, int x, int y) {
+			load();
+			super.paintIcon(c, g, x, y);
+		}
+
+		/**
+		 * Returns whether this icon was found to have no image, because its
+		 * file is missing from the store or unreadable.
+		 */
+		synchronized boolean isBlank() {
+			return loaded && super.getImage() == null;
+		}
+
+		/**
+		 * Decodes the image of this icon if it has not been yet. An icon
+		 * whose file is missing or unreadable stays blank.
+		 */
+		private synchronized void load() {
+			if (loaded) {
+				return;
+			}
+			loaded = true;
+			File file = getFile(hash);
+			try {
+				BufferedImage image = ImageIO.read(file);
+				if (image != null) {
+					setImage(image);
+					return;
+				}
+			} catch (IOException ex) {
+				// $FALL-THROUGH$
+			}
+			LOGGER.warning("Icon " + hash + " missing from " + file.getParent());
+		}
+
+		/**
+		 * Serializes this icon as a plain icon, since the store might not
+		 * be available when it is read back. A blank icon is serialized as
+		 * an empty icon.
+		 */
+		private Object writeReplace() throws ObjectStreamException {
+			Image image = getImage();
+			return (image == null ? new ImageIcon() : new ImageIcon(image));
+		}
+	}
+}
@@ -59,6 +59,7 @@ public enum Language {
 	setting_hotkey_stop,
 	setting_hotkey_pause,
 	setting_hotkey_lock,
+	ALTERNATE_HOTKEY,
 	GLOBAL_HOTKEYS_STARTUP_ERROR,
 
 	// Settings > Header
@@ -212,6 +213,7 @@ public enum Language {
 	INPUT_NAN,
 	INPUT_NEGATIVE,
 	INVALID_TIME_STAMP,
+	RECOVER_RUN,
 	SERVER_STARTED,
 	SERVER_STOPPED,
 	WARN_BETTER_RUN,
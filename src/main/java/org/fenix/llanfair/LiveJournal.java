@@ -0,0 +1,398 @@
+package org.fenix.llanfair;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of the timing events of the attempt in progress. The
+ * timing core records every transition it applies so that an attempt
+ * interrupted by a crash can be restored exactly on the next launch, by
+ * replaying the recorded transitions on the run file.
+ *
+ * <p>Recording only queues the event: a background thread writes every
+ * pending event at once and forces them to disk with a single call, so the
+ * timing core never waits for the disk. The journal is cleared when the
+ * attempt is reset or when the application exits normally.</p>
+ *
+ * <p>The file starts with a header followed by one record per event, all
+ * numbers being big-endian:</p>
+ *
+ * <pre>
+ * size  field
+ *    4  the bytes {@code LFJ1}
+ *    8  wall-clock time of the start of the attempt, in ms since the epoch
+ *    2  length l of the path of the run file
+ *    l  path of the run file, in UTF-8
+ *    4  CRC-32 of the three fields above
+ *
+ *    1  type of the event, as the code of a {@link TimingCore.Command.Type}
+ *    8  time of the event, in nanoseconds since the start of the attempt
+ *    4  CRC-32 of the two fields above
+ * </pre>
+ *
+ * <p>A record whose checksum does not match, such as a record interrupted by
+ * a crash, or whose type is unknown ends the readable part of the
+ * journal.</p>
+ */
+final class LiveJournal {
+
+	// -------------------------------------------------------------- CONSTANTS
+
+	/**
+	 * Name of the journal file in the user settings directory.
+	 */
+	static final String FILE_NAME = "live.journal";
+
+	private static final byte[] MAGIC = { 'L', 'F', 'J', '1' };
+
+	private static final int RECORD_SIZE = 13;
+
+	private static final int BUFFER_SIZE = 4096;
+
+	// ------------------------------------------------------------- ATTRIBUTES
+
+	private final File file;
+
+	private final LinkedBlockingQueue<Entry> pending;
+
+	private final Thread writer;
+
+	/**
+	 * Clock time stamp of the start of the attempt being recorded. Only
+	 * accessed from the timing core.
+	 */
+	private long origin;
+
+	// ----------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Creates a journal backed by the given file. Nothing is written until
+	 * an attempt begins.
+	 *
+	 * @param   file    - the journal file.
+	 */
+	LiveJournal(File file) {
+		this.file = file;
+		pending   = new LinkedBlockingQueue<Entry>();
+		writer    = new Thread(new Runnable() {
+			@Override public void run() {
+				write();
+			}
+		}, "Llanfair live journal");
+		origin    = 0L;
+
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	// -------------------------------------------------------------- INTERFACE
+
+	/**
+	 * Begins the journal of a new attempt, discarding the previous one. Should
+	 * only be called from the timing core.
+	 *
+	 * @param   runFile     - the file of the run being attempted.
+	 * @param   nanoTime    - the {@link Clock} time stamp of the start.
+	 */
+	void begin(File runFile, long nanoTime) {
+		Clock clock = Clock.get();
+		long wall   = clock.wallMillis()
+				- (clock.nanoTime() - nanoTime) / Clock.NANOS_PER_MILLI;
+		origin      = nanoTime;
+		pending.offer(new Entry(Entry.BEGIN, null, wall, runFile.getPath()));
+	}
+
+	/**
+	 * Records an event of the attempt begun last. Should only be called from
+	 * the timing core.
+	 *
+	 * @param   type        - the transition applied to the run.
+	 * @param   nanoTime    - the {@link Clock} time stamp of the transition.
+	 */
+	void record(TimingCore.Command.Type type, long nanoTime) {
+		pending.offer(new Entry(Entry.RECORD, type, nanoTime - origin, null));
+	}
+
+	/**
+	 * Discards the journal of the current attempt. Can be called from any
+	 * thread.
+	 */
+	void clear() {
+		pending.offer(new Entry(Entry.CLEAR, null, 0L, null));
+	}
+
+	/**
+	 * Waits for every event recorded so far to be written to disk, at most the
+	 * given number of milliseconds.
+	 *
+	 * @param   timeout - the maximum number of milliseconds to wait.
+	 */
+	void flush(long timeout) {
+		Entry entry = new Entry(Entry.FLUSH, null, 0L, null);
+		pending.offer(entry);
+		try {
+			entry.latch.await(timeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Reads the attempt left in the journal by a previous execution. Returns
+	 * {@code null} if there is none, if its start was never recorded or if
+	 * the journal is unreadable.
+	 *
+	 * @return  the interrupted attempt, or {@code null}.
+	 */
+	Recovery recover() {
+		if (!file.exists() || file.length() == 0L) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(
+				file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+			return decode(buffer);
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	// -------------------------------------------------------------- UTILITIES
+
+	/**
+	 * Main loop of the background writer. Waits for an entry, then applies it
+	 * along with every other pending entry and forces the result to disk
+	 * once, before releasing the callers of {@link #flush(long)}.
+	 */
+	private void write() {
+		List<Entry> batch = new ArrayList<Entry>();
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		CRC32 crc = new CRC32();
+		FileChannel channel = null;
+
+		while (true) {
+			try {
+				batch.add(pending.take());
+			} catch (InterruptedException ex) {
+				continue;
+			}
+			pending.drainTo(batch);
+
+			boolean truncate = false;
+			buffer.clear();
+			for (Entry entry : batch) {
+				if (entry.kind == Entry.CLEAR || entry.kind == Entry.BEGIN) {
+					truncate = true;
+					buffer.clear();
+				}
+				if (entry.kind == Entry.BEGIN) {
+					byte[] path = entry.path.getBytes(StandardCharsets.UTF_8);
+					buffer = ensureCapacity(buffer, 18 + path.length);
+					buffer.put(MAGIC);
+					int start = buffer.position();
+					buffer.putLong(entry.time);
+					buffer.putShort((short) path.length);
+					buffer.put(path);
+					putChecksum(buffer, start, crc);
+				} else if (entry.kind == Entry.RECORD) {
+					buffer = ensureCapacity(buffer, RECORD_SIZE);
+					int start = buffer.position();
+					buffer.put((byte) entry.type.getCode());
+					buffer.putLong(entry.time);
+					putChecksum(buffer, start, crc);
+				}
+			}
+			buffer.flip();
+
+			try {
+				if (truncate || buffer.hasRemaining()) {
+					if (channel == null) {
+						channel = FileChannel.open(file.toPath(),
+								StandardOpenOption.CREATE,
+								StandardOpenOption.WRITE);
+					}
+					if (truncate) {
+						channel.truncate(0L);
+					}
+					channel.position(channel.size());
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+					channel.force(false);
+				}
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+
+			for (Entry entry : batch) {
+				if (entry.latch != null) {
+					entry.latch.countDown();
+				}
+			}
+			batch.clear();
+		}
+	}
+
+	private static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+		if (buffer.remaining() >= needed) {
+			return buffer;
+		}
+		ByteBuffer larger = ByteBuffer.allocate(
+				Math.max(buffer.capacity() * 2, buffer.position() + needed));
+		buffer.flip();
+		larger.put(buffer);
+		return larger;
+	}
+
+	private static void putChecksum(ByteBuffer buffer, int start, CRC32 crc) {
+		crc.reset();
+		crc.update(buffer.array(), start, buffer.position() - start);
+		buffer.putInt((int) crc.getValue());
+	}
+
+	/**
+	 * Decodes the header and every complete record of the journal.
+	 */
+	private static Recovery decode(ByteBuffer buffer) {
+		if (buffer.remaining() < 18) {
+			return null;
+		}
+		for (byte b : MAGIC) {
+			if (buffer.get() != b) {
+				return null;
+			}
+		}
+		CRC32 crc = new CRC32();
+		long wall   = buffer.getLong();
+		int  length = buffer.getShort() & 0xFFFF;
+		if (buffer.remaining() < length + 4) {
+			return null;
+		}
+		byte[] path = new byte[length];
+		buffer.get(path);
+		crc.update(wallAndLength(wall, length));
+		crc.update(path);
+		if ((int) crc.getValue() != buffer.getInt()) {
+			return null;
+		}
+
+		List<TimingCore.Command.Type> events
+				= new ArrayList<TimingCore.Command.Type>();
+		List<Long> times = new ArrayList<Long>();
+		byte[] record = new byte[RECORD_SIZE - 4];
+		while (buffer.remaining() >= RECORD_SIZE) {
+			buffer.get(record);
+			crc.reset();
+			crc.update(record);
+			if ((int) crc.getValue() != buffer.getInt()) {
+				break;
+			}
+			TimingCore.Command.Type type
+					= TimingCore.Command.Type.fromCode(record[0] & 0xFF);
+			if (type == null) {
+				break;
+			}
+			events.add(type);
+			times.add(ByteBuffer.wrap(record, 1, 8).getLong());
+		}
+		if (events.isEmpty()
+				|| events.get(0) != TimingCore.Command.Type.START) {
+			return null;
+		}
+		return new Recovery(new File(new String(path, StandardCharsets.UTF_8)),
+				wall, events, times);
+	}
+
+	private static byte[] wallAndLength(long wall, int length) {
+		return ByteBuffer.allocate(10)
+				.putLong(wall).putShort((short) length).array();
+	}
+
+	// ---------------------------------------------------------- INTERNAL TYPE
+
+	/**
+	 * An operation waiting to be applied by the background writer.
+	 */
+	private static final class Entry {
+
+		static final int BEGIN  = 0;
+		static final int RECORD = 1;
+		static final int CLEAR  = 2;
+		static final int FLUSH  = 3;
+
+		final int kind;
+
+		final TimingCore.Command.Type type;
+
+		final long time;
+
+		final String path;
+
+		final CountDownLatch latch;
+
+		Entry(int kind, TimingCore.Command.Type type, long time, String path) {
+			this.kind  = kind;
+			this.type  = type;
+			this.time  = time;
+			this.path  = path;
+			this.latch = (kind == FLUSH ? new CountDownLatch(1) : null);
+		}
+	}
+
+	/**
+	 * An attempt interrupted before being reset, as read from the journal.
+	 */
+	static final class Recovery {
+
+		private final File runFile;
+
+		private final long wallStart;
+
+		private final List<TimingCore.Command.Type> events;
+
+		private final List<Long> times;
+
+		private Recovery(File runFile, long wallStart,
+				List<TimingCore.Command.Type> events, List<Long> times) {
+			this.runFile   = runFile;
+			this.wallStart = wallStart;
+			this.events    = events;
+			this.times     = times;
+		}
+
+		/**
+		 * Returns the file of the run that was being attempted.
+		 *
+		 * @return  the run file.
+		 */
+		File getRunFile() {
+			return runFile;
+		}
+
+		/**
+		 * Submits every recorded event to the given core, shifted so that
+		 * the attempt keeps its original wall-clock start time. The events
+		 * apply to the run opened when this method is called.
+		 *
+		 * @param   core    - the timing core to replay the attempt with.
+		 */
+		void replay(TimingCore core) {
+			long origin = Clock.get().fromWallMillis(wallStart);
+			for (int i = 0; i < events.size(); i++) {
+				core.submit(events.get(i), origin + times.get(i));
+			}
+		}
+	}
+}
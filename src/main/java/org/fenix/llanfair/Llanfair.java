@@ -20,9 +20,11 @@ import java.awt.*;
 import java.awt.event.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -57,6 +59,14 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 				return;
 
 			Settings.save();
+			// Saves are handed to the executor by the core, so the core must
+			// be drained before the executor is flushed
+			timingCore.shutdown();
+			saveExecutor.flush( SaveExecutor.FLUSH_TIMEOUT );
+			AttemptLog.flush( 1000L );
+			// Only a crash should leave an attempt to restore
+			journal.clear();
+			journal.flush( 1000L );
 			try {
 				GlobalScreen.unregisterNativeHook();
 			} catch (NativeHookException e) {
@@ -69,10 +79,13 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 
 	private Runnable onAppShutdown = new AppShutdown();
 
-	private Run run;
+	private volatile Run run;
 	private RunPane runPane;
 
 	private Actions actions;
+	private TimingCore timingCore;
+	private LiveJournal journal;
+	private SaveExecutor saveExecutor;
 
 	private JPopupMenu popupMenu;
 
@@ -80,6 +93,25 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 	private static volatile boolean serverStarted;
 	private volatile boolean ignoreNativeInputs;
 
+	/**
+	 * The hotkeys, compiled from the settings whenever they change so that
+	 * the native hook thread never reads the configuration.
+	 */
+	private volatile HotkeyTable hotkeys;
+
+	/**
+	 * Routes the property change events to the components subscribed to
+	 * their property.
+	 */
+	private PropertyDispatcher dispatcher;
+
+	/**
+	 * Whether a pack of the frame is scheduled, and whether it must restore
+	 * the width of the frame first.
+	 */
+	private boolean packPending;
+	private boolean resizePending;
+
 	private Dimension preferredSize;
 
 	/**
@@ -117,7 +149,18 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 		serverStarted = false;
 		ignoreNativeInputs = false;
 		preferredSize = null;
+		journal = new LiveJournal( new File(
+				UserSettings.getSettingsPath(), LiveJournal.FILE_NAME ) );
+		timingCore = new TimingCore( new TimingCore.Owner() {
+			@Override public Run getRun() {
+				return run;
+			}
+		}, journal );
+		timingCore.start();
+		saveExecutor = new SaveExecutor( this );
 		actions = new Actions( this );
+		hotkeys = new HotkeyTable();
+		dispatcher = new PropertyDispatcher();
 
 		setMenu();
 
@@ -128,6 +171,7 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 		setRun( run );
 
 		setVisible( true );
+		offerRecovery();
 	}
 
 	/**
@@ -182,6 +226,24 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 		return run;
 	}
 
+	/**
+	 * Returns the timing core applying every state transition of the run.
+	 *
+	 * @return the timing core
+	 */
+	TimingCore getTimingCore() {
+		return timingCore;
+	}
+
+	/**
+	 * Returns the executor writing the run files in the background.
+	 *
+	 * @return the save executor
+	 */
+	SaveExecutor getSaveExecutor() {
+		return saveExecutor;
+	}
+
 	/**
 	 * Sets the run to represent in this application to the given run. If the
 	 * GUI does not exist (in other words, we are registering the first run) it
@@ -199,9 +261,12 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 			runPane.setRun( run );
 		} else {
 			runPane = new RunPane( run );
+			runPane.subscribe( dispatcher );
+			subscribe();
 			add( runPane );
 		}
 		Settings.setRun( run );
+		hotkeys = new HotkeyTable();
 		run.addTableModelListener( this );
 		run.addPropertyChangeListener( this );
 		MenuItem.setActiveState( run.getState() );
@@ -288,6 +353,35 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 		dialog.dispose();
 	}
 
+	/**
+	 * Offers the user to restore the attempt left in the journal if the
+	 * previous execution crashed during a run. The run file is reopened and
+	 * the recorded events are replayed, so the attempt continues as if the
+	 * application had never stopped.
+	 */
+	private void offerRecovery() {
+		LiveJournal.Recovery recovery = journal.recover();
+		if ( recovery == null ) {
+			return;
+		}
+		File file = recovery.getRunFile();
+		if ( file.exists() ) {
+			int option = JOptionPane.showConfirmDialog( this,
+					Language.RECOVER_RUN.get( file.getName() ),
+					Language.MESSAGE.get(), JOptionPane.YES_NO_OPTION,
+					JOptionPane.QUESTION_MESSAGE );
+
+			if ( option == JOptionPane.YES_OPTION ) {
+				actions.open( file );
+				if ( run.getState() == Run.State.READY ) {
+					recovery.replay( timingCore );
+					return;
+				}
+			}
+		}
+		journal.clear();
+	}
+
 	/**
 	 * Sets the look and feel of the application. Provides a task bar icon and
 	 * a general system dependent theme.
@@ -354,21 +448,24 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 	}
 
 	/**
-	 * If we do not ignore the native inputs, register the input and invokes
-	 * a new thread to treat the input whenever possible without hogging the
-	 * main thread.
+	 * If we do not ignore the native inputs, time stamp the input as soon as
+	 * it is received and process it on the native hook thread, so that the
+	 * time of a split does not depend on the load of the event dispatching
+	 * thread. Keys which are not bound are discarded by a single lookup in
+	 * the table of the hotkeys.
 	 */
 	@Override public void nativeKeyPressed( final NativeKeyEvent event ) {
-		if (Settings.useGlobalHotkeys.get() || this.isFocused()) {
-			int keyCode = event.getKeyCode();
-			boolean hotkeysEnabler = ( keyCode == Settings.hotkeyLock.get() );
+		long time = Clock.get().nanoTime();
+		HotkeyTable table = hotkeys;
+		HotkeyTable.Hotkey hotkey = table.get( event.getKeyCode(), event.getModifiers() );
+		if ( hotkey == null ) {
+			return;
+		}
+		if ( table.isGlobal() || this.isFocused() ) {
+			boolean hotkeysEnabler = ( hotkey == HotkeyTable.Hotkey.LOCK );
 
 			if ( (!areHotkeysLocked() && !ignoresNativeInputs()) || hotkeysEnabler ) {
-				SwingUtilities.invokeLater( new Runnable() {
-					@Override public void run() {
-						actions.process( event );
-					}
-				} );
+				actions.process( hotkey, time );
 			}
 		}
 	}
@@ -379,69 +476,38 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 
 	/**
 	 * A property change event might be fired from either the settings
-	 * singleton or the run itself. In either case, we propagate the event to
-	 * our children and update ourself with the new value of the given property.
+	 * singleton or the run itself. In either case, the dispatcher propagates
+	 * the event to the children and to ourself, if subscribed to the given
+	 * property. Events fired by the timing core are handed over to the event
+	 * dispatching thread.
 	 */
-	@Override public void propertyChange( PropertyChangeEvent event ) {
-		runPane.processPropertyChangeEvent( event );
-		String property = event.getPropertyName();
-
-		if ( Run.STATE_PROPERTY.equals( property ) ) {
-			MenuItem.setActiveState(run.getState());
-			//forceInternalComponentsResize();
-		} else if (Run.NAME_PROPERTY.equals(property)) {
-			forceInternalComponentsResize();
-		} else if (Run.SUBTITLE_PROPERTY.equals(property)) {
-			forceInternalComponentsResize();
-		} else if (Settings.headerShowAttempts.equals(property)) {
-			forceInternalComponentsResize();
-		} else if ( Settings.alwaysOnTop.equals( property ) ) {
-			setAlwaysOnTop( Settings.alwaysOnTop.get() );
-		} else if (Settings.historyRowCount.equals(property)
-				|| Settings.graphDisplay.equals(property)
-				|| Settings.footerDisplay.equals(property)
-				|| Settings.footerUseSplitData.equals(property)
-				|| Settings.coreIconSize.equals(property)
-				|| Settings.accuracy.equals(property)
-				|| Settings.headerShowSubtitle.equals(property)
-				|| Settings.headerShowTitle.equals(property)
-				|| Settings.historyDeltas.equals(property)
-				|| Settings.historySegmentFont.equals(property)
-				|| Settings.historyTimeFont.equals(property)
-				|| Settings.historyLiveTimes.equals(property)
-				|| Settings.historyMerge.equals(property)
-				|| Settings.historyBlankRows.equals(property)
-				|| Settings.historyIcons.equals(property)
-				|| Settings.historyIconSize.equals(property)
-				|| Settings.historyMultiline.equals(property)
-				|| Settings.coreShowSegmentName.equals(property)
-				|| Settings.coreShowSplitTime.equals(property)
-				|| Settings.coreShowSegmentTime.equals(property)
-				|| Settings.coreShowBestTime.equals(property)
-				|| Settings.coreShowIcons.equals(property)
-				|| Settings.coreTimerFont.equals(property)
-				|| Settings.coreSegmentTimerFont.equals(property)
-				|| Settings.coreShowSegmentTimer.equals(property)
-				|| Settings.footerShowBestTime.equals(property)
-				|| Settings.footerShowDeltaLabels.equals(property)
-				|| Settings.footerVerbose.equals(property)
-				|| Settings.footerMultiline.equals(property)
-		        || Settings.footerShowSumOfBest.equals(property)
-				|| Settings.windowUserResizable.equals(property)
-				|| Settings.windowWidth.equals(property)
-				|| Run.NAME_PROPERTY.equals(property)) {
-			setResizable(Settings.windowUserResizable.get());
-			MenuItem.enableResizeOptions(Settings.windowUserResizable.get());
-			forceResize();
+	@Override public void propertyChange( final PropertyChangeEvent event ) {
+		if ( !SwingUtilities.isEventDispatchThread() ) {
+			SwingUtilities.invokeLater( new Runnable() {
+				@Override public void run() {
+					propertyChange( event );
+				}
+			} );
+			return;
 		}
+		dispatcher.propertyChange( event );
 	}
 
 	/**
 	 * When the run's table of segments is updated, we ask the main panel to
 	 * update itself accordingly and repack the frame as its dimensions may
-	 * have changed.
+	 * have changed. Events fired by the timing core are handed over to the
+	 * event dispatching thread.
 	 */
-	@Override public void tableChanged( TableModelEvent event ) {
+	@Override public void tableChanged( final TableModelEvent event ) {
+		if ( !SwingUtilities.isEventDispatchThread() ) {
+			SwingUtilities.invokeLater( new Runnable() {
+				@Override public void run() {
+					tableChanged( event );
+				}
+			} );
+			return;
+		}
 		runPane.processTableModelEvent( event );
 		// No need to recompute the size if we receive a HEADER_ROW UPDATE
 		// as we only use them when a segment is moved up or down and when
@@ -452,7 +518,7 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 		} else {
 			setPreferredSize( null );
 		}
-		pack();
+		schedulePack();
 	}
 
 	/**
@@ -591,19 +657,101 @@ public class Llanfair extends BorderlessFrame implements TableModelListener,
 	}
 
 	private void forceResize() {
-		Dimension newSize = new Dimension();
-		newSize.height = getHeight();
-		if (Settings.windowUserResizable.get())
-			newSize.width = getWidth();
-		else
-			newSize.width = Settings.windowWidth.get();
-		setSize(newSize);
-		pack();
+		resizePending = true;
+		schedulePack();
 	}
 
 	private void forceInternalComponentsResize()
 	{
 		setPreferredSize( preferredSize );
-		pack();
+		schedulePack();
+	}
+
+	/**
+	 * Packs the frame once every pending event has been processed, so that
+	 * all the updates made to the components in response to the same change
+	 * result in a single layout of the frame.
+	 */
+	private void schedulePack() {
+		if ( packPending ) {
+			return;
+		}
+		packPending = true;
+		SwingUtilities.invokeLater( new Runnable() {
+			@Override public void run() {
+				packPending = false;
+				if ( resizePending ) {
+					resizePending = false;
+					Dimension newSize = new Dimension();
+					newSize.height = getHeight();
+					if (Settings.windowUserResizable.get())
+						newSize.width = getWidth();
+					else
+						newSize.width = Settings.windowWidth.get();
+					setSize(newSize);
+				}
+				pack();
+			}
+		} );
+	}
+
+	/**
+	 * Subscribes the frame to the properties it reacts to. Called once the
+	 * main panel has subscribed, so that the panel is updated first.
+	 */
+	private void subscribe() {
+		dispatcher.subscribe( new PropertyChangeListener() {
+			@Override public void propertyChange( PropertyChangeEvent event ) {
+				MenuItem.setActiveState( (Run.State) event.getNewValue() );
+			}
+		}, Run.STATE_PROPERTY );
+
+		PropertyChangeListener internalResize = new PropertyChangeListener() {
+			@Override public void propertyChange( PropertyChangeEvent event ) {
+				forceInternalComponentsResize();
+			}
+		};
+		dispatcher.subscribe( internalResize,
+				Run.NAME_PROPERTY, Run.SUBTITLE_PROPERTY );
+		dispatcher.subscribe( internalResize, Settings.headerShowAttempts );
+
+		PropertyChangeListener hotkeysChange = new PropertyChangeListener() {
+			@Override public void propertyChange( PropertyChangeEvent event ) {
+				hotkeys = new HotkeyTable();
+			}
+		};
+		List<Settings.Property<?>> hotkeySettings = Settings.getAll( "hotkey" );
+		dispatcher.subscribe( hotkeysChange, hotkeySettings.toArray(
+				new Settings.Property<?>[hotkeySettings.size()] ) );
+		dispatcher.subscribe( hotkeysChange, Settings.useGlobalHotkeys );
+
+		dispatcher.subscribe( new PropertyChangeListener() {
+			@Override public void propertyChange( PropertyChangeEvent event ) {
+				setAlwaysOnTop( Settings.alwaysOnTop.get() );
+			}
+		}, Settings.alwaysOnTop );
+
+		dispatcher.subscribe( new PropertyChangeListener() {
+			@Override public void propertyChange( PropertyChangeEvent event ) {
+				setResizable(Settings.windowUserResizable.get());
+				MenuItem.enableResizeOptions(Settings.windowUserResizable.get());
+				forceResize();
+			}
+		}, Settings.historyRowCount, Settings.graphDisplay,
+				Settings.footerDisplay, Settings.footerUseSplitData,
+				Settings.coreIconSize, Settings.accuracy,
+				Settings.headerShowSubtitle, Settings.headerShowTitle,
+				Settings.historyDeltas, Settings.historySegmentFont,
+				Settings.historyTimeFont, Settings.historyLiveTimes,
+				Settings.historyMerge, Settings.historyBlankRows,
+				Settings.historyIcons, Settings.historyIconSize,
+				Settings.historyMultiline, Settings.coreShowSegmentName,
+				Settings.coreShowSplitTime, Settings.coreShowSegmentTime,
+				Settings.coreShowBestTime, Settings.coreShowIcons,
+				Settings.coreTimerFont, Settings.coreSegmentTimerFont,
+				Settings.coreShowSegmentTimer, Settings.footerShowBestTime,
+				Settings.footerShowDeltaLabels, Settings.footerVerbose,
+				Settings.footerMultiline, Settings.footerShowSumOfBest,
+				Settings.windowUserResizable, Settings.windowWidth );
 	}
 }
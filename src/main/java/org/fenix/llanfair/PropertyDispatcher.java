@@ -0,0 +1,81 @@
+package org.fenix.llanfair;
+
+import org.fenix.llanfair.config.Settings;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routes property change events to the listeners which subscribed to their
+ * property, so that a listener is only told about the properties it cares
+ * about and an event is routed with a single lookup, whatever the number of
+ * listeners and properties. Listeners are notified in the order they
+ * subscribed. Like the components it serves, a dispatcher must only be used
+ * from the event dispatching thread.
+ */
+public final class PropertyDispatcher implements PropertyChangeListener {
+
+	/**
+	 * Listeners of each property, by property name.
+	 */
+	private final Map<String, PropertyChangeListener[]> listeners;
+
+	/**
+	 * Creates a dispatcher without any subscription.
+	 */
+	public PropertyDispatcher() {
+		listeners = new HashMap<String, PropertyChangeListener[]>();
+	}
+
+	/**
+	 * Subscribes the given listener to the given properties of the run.
+	 *
+	 * @param listener the listener to notify
+	 * @param properties the names of the properties, such as
+	 *  {@link Run#STATE_PROPERTY}
+	 */
+	public void subscribe( PropertyChangeListener listener, String... properties ) {
+		if ( listener == null ) {
+			throw new NullPointerException( "Null listener" );
+		}
+		for ( String property : properties ) {
+			PropertyChangeListener[] current = listeners.get( property );
+			if ( current == null ) {
+				listeners.put( property, new PropertyChangeListener[] { listener } );
+			} else if ( !Arrays.asList( current ).contains( listener ) ) {
+				PropertyChangeListener[] added = Arrays.copyOf( current, current.length + 1 );
+				added[current.length] = listener;
+				listeners.put( property, added );
+			}
+		}
+	}
+
+	/**
+	 * Subscribes the given listener to the given settings.
+	 *
+	 * @param listener the listener to notify
+	 * @param properties the settings to listen to
+	 */
+	public void subscribe( PropertyChangeListener listener, Settings.Property<?>... properties ) {
+		String[] keys = new String[properties.length];
+		for ( int i = 0; i < properties.length; i++ ) {
+			keys[i] = properties[i].getKey();
+		}
+		subscribe( listener, keys );
+	}
+
+	/**
+	 * Notifies the listeners subscribed to the property of the given event.
+	 */
+	@Override public void propertyChange( PropertyChangeEvent event ) {
+		PropertyChangeListener[] subscribers = listeners.get( event.getPropertyName() );
+		if ( subscribers != null ) {
+			for ( PropertyChangeListener listener : subscribers ) {
+				listener.propertyChange( event );
+			}
+		}
+	}
+}
@@ -2,7 +2,7 @@ package org.fenix.llanfair;
 
 import com.thoughtworks.xstream.annotations.XStreamOmitField;
 import org.fenix.WorldRecord.Category;
-import org.fenix.WorldRecord.WorldRecordParser;
+import org.fenix.WorldRecord.WorldRecordService;
 import org.fenix.llanfair.config.Settings;
 import org.fenix.utils.TableModelSupport;
 import org.fenix.utils.config.Configuration;
@@ -10,6 +10,7 @@ import org.fenix.utils.config.Configuration;
 import javax.swing.*;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.TableModel;
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.IOException;
@@ -17,6 +18,7 @@ import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 
@@ -28,6 +30,15 @@ import java.util.List;
  * sont disponibles afin de comparer le temps réalisé avec le temps objectif.
  * De plus, {@code Run} implémente {@link TableModel} dans lequel chaque segment
  * est une ligne.  
+ * <p>
+ * Threading: while a run is timed, its state, current segment and times are
+ * only changed by the thread of the {@link TimingCore}. Any other thread, and
+ * the event dispatching thread in particular, must read them from the
+ * {@link Snapshot} of {@link #getSnapshot()} or from the one carried by each
+ * {@link Event} the run fires, which describes the run as it was when the
+ * event was fired. The structure of the run, the names, icons and registered
+ * times of its segments are only edited on the event dispatching thread while
+ * the run is not being timed.
  *
  * @author  Xavier "Xunkar" Sencert
  * @see     TableModel
@@ -126,7 +137,7 @@ public class Run implements TableModel, Serializable {
 	 * Current state of the run. Transient as a deserialized run will always
 	 * start in {@link State#READY}.
 	 */
-	private transient State state;
+	private transient volatile State state;
 
 	/**
 	 * Backup copy of the run’s state. Transient as it is only used during
@@ -150,10 +161,10 @@ public class Run implements TableModel, Serializable {
 	 * Index of the segment being currently run. Only represents a segment when
 	 * the run is {@link State#ONGOING}.
 	 */
-	private transient int current;
+	private transient volatile int current;
 
 	/**
-	 * Number of milliseconds on the clock when the run started.
+	 * Number of nanoseconds on the {@link Clock} when the run started.
 	 */
 	private transient long startTime;
 
@@ -167,6 +178,55 @@ public class Run implements TableModel, Serializable {
 	 */
 	private transient TableModelSupport tmSupport;
 
+	/**
+	 * Latest snapshot of the timing state and times of this run, replaced
+	 * after every change of either.
+	 */
+	private transient volatile Snapshot snapshot;
+
+	/**
+	 * Cumulative times of the segments in nanoseconds, indexed by type of
+	 * time then by segment. {@code cumulativeTimes[type][i]} is the sum of the
+	 * times of given type of the segments {@code [0..i]}, undefined times
+	 * counting as zero. The sums are computed lazily and only the first
+	 * {@code cumulativeCounts[type]} of them are valid.
+	 */
+	private transient long[][] cumulativeTimes;
+
+	/**
+	 * Number of valid cumulative times for each type of time.
+	 */
+	private transient int[] cumulativeCounts;
+
+	/**
+	 * Log receiving every attempt of this run when it is reset. Can be
+	 * {@code null} if the attempts are not logged.
+	 */
+	private transient AttemptLog attemptLog;
+
+	/**
+	 * Number of nanoseconds on the {@link Clock} when the current attempt
+	 * started. Unlike {@code startTime}, not shifted by pauses.
+	 */
+	private transient long attemptStartTime;
+
+	/**
+	 * Wall-clock time at which the current attempt started, in milliseconds
+	 * since the epoch.
+	 */
+	private transient long attemptWallTime;
+
+	/**
+	 * Start and duration of each pause of the current attempt, stored in
+	 * pairs. The start is relative to {@code attemptStartTime}.
+	 */
+	private transient long[] pauses;
+
+	/**
+	 * Number of pauses of the current attempt.
+	 */
+	private transient int pauseCount;
+
 	/**
 	 * Number of milliseconds to delay the clock for when the run is started. A
 	 * non-zero value here means the clock starts at a negative time and counts
@@ -189,8 +249,14 @@ public class Run implements TableModel, Serializable {
 
 	private Category recordCategory;
 
+	/**
+	 * Total number of nanoseconds the run has been paused for.
+	 */
 	private long pauseTime;
 
+	/**
+	 * Number of nanoseconds on the {@link Clock} when the run was last paused.
+	 */
 	private long lastPauseTimeStamp;
 
 	// ----------------------------------------------------------- CONSTRUCTORS
@@ -258,7 +324,8 @@ public class Run implements TableModel, Serializable {
 	}
 
 	/**
-	 * Returns the number of milliseconds on the clock when the run started.
+	 * Returns the number of nanoseconds on the {@link Clock} when the run
+	 * started.
 	 *
 	 * @return  the run’s start time stamp.
 	 */
@@ -266,6 +333,26 @@ public class Run implements TableModel, Serializable {
 		return startTime;
 	}
 
+	/**
+	 * Returns the latest snapshot of the timing state and times of this run.
+	 * Unlike the individual getters, the returned values are always consistent
+	 * with each other, even if the run is being updated by another thread.
+	 *
+	 * @return  the current snapshot of the run.
+	 */
+	public Snapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Returns the log receiving the attempts of this run.
+	 *
+	 * @return  the attempt log of this run, or {@code null} if none.
+	 */
+	public AttemptLog getAttemptLog() {
+		return attemptLog;
+	}
+
 	public Counters getCounter(int index) {
 		if (index < 0 || index >= MAX_COUNTERS) {
 			throw new IllegalArgumentException("illegal counter id " + index);
@@ -349,36 +436,21 @@ public class Run implements TableModel, Serializable {
 			Time live = getTime(segmentIndex, Segment.LIVE);
 			return (set == null ? null : Time.getDelta(live, set));
 		}
-		Time runTime = new Time();
-		for (int i = 0; i <= segmentIndex; i++) {
-			runTime.add(segments.get(i).getTime(type));
+		if (type == Segment.SET) {
+			type = Segment.getSetType();
 		}
 		Time lastSegmentTime = segments.get(segmentIndex).getTime(type);
-		return allowNull ? (lastSegmentTime == null ? null : runTime) : runTime;
-	}
-
-	/**
-	 * Returns a portion of the registered run time to which live times should
-	 * be compared. This is equal to percent of
-	 * the whole run time. This allows for more visually detailed comparison.
-	 *
-	 * @return  {@code P%} of {@code getTime(Segment.SET)} where {@code P} is
-	 *          the configured compare percent.
-	 */
-	public Time getCompareTime() {
-		int  i    = 2;
-		Time time = getTime(Segment.SET);
-		while (time == null) {
-			if (getRowCount() - i < 0) {
-				return Time.ZERO;
+		if (allowNull && lastSegmentTime == null) {
+			return null;
+		}
+		if (type != Segment.RUN && type != Segment.BEST && type != Segment.LIVE) {
+			long runNanos = 0L;
+			for (int i = 0; i <= segmentIndex; i++) {
+				runNanos += Time.nanosOf(segments.get(i).getTime(type));
 			}
-			time = getTime(getRowCount() - i, Segment.SET);
-			i++;
+			return Time.ofNanos(runNanos);
 		}
-		long ms = time.getMilliseconds();
-		float pc = Settings.graphScale.get();
-
-		return new Time((long) (ms * pc) / 100L);
+		return Time.ofNanos(getCumulativeTime(segmentIndex, type));
 	}
 
 	/**
@@ -416,122 +488,8 @@ public class Run implements TableModel, Serializable {
 		return (live.compareTo(run) < 0);
 	}
 
-	/**
-	 * Indicates wehter or not any live segments time are better than their best
-	 * registered time. Any time is always better than an undefined time.
-	 *
-	 * @return  wether or not this run has new segments' best.
-	 */
-	public boolean hasSegmentsBest() {
-		for (int i = 0; i < current; i++) {
-			Segment segment = segments.get(i);
-			Time    live    = segment.getTime(Segment.LIVE);
-			Time    best    = segment.getTime(Segment.BEST);
-
-			if (live != null && live.compareTo(best) < 0) {
-				return true;
-			}
-		}
-		return false;
-	}
-
-	/**
-	 * Returns wether of not the given segment live time is better than its
-	 * registered time. If that time is undefined, we check using the sum of
-	 * the live time from the previous non-null segment.
-	 *
-	 * @param   index   - the index of the segment.
-	 * @return  wether or not this segment live time is better.
-	 */
-	public boolean isBetterSegment(int index) {
-		Segment segment = getSegment(index);
-		Time    set     = segment.getTime(Segment.SET);
-		Time    live    = segment.getTime(Segment.LIVE);
-
-		if (live == null) {
-			return false;
-		}
-		live = live.clone();
-
-		if (set != null) {
-			set = set.clone();
-		}
-
-		if (index > 0) {
-			for (int i = index - 1; i >= 0; i--) {
-				Segment prev = getSegment(i);
-				if (prev.getTime(Segment.SET) == null) {
-					live.add(prev.getTime(Segment.LIVE));
-				} else {
-					break;
-				}
-			}
-			for (int i = index - 1; i >= 0; i--) {
-				Segment prev = getSegment(i);
-				if (prev.getTime(Segment.LIVE) == null) {
-					set.add(prev.getTime(Segment.SET));
-				} else {
-					break;
-				}
-			}
-		}
-		return live.compareTo(set) < 0;
-	}
-
-	public boolean isBestSegment(int index) {
-		Segment segment = getSegment(index);
-		Time    set     = segment.getTime(Segment.BEST);
-		Time    live    = segment.getTime(Segment.LIVE);
-
-		if (live == null) {
-			return false;
-		}
-		live = live.clone();
-
-		if (set != null) {
-			set = set.clone();
-		}
-
-		if (index > 0) {
-			for (int i = index - 1; i >= 0; i--) {
-				Segment prev = getSegment(i);
-				if (prev.getTime(Segment.BEST) == null) {
-					live.add(prev.getTime(Segment.LIVE));
-				} else {
-					break;
-				}
-			}
-			for (int i = index - 1; i >= 0; i--) {
-				Segment prev = getSegment(i);
-				if (prev.getTime(Segment.LIVE) == null) {
-					set.add(prev.getTime(Segment.BEST));
-				} else {
-					break;
-				}
-			}
-		}
-		return live.compareTo(set) < 0;
-	}
-
 	// ------------------------------------------------------ INHERITED GETTERS
 
-	public Time getSumOfBest() {
-		long sum = 0;
-		for (int i = 0; i < segments.size(); ++i) {
-			Segment segment = segments.get(i);
-			Time best = segment.getTime(Segment.BEST);
-			Time live = segment.getTime(Segment.LIVE);
-
-			if (best != null || live != null) {
-				long bestMs = (best == null ? Long.MAX_VALUE : best.getMilliseconds());
-				long liveMs = (live == null ? Long.MAX_VALUE : live.getMilliseconds());
-
-				sum += Math.min(bestMs, liveMs);
-			}
-		}
-		return new Time(sum);
-	}
-
 	/**
 	 * As specified by {@code TableModel}.
 	 */
@@ -610,16 +568,15 @@ public class Run implements TableModel, Serializable {
 
 	public int getSessionAttempts() { return sessionAttempts; }
 
+	/**
+	 * Returns the last known world record of the category of this run. This
+	 * method never blocks: if the record is unknown or outdated it is fetched
+	 * in the background, see {@link WorldRecordService}.
+	 *
+	 * @return  the world record string.
+	 */
 	public String getRecordString() {
-		String recordString;
-
-		try {
-			recordString = WorldRecordParser.getRecord(this.recordCategory);
-		} catch (Exception e) {
-			recordString = "Unknown World Record";
-		}
-
-		return recordString;
+		return WorldRecordService.getInstance().getRecord(recordCategory, null);
 	}
 
 	public Category getRecordCategory()
@@ -641,6 +598,10 @@ public class Run implements TableModel, Serializable {
 		configuration.addPropertyChangeListener( pcl );
 	}
 
+	public void removeSettingChangeListener( PropertyChangeListener pcl ) {
+		configuration.removePropertyChangeListener( pcl );
+	}
+
 	public boolean containsSetting( String key ) {
 		return configuration.contains( key );
 	}
@@ -656,13 +617,23 @@ public class Run implements TableModel, Serializable {
 		}
 		String old = this.name;
 		this.name  = name;
-		pcSupport.firePropertyChange(NAME_PROPERTY, old, name);
+		fire(NAME_PROPERTY, old, name);
 	}
 
 	public void setSubTitle(String subTitle) {
 		String old = this.subTitle;
 		this.subTitle = subTitle;
-		pcSupport.firePropertyChange(SUBTITLE_PROPERTY, old, subTitle);
+		fire(SUBTITLE_PROPERTY, old, subTitle);
+	}
+
+	/**
+	 * Sets the log receiving the attempts of this run. Can be {@code null} to
+	 * stop logging attempts.
+	 *
+	 * @param   attemptLog  - the new attempt log.
+	 */
+	public void setAttemptLog(AttemptLog attemptLog) {
+		this.attemptLog = attemptLog;
 	}
 
 	public void setSegmented(boolean segmented) {
@@ -674,7 +645,7 @@ public class Run implements TableModel, Serializable {
 			throw new InvalidParameterException("negative delayed start");
 		long old = this.delayedStart;
 		this.delayedStart = delayedStart;
-		pcSupport.firePropertyChange(DELAYED_START_PROPERTY, old, delayedStart);
+		fire(DELAYED_START_PROPERTY, old, delayedStart);
 	}
 
 	public void setRecordCategory(Category category)
@@ -683,7 +654,7 @@ public class Run implements TableModel, Serializable {
 
 		this.recordCategory = category;
 
-		pcSupport.firePropertyChange(RECORD_CATEGORY_PROPERTY, old, name);
+		fire(RECORD_CATEGORY_PROPERTY, old, name);
 	}
 
 	/**
@@ -698,11 +669,16 @@ public class Run implements TableModel, Serializable {
 		}
 		int oldCount = getRowCount();
 		segments.add(segment);
+		segment.attach(this, oldCount);
+		invalidateTimes(oldCount);
+		if (oldCount == 0) {
+			state = State.READY;
+		}
+		publish();
 		tmSupport.fireTableRowsInserted(oldCount, oldCount);
 
 		if (oldCount == 0) {
-			state = State.READY;
-			pcSupport.firePropertyChange(STATE_PROPERTY, State.NULL, state);
+			fire(STATE_PROPERTY, State.NULL, state);
 		}
 	}
 
@@ -714,13 +690,17 @@ public class Run implements TableModel, Serializable {
 	 */
 	public void removeSegment(int segmentIndex) {
 		setValueAt(null, segmentIndex, 2);
-		segments.remove(segmentIndex);
+		segments.remove(segmentIndex).attach(null, 0);
+		attachSegments(segmentIndex);
+		State old = state;
+		if (getRowCount() == 0) {
+			state = State.NULL;
+		}
+		publish();
 		tmSupport.fireTableRowsDeleted(segmentIndex, segmentIndex);
 
-		if (getRowCount() == 0) {
-			State old = state;
-			state     = State.NULL;
-			pcSupport.firePropertyChange(STATE_PROPERTY, old, state);
+		if (old != state) {
+			fire(STATE_PROPERTY, old, state);
 		}
 	}
 
@@ -735,6 +715,8 @@ public class Run implements TableModel, Serializable {
 			Segment segment = segments.get(segmentIndex);
 			segments.remove(segmentIndex);
 			segments.add(segmentIndex - 1, segment);
+			attachSegments(segmentIndex - 1);
+			publish();
 			tmSupport.fireTableStructureChanged();
 		}
 	}
@@ -750,6 +732,8 @@ public class Run implements TableModel, Serializable {
 			Segment segment = segments.get(segmentIndex);
 			segments.remove(segmentIndex);
 			segments.add(segmentIndex + 1, segment);
+			attachSegments(segmentIndex);
+			publish();
 			tmSupport.fireTableStructureChanged();
 		}
 	}
@@ -761,15 +745,25 @@ public class Run implements TableModel, Serializable {
 	 * @throws  IllegalStateException   if the run is on-going or null.
 	 */
 	public void start() {
-		start(System.currentTimeMillis());
+		start(Clock.get().nanoTime());
 	}
 
+	/**
+	 * Starts the race at the given time stamp of the {@link Clock}.
+	 *
+	 * @param   nanoTime    - the time stamp at which the run started.
+	 * @throws  IllegalStateException   if the run is on-going or null.
+	 */
 	public void start(long nanoTime) {
-//		System.out.println("Starting run at " + nanoTime);
 		if (state == null || state == State.ONGOING) {
 			throw new IllegalStateException("illegal state to start");
 		}
-		startTime = nanoTime + delayedStart;
+		startTime = nanoTime + delayedStart * Clock.NANOS_PER_MILLI;
+		Clock clock = Clock.get();
+		attemptStartTime = startTime;
+		attemptWallTime  = clock.wallMillis()
+				+ (startTime - clock.nanoTime()) / Clock.NANOS_PER_MILLI;
+		pauseCount       = 0;
 		current   = 0;
 		state     = State.ONGOING;
 		segments.get(current).setStartTime(startTime);
@@ -778,10 +772,11 @@ public class Run implements TableModel, Serializable {
 
 		numberOfAttempts += 1;
 		sessionAttempts += 1;
+		publish();
 
-		pcSupport.firePropertyChange(ATTEMPT_COUNTER_PROPERTY, numberOfAttempts - 1, numberOfAttempts);
-		pcSupport.firePropertyChange(STATE_PROPERTY, State.READY, state);
-		pcSupport.firePropertyChange(CURRENT_SEGMENT_PROPERTY, -1, 0);
+		fire(ATTEMPT_COUNTER_PROPERTY, numberOfAttempts - 1, numberOfAttempts);
+		fire(STATE_PROPERTY, State.READY, state);
+		fire(CURRENT_SEGMENT_PROPERTY, -1, 0);
 	}
 
 	/**
@@ -792,7 +787,7 @@ public class Run implements TableModel, Serializable {
 	 * @throws  IllegalStateException   if the run is not on-going.
 	 */
 	public void split() {
-		split(System.currentTimeMillis());
+		split(Clock.get().nanoTime());
 	}
 
 	public void split(long nanoTime) {
@@ -803,21 +798,22 @@ public class Run implements TableModel, Serializable {
 		long segmentTime = stopTime - getSegment(current).getStartTime();
 		current          = current + 1;
 
-		Time time        = new Time(segmentTime);
+		Time time        = Time.ofNanos(segmentTime);
 		segments.get(current - 1).setTime(time, Segment.LIVE);
 
 		if (current == getRowCount()) {
 			// run is finished
 			numberOfCompletedAttempts += 1;
-			pcSupport.firePropertyChange(COMPLETED_ATTEMPT_COUNTER_PROPERTY, numberOfCompletedAttempts - 1, numberOfCompletedAttempts);
 			stop();
+			fire(COMPLETED_ATTEMPT_COUNTER_PROPERTY, numberOfCompletedAttempts - 1, numberOfCompletedAttempts);
 		} else {
 			segments.get(current).setStartTime(stopTime);
+			publish();
 		}
-		pcSupport.firePropertyChange(
+		fire(
 				CURRENT_SEGMENT_PROPERTY, current - 1, current);
 		if (segmented && state == State.ONGOING && current > -1) {
-			pause();
+			pause(nanoTime);
 		}
 	}
 
@@ -833,22 +829,26 @@ public class Run implements TableModel, Serializable {
 			throw new IllegalStateException("illegal run state");
 		}
 		if (current > 0) {
+			State old = state;
 			current = current - 1;
 			getSegment(current).setTime(null, Segment.LIVE);
+			if (state == State.STOPPED) {
+				state = State.ONGOING;
+			}
+			publish();
 
-			pcSupport.firePropertyChange(
+			fire(
 					CURRENT_SEGMENT_PROPERTY, current + 1, current);
 
-			if (state == State.STOPPED) {
-				state = State.ONGOING;
-				pcSupport.firePropertyChange(
+			if (old == State.STOPPED) {
+				fire(
 						STATE_PROPERTY, State.STOPPED, state);
 			}
 		}
 	}
 
 	public void pause() {
-		pause(System.currentTimeMillis());
+		pause(Clock.get().nanoTime());
 	}
 
 	public void pause(long nanoTime) {
@@ -859,13 +859,14 @@ public class Run implements TableModel, Serializable {
 		long stopTime    = nanoTime;
 		lastPauseTimeStamp = nanoTime;
 		long segmentTime = stopTime - getSegment(current).getStartTime();
-		Time time        = new Time(segmentTime);
+		Time time        = Time.ofNanos(segmentTime);
 		segments.get(current).setTime(time, Segment.LIVE, true);
-		pcSupport.firePropertyChange(STATE_PROPERTY, State.ONGOING, state);
+		publish();
+		fire(STATE_PROPERTY, State.ONGOING, state);
 	}
 
 	public void resume() {
-		resume(System.currentTimeMillis());
+		resume(Clock.get().nanoTime());
 	}
 
 	public void resume(long nanoTime) {
@@ -875,19 +876,20 @@ public class Run implements TableModel, Serializable {
 		state     = State.ONGOING;
 		long stop = nanoTime;
 		pauseTime += nanoTime - lastPauseTimeStamp;
-		System.out.println("PAUSETIME: " + pauseTime);
-		startTime = stop - getTime(current, Segment.LIVE, false).getMilliseconds();
+		logPause(nanoTime);
+		startTime = stop - getTime(current, Segment.LIVE, false).getNanoseconds();
 
 		Segment crt = getSegment(current);
-		crt.setStartTime(stop - crt.getTime(Segment.LIVE).getMilliseconds());
+		crt.setStartTime(stop - crt.getTime(Segment.LIVE).getNanoseconds());
 
 		long cumulative = 0L;
 		for (int i = 0; i < current; i++) {
 			Segment iSeg = getSegment(i);
 			iSeg.setStartTime(startTime + cumulative);
-			cumulative += iSeg.getTime(Segment.LIVE).getMilliseconds();
+			cumulative += iSeg.getTime(Segment.LIVE).getNanoseconds();
 		}
-		pcSupport.firePropertyChange(STATE_PROPERTY, State.PAUSED, state);
+		publish();
+		fire(STATE_PROPERTY, State.PAUSED, state);
 	}
 
 	/**
@@ -900,7 +902,8 @@ public class Run implements TableModel, Serializable {
 			throw new IllegalStateException("run is not on-going");
 		}
 		state     = State.STOPPED;
-		pcSupport.firePropertyChange(STATE_PROPERTY, State.ONGOING, state);
+		publish();
+		fire(STATE_PROPERTY, State.ONGOING, state);
 	}
 
 	/**
@@ -908,6 +911,13 @@ public class Run implements TableModel, Serializable {
 	 * again {@link State#READY}.
 	 */
 	public void reset() {
+		if (attemptLog != null && (state == State.ONGOING
+				|| state == State.PAUSED || state == State.STOPPED)) {
+			if (state == State.PAUSED) {
+				logPause(Clock.get().nanoTime());
+			}
+			attemptLog.append(createAttempt());
+		}
 		for (Segment segment : segments) {
 			segment.setTime(null, Segment.LIVE);
 		}
@@ -916,7 +926,8 @@ public class Run implements TableModel, Serializable {
 
 		State old = state;
 		state     = State.READY;
-		pcSupport.firePropertyChange(STATE_PROPERTY, old, state);
+		publish();
+		fire(STATE_PROPERTY, old, state);
 	}
 
 	/**
@@ -934,8 +945,9 @@ public class Run implements TableModel, Serializable {
 
 			current = current + 1;
 			getSegment(current).setStartTime(segmentStart);
+			publish();
 
-			pcSupport.firePropertyChange(
+			fire(
 					CURRENT_SEGMENT_PROPERTY, current - 1, current);
 		}
 	}
@@ -966,6 +978,7 @@ public class Run implements TableModel, Serializable {
 				}
 			}
 		}
+		publish();
 	}
 
 	/**
@@ -994,8 +1007,10 @@ public class Run implements TableModel, Serializable {
 				segments.add(segment);
 			}
 			segmentsBackup = null;
+			attachSegments(0);
+			publish();
 			tmSupport.fireTableStructureChanged();
-			pcSupport.firePropertyChange(STATE_PROPERTY, old, state);
+			fire(STATE_PROPERTY, old, state);
 		}
 	}
 
@@ -1041,7 +1056,8 @@ public class Run implements TableModel, Serializable {
 					Time nTime = getTime(i, Segment.RUN);
 					if (time.compareTo(nTime) < 0
 							&& time.compareTo(pTime) > 0) {
-						nSegment.getTime(Segment.RUN).add(delta);
+						nSegment.setTime(nSegment.getTime(Segment.RUN).plus(delta),
+								Segment.RUN, true);
 					}
 					break;
 				}
@@ -1118,11 +1134,13 @@ public class Run implements TableModel, Serializable {
 			case COLUMN_TIME:
 				Time newTime = (Time) value;
 				setSplitTime(row, newTime);
+				publish();
 				tmSupport.fireTableDataChanged();
 				break;
 
 			case COLUMN_SEGMENT:
 				setSegmentTime(row, (Time) value);
+				publish();
 				tmSupport.fireTableDataChanged();
 				break;
 
@@ -1134,6 +1152,7 @@ public class Run implements TableModel, Serializable {
 				} else {
 					segment.setTime(newTime, Segment.BEST);
 				}
+				publish();
 				tmSupport.fireTableDataChanged();
 				break;
 		}
@@ -1164,7 +1183,7 @@ public class Run implements TableModel, Serializable {
 			for (int i = index + 1; i < rowCount; i++) {
 				Time nTime = getSegment(i).getTime(Segment.RUN);
 				if (nTime != null) {
-					nTime.add(old);
+					getSegment(i).setTime(nTime.plus(old), Segment.RUN, true);
 					break;
 				}
 			}
@@ -1193,10 +1212,151 @@ public class Run implements TableModel, Serializable {
 		}
 	}
 
+	/**
+	 * Publishes a new snapshot of the timing state and times of this run. Must
+	 * be called after every change of the state, the current segment, the
+	 * start times or the times of the segments and before any event
+	 * describing the change is fired.
+	 */
+	private void publish() {
+		long segmentStart = startTime;
+		if (current > -1 && current < getRowCount()) {
+			segmentStart = segments.get(current).getStartTime();
+		}
+		snapshot = new Snapshot(this, segmentStart);
+	}
+
+	/**
+	 * Fires an {@link Event} carrying the latest snapshot of this run to the
+	 * registered {@code PropertyChangeListener}s.
+	 *
+	 * @param   property    - the name of the property that changed.
+	 * @param   oldValue    - the old value of the property.
+	 * @param   newValue    - the new value of the property.
+	 */
+	private void fire(String property, Object oldValue, Object newValue) {
+		pcSupport.firePropertyChange(
+				new Event(this, property, oldValue, newValue, snapshot));
+	}
+
+	/**
+	 * Returns the sum in nanoseconds of the times of given type of the
+	 * segments {@code [0..segmentIndex]}, extending the cached sums as needed.
+	 *
+	 * @param   segmentIndex    - index of the last segment to sum.
+	 * @param   type            - one of {@code RUN}, {@code BEST} or
+	 *                            {@code LIVE}.
+	 * @return  the cumulative time up to the given segment.
+	 */
+	private synchronized long getCumulativeTime(int segmentIndex, int type) {
+		long[] sums = cumulativeTimes[type];
+		if (sums.length <= segmentIndex) {
+			sums = Arrays.copyOf(sums, Math.max(getRowCount(), sums.length * 2));
+			cumulativeTimes[type] = sums;
+		}
+		int count = cumulativeCounts[type];
+		if (count <= segmentIndex) {
+			long sum = (count == 0 ? 0L : sums[count - 1]);
+			for (int i = count; i <= segmentIndex; i++) {
+				Time time = segments.get(i).getTime(type);
+				if (time != null) {
+					sum += time.getNanoseconds();
+				}
+				sums[i] = sum;
+			}
+			cumulativeCounts[type] = segmentIndex + 1;
+		}
+		return sums[segmentIndex];
+	}
+
+	/**
+	 * Discards the cached cumulative times of given type from the given
+	 * segment onward. Called whenever a time of a segment changes.
+	 *
+	 * @param   segmentIndex    - index of the first segment whose cumulative
+	 *                            time is outdated.
+	 * @param   type            - the type of time that changed.
+	 */
+	synchronized void invalidateTimes(int segmentIndex, int type) {
+		cumulativeCounts[type] = Math.min(cumulativeCounts[type], segmentIndex);
+	}
+
+	/**
+	 * Discards the cached cumulative times of every type from the given
+	 * segment onward.
+	 *
+	 * @param   segmentIndex    - index of the first segment whose cumulative
+	 *                            times are outdated.
+	 */
+	private synchronized void invalidateTimes(int segmentIndex) {
+		for (int type = 0; type < cumulativeCounts.length; type++) {
+			invalidateTimes(segmentIndex, type);
+		}
+	}
+
+	/**
+	 * Updates the index of the segments from the given one onward, after they
+	 * have been inserted, moved or removed, and discards their cumulative
+	 * times.
+	 *
+	 * @param   segmentIndex    - index of the first segment which moved.
+	 */
+	private void attachSegments(int segmentIndex) {
+		for (int i = segmentIndex; i < segments.size(); i++) {
+			segments.get(i).attach(this, i);
+		}
+		invalidateTimes(segmentIndex);
+	}
+
+	/**
+	 * Registers the pause ending at the given time stamp in the pauses of the
+	 * current attempt.
+	 *
+	 * @param   nanoTime    - the time stamp at which the pause ended.
+	 */
+	private void logPause(long nanoTime) {
+		if (pauses.length < 2 * (pauseCount + 1)) {
+			pauses = Arrays.copyOf(pauses, pauses.length * 2);
+		}
+		pauses[2 * pauseCount]     = lastPauseTimeStamp - attemptStartTime;
+		pauses[2 * pauseCount + 1] = nanoTime - lastPauseTimeStamp;
+		pauseCount++;
+	}
+
+	/**
+	 * Creates the record of the current attempt, to be appended to the log.
+	 *
+	 * @return  the current attempt.
+	 */
+	private AttemptLog.Attempt createAttempt() {
+		long[] liveTimes = new long[getRowCount()];
+		for (int i = 0; i < liveTimes.length; i++) {
+			Time live = segments.get(i).getTime(Segment.LIVE);
+			liveTimes[i] = (live == null || i >= current
+					? AttemptLog.UNDEFINED : live.getNanoseconds());
+		}
+		long[] pauseStarts    = new long[pauseCount];
+		long[] pauseDurations = new long[pauseCount];
+		for (int i = 0; i < pauseCount; i++) {
+			pauseStarts[i]    = pauses[2 * i];
+			pauseDurations[i] = pauses[2 * i + 1];
+		}
+		return new AttemptLog.Attempt(attemptWallTime, liveTimes,
+				Math.max(0, current), pauseStarts, pauseDurations);
+	}
+
 	/**
 	 * Initialize all transient fields.
 	 */
 	private void initializeTransients() {
+		attemptLog       = null;
+		attemptStartTime = 0L;
+		attemptWallTime  = 0L;
+		pauses           = new long[8];
+		pauseCount       = 0;
+		cumulativeTimes  = new long[Segment.LIVE + 1][0];
+		cumulativeCounts = new int[Segment.LIVE + 1];
+		attachSegments(0);
 		pcSupport       = new PropertyChangeSupport(this);
 		tmSupport       = new TableModelSupport(this);
 		segmentsBackup  = null;
@@ -1208,6 +1368,7 @@ public class Run implements TableModel, Serializable {
 
 		pauseTime = 0L;
 		lastPauseTimeStamp = 0L;
+		publish();
 
 		if (subTitle == null) {
 			subTitle = "";
@@ -1235,6 +1396,405 @@ public class Run implements TableModel, Serializable {
 
 	// ---------------------------------------------------------- INTERNAL TYPE
 
+	/**
+	 * Property change fired by a run, carrying the snapshot of the run taken
+	 * when it was fired. Listeners handling the event later, on another
+	 * thread, must read the run from this snapshot rather than from the run.
+	 */
+	public static final class Event extends PropertyChangeEvent {
+
+		private static final long serialVersionUID = 1000L;
+
+		private final transient Snapshot snapshot;
+
+		private Event(Run source, String property, Object oldValue,
+				Object newValue, Snapshot snapshot) {
+			super(source, property, oldValue, newValue);
+			this.snapshot = snapshot;
+		}
+
+		/**
+		 * Returns the snapshot of the run when this event was fired.
+		 *
+		 * @return  the snapshot of the run.
+		 */
+		public Snapshot getSnapshot() {
+			return snapshot;
+		}
+	}
+
+	/**
+	 * Immutable view of the timing state and of the times of a run at a given
+	 * instant. A run publishes a new snapshot after each transition, letting
+	 * other threads read a consistent state without locking the run. Times
+	 * of type {@link Segment#SET} are resolved when read, following the
+	 * compare method configured at that time.
+	 *
+	 * @see     Run#getSnapshot()
+	 */
+	public static final class Snapshot {
+
+		private final State state;
+
+		private final int current;
+
+		private final long startTime;
+
+		private final long segmentStartTime;
+
+		private final long lastPauseTimeStamp;
+
+		/**
+		 * Times of the segments indexed by type then by segment, for the
+		 * types {@code RUN}, {@code BEST} and {@code LIVE}.
+		 */
+		private final Time[][] times;
+
+		/**
+		 * Sums in nanoseconds of the times of the segments {@code [0..i]},
+		 * indexed like {@code times}, undefined times counting as zero.
+		 */
+		private final long[][] cumulativeTimes;
+
+		private final int numberOfAttempts;
+
+		private final int numberOfCompletedAttempts;
+
+		private final int sessionAttempts;
+
+		private Snapshot(Run run, long segmentStartTime) {
+			int count               = run.segments.size();
+			state                   = run.state;
+			current                 = run.current;
+			startTime               = run.startTime;
+			lastPauseTimeStamp      = run.lastPauseTimeStamp;
+			numberOfAttempts        = run.numberOfAttempts;
+			numberOfCompletedAttempts = run.numberOfCompletedAttempts;
+			sessionAttempts         = run.sessionAttempts;
+			this.segmentStartTime   = segmentStartTime;
+
+			times           = new Time[Segment.LIVE + 1][];
+			cumulativeTimes = new long[Segment.LIVE + 1][];
+			for (int type = Segment.RUN; type <= Segment.LIVE; type++) {
+				Time[] typeTimes = new Time[count];
+				long[] sums      = new long[count];
+				long   sum       = 0L;
+				for (int i = 0; i < count; i++) {
+					typeTimes[i] = run.segments.get(i).getTime(type);
+					sum         += Time.nanosOf(typeTimes[i]);
+					sums[i]      = sum;
+				}
+				times[type]           = typeTimes;
+				cumulativeTimes[type] = sums;
+			}
+		}
+
+		/**
+		 * Returns the state of the run.
+		 *
+		 * @return  the state of the run.
+		 */
+		public State getState() {
+			return state;
+		}
+
+		/**
+		 * Returns the index of the segment being run.
+		 *
+		 * @return  the current segment index.
+		 */
+		public int getCurrent() {
+			return current;
+		}
+
+		/**
+		 * Returns the index of the previously runned segment, as
+		 * {@link Run#getPrevious()}.
+		 *
+		 * @return  the previous segment index.
+		 */
+		public int getPrevious() {
+			return current - 1;
+		}
+
+		/**
+		 * Indicates wether or not a previous segment is available, as
+		 * {@link Run#hasPreviousSegment()}.
+		 *
+		 * @return  wether a previous segment is available or not.
+		 */
+		public boolean hasPreviousSegment() {
+			return current > 0;
+		}
+
+		/**
+		 * Returns the number of segments of the run.
+		 *
+		 * @return  the number of segments.
+		 */
+		public int getRowCount() {
+			return times[Segment.LIVE].length;
+		}
+
+		/**
+		 * Returns the number of nanoseconds on the {@link Clock} when the run
+		 * started.
+		 *
+		 * @return  the run’s start time stamp.
+		 */
+		public long getStartTime() {
+			return startTime;
+		}
+
+		/**
+		 * Returns the number of nanoseconds on the {@link Clock} when the
+		 * current segment started, or the start time of the run if there is no
+		 * current segment.
+		 *
+		 * @return  the current segment’s start time stamp.
+		 */
+		public long getSegmentStartTime() {
+			return segmentStartTime;
+		}
+
+		/**
+		 * Returns the number of nanoseconds on the {@link Clock} when the run
+		 * was last paused.
+		 *
+		 * @return  the time stamp of the last pause.
+		 */
+		public long getLastPauseTimeStamp() {
+			return lastPauseTimeStamp;
+		}
+
+		public int getNumberOfAttempts() {
+			return numberOfAttempts;
+		}
+
+		public int getNumberOfCompletedAttempts() {
+			return numberOfCompletedAttempts;
+		}
+
+		public int getSessionAttempts() {
+			return sessionAttempts;
+		}
+
+		/**
+		 * Returns the time of given type of the given segment, as
+		 * {@link Segment#getTime(int)}.
+		 *
+		 * @param   index   - the index of the segment.
+		 * @param   type    - one of the type identifier.
+		 * @return  the segment time of given type.
+		 */
+		public Time getSegmentTime(int index, int type) {
+			if (index < 0 || index >= getRowCount()) {
+				return null;
+			}
+			Time live = times[Segment.LIVE][index];
+			switch (type) {
+				case Segment.RUN:
+				case Segment.BEST:
+				case Segment.LIVE:
+					return times[type][index];
+
+				case Segment.DELTA_RUN:
+				case Segment.DELTA_BEST:
+					Time time = times[type == Segment.DELTA_RUN
+							? Segment.RUN : Segment.BEST][index];
+					return (time == null ? null : Time.getDelta(live, time));
+
+				case Segment.DELTA:
+					Time set = times[Segment.getSetType()][index];
+					return (set == null ? null : Time.getDelta(live, set));
+
+				default:
+					return times[Segment.getSetType()][index];
+			}
+		}
+
+		/**
+		 * Returns the run time of given type up to the given segment, as
+		 * {@link Run#getTime(int, int)}.
+		 *
+		 * @param   index   - index of the segment up to which get the time.
+		 * @param   type    - one of the identifier.
+		 * @return  the run time up to the given segment.
+		 */
+		public Time getTime(int index, int type) {
+			if (index < 0 || index >= getRowCount()) {
+				return null;
+			}
+			if (type == Segment.DELTA) {
+				Time set  = getTime(index, Segment.SET);
+				Time live = getTime(index, Segment.LIVE);
+				return (set == null ? null : Time.getDelta(live, set));
+			}
+			if (type == Segment.SET) {
+				type = Segment.getSetType();
+			}
+			if (getSegmentTime(index, type) == null) {
+				return null;
+			}
+			if (type != Segment.RUN && type != Segment.BEST
+					&& type != Segment.LIVE) {
+				long nanos = 0L;
+				for (int i = 0; i <= index; i++) {
+					nanos += Time.nanosOf(getSegmentTime(i, type));
+				}
+				return Time.ofNanos(nanos);
+			}
+			return Time.ofNanos(cumulativeTimes[type][index]);
+		}
+
+		/**
+		 * Returns the run time of given type, as {@link Run#getTime(int)}.
+		 *
+		 * @param   type    - one of the identifier.
+		 * @return  the run time of given type.
+		 */
+		public Time getTime(int type) {
+			return getTime(getRowCount() - 1, type);
+		}
+
+		/**
+		 * Returns the portion of the registered run time to which live times
+		 * should be compared, as {@link Run#getCompareTime()}.
+		 *
+		 * @return  {@code P%} of {@code getTime(Segment.SET)} where {@code P}
+		 *          is the configured compare percent.
+		 */
+		public Time getCompareTime() {
+			int  i    = 2;
+			Time time = getTime(Segment.SET);
+			while (time == null) {
+				if (getRowCount() - i < 0) {
+					return Time.ZERO;
+				}
+				time = getTime(getRowCount() - i, Segment.SET);
+				i++;
+			}
+			long ms = time.getMilliseconds();
+			float pc = Settings.graphScale.get();
+
+			return new Time((long) (ms * pc) / 100L);
+		}
+
+		/**
+		 * Indicates wether the live run is better than the registered one,
+		 * as {@link Run#isPersonalBest()}.
+		 *
+		 * @return  wether or not the run is a new personal best.
+		 */
+		public boolean isPersonalBest() {
+			if (current < getRowCount()) {
+				return false;
+			}
+			Time live = getTime(Segment.LIVE);
+			Time run  = getTime(Segment.RUN);
+			return (live.compareTo(run) < 0);
+		}
+
+		/**
+		 * Indicates wether or not any live segment time is better than its
+		 * best registered time, as {@link Run#hasSegmentsBest()}.
+		 *
+		 * @return  wether or not the run has new segments' best.
+		 */
+		public boolean hasSegmentsBest() {
+			for (int i = 0; i < current && i < getRowCount(); i++) {
+				Time live = times[Segment.LIVE][i];
+				Time best = times[Segment.BEST][i];
+
+				if (live != null && live.compareTo(best) < 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Returns wether of not the given segment live time is better than
+		 * its registered time, as {@link Run#isBetterSegment(int)}.
+		 *
+		 * @param   index   - the index of the segment.
+		 * @return  wether or not this segment live time is better.
+		 */
+		public boolean isBetterSegment(int index) {
+			return isLiveBetter(index, Segment.getSetType());
+		}
+
+		/**
+		 * Returns wether of not the given segment live time is better than
+		 * its best time, as {@link Run#isBestSegment(int)}.
+		 *
+		 * @param   index   - the index of the segment.
+		 * @return  wether or not this segment live time is a new best.
+		 */
+		public boolean isBestSegment(int index) {
+			return isLiveBetter(index, Segment.BEST);
+		}
+
+		/**
+		 * Returns the sum of the best segments, counting the live segments
+		 * better than their best, as {@link Run#getSumOfBest()}.
+		 *
+		 * @return  the sum of best segments.
+		 */
+		public Time getSumOfBest() {
+			long sum = 0;
+			for (int i = 0; i < getRowCount(); ++i) {
+				Time best = times[Segment.BEST][i];
+				Time live = times[Segment.LIVE][i];
+
+				if (best != null || live != null) {
+					long bestMs = (best == null ? Long.MAX_VALUE : best.getMilliseconds());
+					long liveMs = (live == null ? Long.MAX_VALUE : live.getMilliseconds());
+
+					sum += Math.min(bestMs, liveMs);
+				}
+			}
+			return new Time(sum);
+		}
+
+		/**
+		 * Returns wether or not the given segment live time is better than
+		 * its time of given type. If that time is undefined, we check using
+		 * the sum of the times from the previous non-null segment. The times
+		 * are summed in nanoseconds, without creating any time object.
+		 *
+		 * @param   index   - the index of the segment.
+		 * @param   type    - {@code RUN} or {@code BEST}.
+		 * @return  wether or not this segment live time is better.
+		 */
+		private boolean isLiveBetter(int index, int type) {
+			if (index < 0 || index >= getRowCount()) {
+				return false;
+			}
+			Time[] typeTimes = times[type];
+			Time[] liveTimes = times[Segment.LIVE];
+			Time   time      = typeTimes[index];
+			Time   live      = liveTimes[index];
+
+			if (live == null) {
+				return false;
+			}
+			if (time == null) {
+				return true;
+			}
+			long liveNanos = live.getNanoseconds();
+			long timeNanos = time.getNanoseconds();
+
+			for (int i = index - 1; i >= 0 && typeTimes[i] == null; i--) {
+				liveNanos += Time.nanosOf(liveTimes[i]);
+			}
+			for (int i = index - 1; i >= 0 && liveTimes[i] == null; i--) {
+				timeNanos += Time.nanosOf(typeTimes[i]);
+			}
+			return liveNanos < timeNanos;
+		}
+	}
+
 	/**
 	 * Enumeration of a run possible state.
 	 *
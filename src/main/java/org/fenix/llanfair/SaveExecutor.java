@@ -0,0 +1,219 @@
+package org.fenix.llanfair;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Background writer of the run files. Callers hand it a snapshot of the file
+ * content, already serialized, and return immediately; the file is then
+ * written on a dedicated thread so the interface never waits for the disk.
+ *
+ * <p>Every file is first written to a temporary file of the same directory,
+ * forced to disk, then moved over the destination in a single atomic step,
+ * so a crash during a save leaves either the old or the new file but never
+ * a truncated one. Snapshots of the same file submitted within
+ * {@code COALESCE_DELAY} of each other are collapsed into a single write of
+ * the latest one.</p>
+ */
+final class SaveExecutor implements Runnable {
+
+	// -------------------------------------------------------------- CONSTANTS
+
+	/**
+	 * Number of milliseconds to wait for other snapshots after receiving
+	 * one, before writing.
+	 */
+	private static final long COALESCE_DELAY = 250L;
+
+	/**
+	 * Maximum number of milliseconds to wait for pending snapshots before
+	 * giving up, such as when the application exits.
+	 */
+	static final long FLUSH_TIMEOUT = 10000L;
+
+	// ------------------------------------------------------------- ATTRIBUTES
+
+	private final Llanfair master;
+
+	private final Thread thread;
+
+	/**
+	 * Latest snapshot waiting to be written for each file, guarded by this.
+	 */
+	private final Map<File, byte[]> pending;
+
+	/**
+	 * Number of snapshots submitted and written (or given up on), guarded by
+	 * this. Used to wait for the snapshots submitted before a flush.
+	 */
+	private long submitted;
+
+	private long written;
+
+	/**
+	 * Whether a caller is waiting for the pending snapshots, in which case
+	 * they are written without delay. Guarded by this.
+	 */
+	private boolean flushing;
+
+	// ----------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Creates and starts the save executor of the given application, which
+	 * receives the errors to display.
+	 *
+	 * @param   owner   - the Llanfair instance saving its runs.
+	 */
+	SaveExecutor(Llanfair owner) {
+		master    = owner;
+		thread    = new Thread(this, "Llanfair save executor");
+		pending   = new LinkedHashMap<File, byte[]>();
+		submitted = 0L;
+		written   = 0L;
+		flushing  = false;
+
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	// -------------------------------------------------------------- INTERFACE
+
+	/**
+	 * Schedules the writing of the given content to the given file,
+	 * replacing any content still waiting to be written to it.
+	 *
+	 * @param   file    - the file to write.
+	 * @param   content - the complete content of the file.
+	 */
+	synchronized void submit(File file, byte[] content) {
+		pending.put(file.getAbsoluteFile(), content);
+		submitted++;
+		notifyAll();
+	}
+
+	/**
+	 * Waits for every snapshot submitted so far to be written, at most the
+	 * given number of milliseconds.
+	 *
+	 * @param   timeout - the maximum number of milliseconds to wait.
+	 */
+	synchronized void flush(long timeout) {
+		long target   = submitted;
+		long deadline = System.currentTimeMillis() + timeout;
+		flushing = true;
+		notifyAll();
+		try {
+			long remaining = timeout;
+			while (written < target && remaining > 0L) {
+				wait(remaining);
+				remaining = deadline - System.currentTimeMillis();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			flushing = false;
+		}
+	}
+
+	// -------------------------------------------------------------- CALLBACKS
+
+	/**
+	 * Main loop of the executor. Waits for a snapshot, lets others arrive
+	 * for {@code COALESCE_DELAY} milliseconds, then writes the latest
+	 * snapshot of every file.
+	 */
+	@Override public void run() {
+		Map<File, byte[]> batch = new LinkedHashMap<File, byte[]>();
+		while (true) {
+			long target;
+			synchronized (this) {
+				try {
+					while (pending.isEmpty()) {
+						wait();
+					}
+					long deadline = System.currentTimeMillis() + COALESCE_DELAY;
+					long remaining = COALESCE_DELAY;
+					while (!flushing && remaining > 0L) {
+						wait(remaining);
+						remaining = deadline - System.currentTimeMillis();
+					}
+				} catch (InterruptedException ex) {
+					continue;
+				}
+				batch.putAll(pending);
+				pending.clear();
+				target = submitted;
+			}
+
+			for (Map.Entry<File, byte[]> entry : batch.entrySet()) {
+				// Any failure is reported, as the snapshot is lost and an
+				// exception escaping would stop the executor
+				try {
+					write(entry.getKey(), entry.getValue());
+				} catch (Exception ex) {
+					showError(entry.getKey(), ex);
+				}
+			}
+			batch.clear();
+
+			synchronized (this) {
+				written = target;
+				notifyAll();
+			}
+		}
+	}
+
+	// -------------------------------------------------------------- UTILITIES
+
+	/**
+	 * Writes the given content to a temporary file, forces it to disk and
+	 * moves it over the given file. The temporary file is hidden next to the
+	 * given file, which only this thread writes to.
+	 */
+	private static void write(File file, byte[] content) throws IOException {
+		File temp = new File(file.getParentFile(), "." + file.getName() + ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp.toPath(),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.wrap(content);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(true);
+			}
+			try {
+				Files.move(temp.toPath(), file.toPath(),
+						StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp.toPath(), file.toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp.toPath());
+		}
+	}
+
+	/**
+	 * Reports the failure to write the given file to the user, on the event
+	 * dispatching thread.
+	 */
+	private void showError(final File file, final Exception ex) {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override public void run() {
+				master.showError(
+						Language.error_write_file.get(file.getName()), ex);
+			}
+		});
+	}
+}
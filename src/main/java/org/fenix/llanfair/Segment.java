@@ -110,10 +110,21 @@ public class Segment implements Cloneable, Serializable {
 	private transient Time liveTime;
 
 	/**
-	 * Number of milliseconds on the clock when the segment started.
+	 * Number of nanoseconds on the {@link Clock} when the segment started.
 	 */
 	private transient long startTime;
 
+	/**
+	 * Run containing this segment, notified whenever a time of this segment
+	 * changes. Can be {@code null} for segments not yet added to a run.
+	 */
+	private transient Run owner;
+
+	/**
+	 * Index of this segment within its owning run.
+	 */
+	private transient int index;
+
 	// ----------------------------------------------------------- CONSTRUCTORS
 
 	/**
@@ -160,7 +171,8 @@ public class Segment implements Cloneable, Serializable {
 	}
 
 	/**
-	 * Returns the number of milliseconds on the clock when the segment started.
+	 * Returns the number of nanoseconds on the {@link Clock} when the segment
+	 * started.
 	 *
 	 * @return  the start time of this segment.
 	 */
@@ -208,13 +220,14 @@ public class Segment implements Cloneable, Serializable {
 
 	/**
 	 * As specified by {@code Cloneable}, returns a deep copy of the segment.
+	 * Times being immutable, they are shared with the copy.
 	 */
 	public Segment clone() {
 		Segment segment   = new Segment(name);
 		segment.icon      = icon;
-		segment.runTime   = (runTime  == null ? null : runTime.clone());
-		segment.bestTime  = (bestTime == null ? null : bestTime.clone());
-		segment.liveTime  = (liveTime == null ? null : liveTime.clone());
+		segment.runTime   = runTime;
+		segment.bestTime  = bestTime;
+		segment.liveTime  = liveTime;
 		segment.startTime = startTime;
 		return segment;
 	}
@@ -236,7 +249,8 @@ public class Segment implements Cloneable, Serializable {
 	/**
 	 * Sets the current icon of this segment. Can be {@code null} to remove
 	 * the current icon or indicate that no icon should be used. The icon wil
-	 * be scale down to {@code ICON_MAX_SIZE} if it’s bigger.
+	 * be scale down to {@code ICON_MAX_SIZE} if it’s bigger, then saved in
+	 * the {@link IconStore}.
 	 *
 	 * @param   icon    - the new icon for this segment.
 	 */
@@ -244,21 +258,18 @@ public class Segment implements Cloneable, Serializable {
 		if (icon == null) {
 			this.icon = null;
 		} else {
-			this.icon = Images.rescale(icon, ICON_MAX_SIZE);
+			this.icon = IconStore.intern(Images.rescale(icon, ICON_MAX_SIZE));
 		}
 	}
 
 	/**
-	 * Sets the number of milliseconds on the clock when the segment started.
-	 * Should only be called by the run owning this segment.
+	 * Sets the number of nanoseconds on the {@link Clock} when the segment
+	 * started. Should only be called by the run owning this segment. The time
+	 * can be negative since the origin of the clock is arbitrary.
 	 *
 	 * @param   startTime   - the starting time of this segment.
-	 * @throws  IllegalArgumentException    if the time is negative.
 	 */
 	void setStartTime(long startTime) {
-		if (startTime < 0L) {
-			throw new IllegalArgumentException("negative start time");
-		}
 		this.startTime = startTime;
 	}
 
@@ -282,6 +293,10 @@ public class Segment implements Cloneable, Serializable {
 			case BEST:  bestTime = time;    break;
 			case LIVE:  liveTime = time;    break;
 			case RUN:   runTime  = time;    break;
+			default:    return;
+		}
+		if (owner != null) {
+			owner.invalidateTimes(index, type);
 		}
 	}
 
@@ -289,14 +304,43 @@ public class Segment implements Cloneable, Serializable {
 		setTime(time, type, false);
 	}
 
+	/**
+	 * Registers the run containing this segment and the index of this segment
+	 * within the run. Should only be called by said run.
+	 *
+	 * @param   owner   - the run containing this segment.
+	 * @param   index   - the index of this segment within the run.
+	 */
+	void attach(Run owner, int index) {
+		this.owner = owner;
+		this.index = index;
+	}
+
 	// -------------------------------------------------------------- UTILITIES
 
+	/**
+	 * Returns the type of time designated by {@link #SET} given the currently
+	 * set compare method, i.e. either {@link #RUN} or {@link #BEST}.
+	 *
+	 * @return  the type of time to use as the set time.
+	 */
+	static int getSetType() {
+		switch (Settings.compareMethod.get()) {
+			case BEST_OVERALL_RUN:       return RUN;
+			case SUM_OF_BEST_SEGMENTS:  return BEST;
+		}
+		// Should not be reached.
+		return RUN;
+	}
+
 	/**
 	 * Initialize all transient fields.
 	 */
 	private void initializeTransients() {
 		liveTime  = null;
 		startTime = 0L;
+		owner     = null;
+		index     = 0;
 	}
 
 	/**
@@ -306,12 +350,7 @@ public class Segment implements Cloneable, Serializable {
 	 * @return  the time as defined by the current compare method.
 	 */
 	private Time getTime() {
-		switch (Settings.compareMethod.get()) {
-			case BEST_OVERALL_RUN:       return runTime;
-			case SUM_OF_BEST_SEGMENTS:  return bestTime;
-		}
-		// Should not be reached.
-		return null;
+		return getSetType() == BEST ? bestTime : runTime;
 	}
 
    /**
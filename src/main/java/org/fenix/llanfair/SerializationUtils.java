@@ -6,6 +6,7 @@ import com.thoughtworks.xstream.converters.MarshallingContext;
 import com.thoughtworks.xstream.converters.UnmarshallingContext;
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.xml.XppDriver;
 import org.fenix.llanfair.config.Accuracy;
 import org.fenix.llanfair.config.Compare;
 import org.fenix.llanfair.config.Merge;
@@ -15,8 +16,37 @@ import javax.swing.*;
 import java.awt.*;
 import java.io.*;
 import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
 
 public class SerializationUtils {
+	/**
+	 * Shared XStream instance, created on first use. An XStream instance is
+	 * expensive to create but, once configured, is thread-safe.
+	 */
+	private static XStream xstream = null;
+
+	/**
+	 * Returns the shared XStream instance used to read and write run files
+	 * and configurations. It is backed by the XPP3 pull parser, which streams
+	 * the document instead of building a DOM of it, and has the custom
+	 * settings of {@link #customize(XStream)} as well as every annotation of
+	 * the serialized types already processed.
+	 *
+	 * @return the shared XStream instance
+	 */
+	public static synchronized XStream getXStream() {
+		if (xstream == null) {
+			XStream xml = new XStream(new XppDriver());
+			customize(xml);
+			xml.processAnnotations(new Class<?>[] {
+					Run.class, Segment.class, Configuration.class
+			});
+			xstream = xml;
+		}
+		return xstream;
+	}
+
 	/**
 	 * Adds custom serialization settings, such as aliases and converters, to the given
 	 * XStream serialization object.
@@ -32,6 +62,7 @@ public class SerializationUtils {
 		xml.alias("Merge", Merge.class);
 
 		xml.registerConverter(new FontConverter());
+		xml.addDefaultImplementation(IconStore.StoredIcon.class, ImageIcon.class);
 		xml.registerConverter(new ImageIconConverter());
 	}
 
@@ -52,10 +83,59 @@ public class SerializationUtils {
 		return Base64.getEncoder().encodeToString(baos.toByteArray());
 	}
 
+	/**
+	 * Converts icons to references to the {@link IconStore}. The first use of
+	 * an icon in a file carries its PNG, of the form
+	 * {@code <IconData width="w" height="h">base64</IconData>}, so the file
+	 * can be read where the store does not have the icon, and the following
+	 * ones only its hash, of the form
+	 * {@code <IconRef width="w" height="h">hash</IconRef>}. Icons embedded in
+	 * older files as base64-encoded serialized objects can still be read, and
+	 * are still written that way if the store is not available.
+	 */
 	public static class ImageIconConverter implements Converter {
+		/**
+		 * Key of the hashes of the icons already written in a file, in the
+		 * context of its marshalling.
+		 */
+		private static final String WRITTEN_ICONS = "IconStore.written";
+
 		@Override
 		public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
 			ImageIcon icon = (ImageIcon)source;
+			IconStore.StoredIcon stored;
+			try {
+				stored = IconStore.store(icon);
+			} catch (IOException e) {
+				stored = null;
+			}
+			@SuppressWarnings("unchecked")
+			Set<String> written = (Set<String>) context.get(WRITTEN_ICONS);
+			if (written == null) {
+				written = new HashSet<String>();
+				context.put(WRITTEN_ICONS, written);
+			}
+			byte[] data = null;
+			if (stored != null && written.add(stored.getHash())) {
+				data = IconStore.getData(stored);
+			}
+			if (data != null) {
+				writer.startNode("IconData");
+				writer.addAttribute("width", "" + stored.getIconWidth());
+				writer.addAttribute("height", "" + stored.getIconHeight());
+				writer.setValue(Base64.getEncoder().encodeToString(data));
+				writer.endNode();
+				return;
+			}
+			// An icon missing from the store is kept as a reference to it
+			if (stored != null) {
+				writer.startNode("IconRef");
+				writer.addAttribute("width", "" + stored.getIconWidth());
+				writer.addAttribute("height", "" + stored.getIconHeight());
+				writer.setValue(stored.getHash());
+				writer.endNode();
+				return;
+			}
 			writer.startNode("ImageIcon");
 			try {
 				writer.setValue(objectToBase64(icon));
@@ -69,10 +149,25 @@ public class SerializationUtils {
 		public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
 			reader.moveDown();
 			ImageIcon icon;
-			try {
-				icon = base64ToObject(reader.getValue());
-			} catch (Exception e) {
-				throw new RuntimeException(e);
+			if (reader.getNodeName().equals("IconRef")) {
+				int width = Integer.parseInt(reader.getAttribute("width"));
+				int height = Integer.parseInt(reader.getAttribute("height"));
+				icon = IconStore.get(reader.getValue(), width, height);
+			} else if (reader.getNodeName().equals("IconData")) {
+				int width = Integer.parseInt(reader.getAttribute("width"));
+				int height = Integer.parseInt(reader.getAttribute("height"));
+				try {
+					icon = IconStore.restore(
+							Base64.getDecoder().decode(reader.getValue()), width, height);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			} else {
+				try {
+					icon = base64ToObject(reader.getValue());
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
 			}
 			reader.moveUp();
 			return icon;
@@ -80,7 +175,8 @@ public class SerializationUtils {
 
 		@Override
 		public boolean canConvert(Class type) {
-			return type.equals(ImageIcon.class);
+			return type.equals(ImageIcon.class)
+					|| type.equals(IconStore.StoredIcon.class);
 		}
 	}
 
@@ -16,45 +16,59 @@ import org.fenix.llanfair.config.Settings;
  * the delta format (+/-H:M:S) if the time object represents a delta between two
  * times. 
  *
+ * Times are immutable, so they can be shared without being cloned. Code
+ * summing or comparing many times should work on their number of nanoseconds,
+ * using {@link #nanosOf(Time)}, and only create a time for the result.
+ *
  * @author Xavier "Xunkar" Sencert
  * @version 1.1
  */
-public class Time implements Cloneable, Comparable<Time>, Serializable {
+public final class Time implements Cloneable, Comparable<Time>, Serializable {
 
 	/**
-	 * A time of zero milliseconds. This constant can be used for comparisons
-	 * with other times and nothing else.
+	 * A time of zero milliseconds.
 	 */
 	public static final Time ZERO = new Time();
 
 	private static final long serialVersionUID = 1000L;
 
-	private long milliseconds;
+	/**
+	 * Maximum number of characters written by
+	 * {@link #format(long, Accuracy, char[], int)}.
+	 */
+	public static final int FORMAT_LENGTH = 32;
+
+	private final long milliseconds;
+
+	/**
+	 * Number of nanoseconds to add to the milliseconds, always within
+	 * {@code [0..1000000[}. Transient as run files only store milliseconds;
+	 * the extra precision only matters for live times, and is rounded away
+	 * when displayed. Restored to zero by {@link #readResolve()}.
+	 */
+	private final transient int nanoseconds;
 
 	/**
 	 * Creates a default time of zero milliseconds.
 	 */
 	public Time() {
 		milliseconds = 0L;
+		nanoseconds  = 0;
 	}
 
 	/**
-	 * Creates a time representing a given number of milliseconds. This number
-	 * is truncated to the milliseconds to prevent discrepencies resulting from
-	 * successive calls to {@link System.currentTimeMillis()} and thus ensures
-	 * that the compare method remains accurate.
+	 * Creates a time representing a given number of milliseconds.
 	 *
 	 * @param ms the number of milliseconds to represent
 	 */
 	public Time(long ms) {
-		milliseconds = (ms / 10L) * 10L;
+		milliseconds = ms;
+		nanoseconds  = 0;
 	}
 
 	/**
 	 * Creates a time representing the given decimal number of seconds. This
-	 * number is truncated to the milliseconds to prevent discrepencies
-	 * resulting from successive calls to {@link System.currentTimeMillis()}
-	 * and thus ensures that the compare method remains accurate.
+	 * number is truncated to the milliseconds.
 	 *
 	 * @param seconds the number of seconds to represent
 	 */
@@ -62,6 +76,19 @@ public class Time implements Cloneable, Comparable<Time>, Serializable {
 		this((long) (seconds * 1000.0));
 	}
 
+	/**
+	 * Creates a time representing the given number of milliseconds and
+	 * nanoseconds.
+	 *
+	 * @param millis the number of milliseconds to represent
+	 * @param nanos the number of nanoseconds to add, within
+	 *        {@code [0..1000000[}
+	 */
+	private Time(long millis, int nanos) {
+		milliseconds = millis;
+		nanoseconds  = nanos;
+	}
+
 	/**
 	 * Creates a time representing the given time-stamp. The time-stamp is a
 	 * string describing the time in a format understandable by the user. The
@@ -77,13 +104,31 @@ public class Time implements Cloneable, Comparable<Time>, Serializable {
 	 * @throws IllegalArgumentException if the timestamp cannot be parsed
 	 */
 	public Time(String timeStamp) {
+		long ms;
 		try {
-			milliseconds = parseTimeStamp(timeStamp);
+			ms = parseTimeStamp(timeStamp);
 		} catch (Exception ex) {
 			throw new IllegalArgumentException(
 					Language.INVALID_TIME_STAMP.get(timeStamp)
 			);
 		}
+		milliseconds = ms;
+		nanoseconds  = 0;
+	}
+
+	/**
+	 * Creates a time representing the given number of nanoseconds, as
+	 * measured by a {@link Clock}.
+	 *
+	 * @param nanos the number of nanoseconds to represent
+	 * @return a time of given number of nanoseconds
+	 */
+	public static Time ofNanos(long nanos) {
+		if (nanos == 0L) {
+			return ZERO;
+		}
+		return new Time(Math.floorDiv(nanos, Clock.NANOS_PER_MILLI),
+				(int) Math.floorMod(nanos, Clock.NANOS_PER_MILLI));
 	}
 
 	/**
@@ -96,12 +141,18 @@ public class Time implements Cloneable, Comparable<Time>, Serializable {
 	 * @return the delta of time between the two times
 	 */
 	public static Time getDelta(Time t1, Time t2) {
-		if (t1 == null) {
-			t1 = new Time();
-		} else if (t2 == null) {
-			t2 = new Time();
-		}
-		return new Time(t1.milliseconds - t2.milliseconds);
+		return ofNanos(nanosOf(t1) - nanosOf(t2));
+	}
+
+	/**
+	 * Returns the number of nanoseconds represented by the given time, zero
+	 * if the time is {@code null}.
+	 *
+	 * @param time the time, can be {@code null}
+	 * @return the number of nanoseconds of the time, or zero
+	 */
+	public static long nanosOf(Time time) {
+		return (time == null ? 0L : time.getNanoseconds());
 	}
 
 	/**
@@ -114,27 +165,120 @@ public class Time implements Cloneable, Comparable<Time>, Serializable {
 	}
 
 	/**
-	 * Adds the given time to this time. The number of milliseconds
-	 * represented by this time object is now equals to:
-	 * {@code getMilliseconds() + time.getMilliseconds()}
+	 * Returns the number of nanoseconds represented by that time.
+	 *
+	 * @return the number of nanoseconds represented by that time
+	 */
+	public long getNanoseconds() {
+		return milliseconds * Clock.NANOS_PER_MILLI + nanoseconds;
+	}
+
+	/**
+	 * Returns the sum of this time and the given time. This time is left
+	 * unchanged.
 	 *
-	 * @param time the time object to add to this time
+	 * @param time the time to add to this time, can be {@code null}
+	 * @return the sum of both times, this time if the other is {@code null}
 	 */
-	public void add(Time time) {
-		milliseconds += (time == null ? 0L : time.milliseconds);
+	public Time plus(Time time) {
+		if (time == null) {
+			return this;
+		}
+		return ofNanos(getNanoseconds() + time.getNanoseconds());
 	}
 
 	public String toString(boolean signed, Accuracy accuracy) {
+		char[] buffer = new char[FORMAT_LENGTH + 1];
+		int    length = 0;
 		if (signed) {
-			return (milliseconds > 0L ? "+" : "-") + toString(false, accuracy);
+			buffer[length++] = (getNanoseconds() > 0L ? '+' : '-');
+		}
+		long time = Math.abs(getNanoseconds()) / Clock.NANOS_PER_MILLI;
+		length += format(time, accuracy, buffer, length);
+		return new String(buffer, 0, length);
+	}
+
+	/**
+	 * Returns the unit in which a number of milliseconds is displayed with the
+	 * given accuracy, after rounding. Two numbers of milliseconds of same sign
+	 * and same unit are displayed as the same string, which lets callers skip
+	 * formatting altogether when the unit did not change.
+	 *
+	 * @param milliseconds the number of milliseconds, must be positive
+	 * @param accuracy the accuracy to display the time in
+	 * @return the number of seconds, tenths or hundredths displayed
+	 */
+	public static long getDisplayUnit(long milliseconds, Accuracy accuracy) {
+		switch (accuracy) {
+			case SECONDS:
+				return (milliseconds + 500L) / 1000L;
+			case TENTH:
+				return (milliseconds / 10L + 5L) / 10L;
+			default:
+				return milliseconds / 10L;
 		}
-		long time = Math.abs(milliseconds);
-		long cen = (time % 1000L) / 10L;
+	}
+
+	/**
+	 * Returns the number of nanoseconds after which a timer currently showing
+	 * the given number of nanoseconds will display another unit with the
+	 * given accuracy. Negative numbers are displayed as their absolute value
+	 * and count down toward zero.
+	 *
+	 * @param nanoseconds the number of nanoseconds currently displayed
+	 * @param accuracy the accuracy the time is displayed in
+	 * @return the strictly positive number of nanoseconds before the display
+	 *         changes
+	 */
+	public static long getNanosToNextUnit(long nanoseconds, Accuracy accuracy) {
+		long period;
+		long phase;
+		switch (accuracy) {
+			case SECONDS:
+				period = 1000L * Clock.NANOS_PER_MILLI;
+				phase  = 500L * Clock.NANOS_PER_MILLI;
+				break;
+			case TENTH:
+				period = 100L * Clock.NANOS_PER_MILLI;
+				phase  = 50L * Clock.NANOS_PER_MILLI;
+				break;
+			default:
+				period = 10L * Clock.NANOS_PER_MILLI;
+				phase  = 0L;
+				break;
+		}
+		if (nanoseconds >= 0L) {
+			long next = phase + (Math.floorDiv(nanoseconds - phase, period) + 1L) * period;
+			return next - nanoseconds;
+		}
+		// The display changes once the remaining time gets below the previous
+		// unit boundary, or when it reaches zero and loses its sign.
+		long remaining = -nanoseconds;
+		long previous  = phase + Math.floorDiv(remaining - phase, period) * period;
+		return (previous > 0L ? remaining - previous + 1L : remaining);
+	}
+
+	/**
+	 * Formats a number of milliseconds the same way {@link #toString(Accuracy)}
+	 * does, but into the given buffer so that no object is allocated. The
+	 * buffer must have room for {@link #FORMAT_LENGTH} characters from the
+	 * given offset.
+	 *
+	 * @param milliseconds the number of milliseconds, must be positive
+	 * @param accuracy the accuracy to display the time in
+	 * @param buffer the buffer to write into
+	 * @param offset the index of the buffer at which to start writing
+	 * @return the number of characters written
+	 */
+	public static int format(long milliseconds, Accuracy accuracy,
+			char[] buffer, int offset) {
+		long time = milliseconds;
+		long cen  = (time % 1000L) / 10L;
 		long sec;
 
 		// Round to the nearest tenth.
 		if (accuracy == Accuracy.TENTH) {
-			cen = Math.round((double) cen / 10L);
+			cen = (cen + 5L) / 10L;
 			if (cen == 10L) {
 				cen = 0L;
 				time = time + 1000L;
@@ -143,7 +287,7 @@ public class Time implements Cloneable, Comparable<Time>, Serializable {
 
 		// Round to the nearest second.
 		if (accuracy == Accuracy.SECONDS) {
-			sec = Math.round((double) time / 1000);
+			sec = (time + 500L) / 1000L;
 		} else {
 			sec = time / 1000L;
 		}
@@ -152,36 +296,33 @@ public class Time implements Cloneable, Comparable<Time>, Serializable {
 		long hou = min / 60L;
 		min      = min % 60L;
 
-		if (hou == 0L) {
-			if (min == 0L) {
-				switch (accuracy) {
-					case HUNDREDTH:
-						return String.format("%d.%02d", sec, cen);
-					case TENTH:
-						return String.format("%d.%d", sec, cen);
-					case SECONDS:
-						return String.format("%d", sec);
-				}
-			}
-			switch (accuracy) {
-				case HUNDREDTH:
-					return String.format("%d:%02d.%02d", min, sec, cen);
-				case TENTH:
-					return String.format("%d:%02d.%d", min, sec, cen);
-				case SECONDS:
-					return String.format("%d:%02d", min, sec);
-			}
+		int i = offset;
+		if (hou != 0L) {
+			i += writeNumber(hou, buffer, i);
+			buffer[i++] = ':';
+			i += writeTwoDigits(min, buffer, i);
+			buffer[i++] = ':';
+			i += writeTwoDigits(sec, buffer, i);
+		} else if (min != 0L) {
+			i += writeNumber(min, buffer, i);
+			buffer[i++] = ':';
+			i += writeTwoDigits(sec, buffer, i);
+		} else {
+			i += writeNumber(sec, buffer, i);
 		}
 		switch (accuracy) {
 			case HUNDREDTH:
-				return String.format("%d:%02d:%02d.%02d", hou, min, sec, cen);
+				buffer[i++] = '.';
+				i += writeTwoDigits(cen, buffer, i);
+				break;
 			case TENTH:
-				return String.format("%d:%02d:%02d.%d", hou, min, sec, cen);
-			case SECONDS:
-				return String.format("%d:%02d:%02d", hou, min, sec);
+				buffer[i++] = '.';
+				buffer[i++] = (char) ('0' + cen);
+				break;
+			default:
+				break;
 		}
-		// Should not be reachable.
-		return null;
+		return i - offset;
 	}
 
 	/**
@@ -226,22 +367,34 @@ public class Time implements Cloneable, Comparable<Time>, Serializable {
 	}
 
 	/**
-	 * {@inheritDoc} Returns a deep-copy of this time object.
+	 * {@inheritDoc} Times being immutable, returns this time.
 	 */
 	@Override public Time clone() {
-		return new Time(milliseconds);
+		return this;
+	}
+
+	/**
+	 * Deserialization process. Run files only store the milliseconds, so the
+	 * time is rebuilt through its constructor rather than left as created by
+	 * XStream or the serialization, which bypass it.
+	 *
+	 * @return a time of the deserialized number of milliseconds
+	 */
+	private Object readResolve() {
+		return new Time(milliseconds, 0);
 	}
 
 	/**
 	 * {@inheritDoc} Two time objects are equal if and only if they represent
-	 * the same amount of milliseconds.
+	 * the same amount of nanoseconds.
 	 */
 	@Override public boolean equals(Object obj) {
 		if (!(obj instanceof Time)) {
 			return false;
 		}
 		Time time = (Time) obj;
-		return (milliseconds == time.milliseconds);
+		return (milliseconds == time.milliseconds
+				&& nanoseconds == time.nanoseconds);
 	}
 
 	/**
@@ -255,13 +408,38 @@ public class Time implements Cloneable, Comparable<Time>, Serializable {
 
 	/**
 	 * {@inheritDoc} Time objects are compared using their amount of
-	 * milliseconds
+	 * nanoseconds
 	 */
 	@Override public int compareTo(Time time) {
 		if (time == null) {
 			return -1;
 		}
-		return ((Long) milliseconds).compareTo(time.milliseconds);
+		return Long.compare(getNanoseconds(), time.getNanoseconds());
+	}
+
+	/**
+	 * Writes the given positive number in decimal and returns the number of
+	 * characters written.
+	 */
+	private static int writeNumber(long value, char[] buffer, int offset) {
+		int digits = 1;
+		for (long v = value / 10L; v != 0L; v /= 10L) {
+			digits++;
+		}
+		for (int i = offset + digits - 1; i >= offset; i--) {
+			buffer[i] = (char) ('0' + value % 10L);
+			value /= 10L;
+		}
+		return digits;
+	}
+
+	/**
+	 * Writes the given number in [0..99] on two digits.
+	 */
+	private static int writeTwoDigits(long value, char[] buffer, int offset) {
+		buffer[offset]     = (char) ('0' + value / 10L);
+		buffer[offset + 1] = (char) ('0' + value % 10L);
+		return 2;
 	}
 
 	/**
@@ -0,0 +1,491 @@
+package org.fenix.llanfair;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single thread owning the state transitions of the current run. Hotkeys, the
+ * menu and the autosplitter server never touch the run directly: they submit
+ * commands to this core which applies them one at a time, in the order they
+ * were received, on its own thread. The queue is lock-free so that submitting
+ * a command never blocks the submitter, whatever the core is doing.
+ *
+ * <p>The run publishes an immutable {@link Run.Snapshot} after every
+ * transition, which the display reads instead of the live fields of the
+ * run. Every transition applied to a run saved in a file is also recorded
+ * in the {@link LiveJournal}, so the attempt can be restored after a
+ * crash.</p>
+ *
+ * <p>Work that must see the run between two transitions, such as writing it
+ * to a file, is given to the core as the {@link Callback} of a command, and
+ * is then executed on the core thread right after the command.</p>
+ */
+final class TimingCore implements Runnable {
+
+	// -------------------------------------------------------------- CONSTANTS
+
+	/**
+	 * Minimum delay in nanoseconds between two unsplits or two skips, to
+	 * prevent a bouncing key from performing several of them.
+	 */
+	private static final long GHOST_DELAY = 300L * Clock.NANOS_PER_MILLI;
+
+	/**
+	 * Maximum number of milliseconds to wait for pending commands when
+	 * shutting down.
+	 */
+	private static final long SHUTDOWN_TIMEOUT = 1000L;
+
+	// ------------------------------------------------------------- ATTRIBUTES
+
+	private final Owner master;
+
+	private final ConcurrentLinkedQueue<Command> queue;
+
+	private final Thread thread;
+
+	private final LiveJournal journal;
+
+	private volatile boolean running;
+
+	/**
+	 * Time of the last unsplit, only accessed from the core thread.
+	 */
+	private long lastUnsplit;
+
+	/**
+	 * Time of the last skip, only accessed from the core thread.
+	 */
+	private long lastSkip;
+
+	/**
+	 * Whether the attempt in progress is recorded in the journal, only
+	 * accessed from the core thread.
+	 */
+	private boolean journaling;
+
+	// ----------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Creates the timing core of the given owner. The core does not process
+	 * any command until {@link #start()} is called.
+	 *
+	 * @param   owner   - the owner of the run driven.
+	 * @param   journal - the journal recording the attempts.
+	 */
+	TimingCore(Owner owner, LiveJournal journal) {
+		master      = owner;
+		this.journal = journal;
+		queue       = new ConcurrentLinkedQueue<Command>();
+		thread      = new Thread(this, "Llanfair timing core");
+		running     = false;
+		lastUnsplit = Long.MIN_VALUE / 2;
+		lastSkip    = Long.MIN_VALUE / 2;
+		journaling  = false;
+
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MAX_PRIORITY);
+	}
+
+	// -------------------------------------------------------------- INTERFACE
+
+	/**
+	 * Starts the core thread.
+	 */
+	void start() {
+		running = true;
+		thread.start();
+	}
+
+	/**
+	 * Stops the core thread once every pending command has been processed,
+	 * waiting at most {@code SHUTDOWN_TIMEOUT} milliseconds for it to end.
+	 */
+	void shutdown() {
+		running = false;
+		LockSupport.unpark(thread);
+		try {
+			thread.join(SHUTDOWN_TIMEOUT);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Submits a command to the core. This method can be called from any
+	 * thread and never blocks. The command applies to the run opened when
+	 * it is submitted, even if another run is opened before it is processed.
+	 *
+	 * @param   type    - the type of command.
+	 * @param   time    - the {@link Clock} time stamp of the input.
+	 */
+	void submit(Command.Type type, long time) {
+		queue.offer(new Command(type, time, master.getRun(), null));
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Submits a command occuring now, calling back the given callback on the
+	 * core thread once the command has been processed, whether it was
+	 * applied or ignored.
+	 *
+	 * @param   type     - the type of command.
+	 * @param   callback - the callback to call once the command is processed.
+	 */
+	void submit(Command.Type type, Callback callback) {
+		if (callback == null) {
+			throw new NullPointerException("null callback");
+		}
+		queue.offer(new Command(
+				type, Clock.get().nanoTime(), master.getRun(), callback));
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Submits a command occuring now.
+	 *
+	 * @param   type    - the type of command.
+	 */
+	void submit(Command.Type type) {
+		submit(type, Clock.get().nanoTime());
+	}
+
+	/**
+	 * Waits for every command submitted so far to be processed, waiting at
+	 * most the given number of milliseconds.
+	 *
+	 * @param   timeout - maximum number of milliseconds to wait.
+	 * @return  {@code true} if the commands were processed in time.
+	 */
+	boolean await(long timeout) {
+		final CountDownLatch processed = new CountDownLatch(1);
+		submit(Command.Type.SYNC, new Callback() {
+			@Override public void processed(Run run) {
+				processed.countDown();
+			}
+		});
+		try {
+			return processed.await(timeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	// -------------------------------------------------------------- CALLBACKS
+
+	/**
+	 * Main loop of the core thread. Commands are drained from the queue and
+	 * applied; the thread parks whenever the queue is empty.
+	 */
+	@Override public void run() {
+		while (running || !queue.isEmpty()) {
+			Command command = queue.poll();
+			if (command == null) {
+				LockSupport.park(this);
+				continue;
+			}
+			try {
+				Command.Type applied = execute(command);
+				if (applied != null) {
+					journal(command.run, applied, command.time);
+				}
+			} catch (RuntimeException ex) {
+				ex.printStackTrace();
+			}
+			if (command.callback != null) {
+				try {
+					command.callback.processed(command.run);
+				} catch (RuntimeException ex) {
+					ex.printStackTrace();
+				}
+			}
+		}
+	}
+
+	// -------------------------------------------------------------- UTILITIES
+
+	/**
+	 * Applies the given command to its run, ignoring commands that make no
+	 * sense in the current state of the run.
+	 *
+	 * @param   command - the command to apply.
+	 * @return  the transition actually applied to the run, which is one of
+	 *          the types of command directly mapped to a method of the run,
+	 *          or {@code null} if the command was ignored.
+	 */
+	private Command.Type execute(Command command) {
+		Run run = command.run;
+		Run.State state = run.getState();
+		long time = command.time;
+
+		switch (command.type) {
+			case SPLIT:
+				if (state == Run.State.ONGOING) {
+					run.split(time);
+					return Command.Type.SPLIT;
+				} else if (state == Run.State.READY) {
+					run.start(time);
+					return Command.Type.START;
+				} else if (state == Run.State.PAUSED && run.isSegmented()) {
+					run.resume(time);
+					return Command.Type.RESUME;
+				}
+				break;
+			case SERVER_SPLIT:
+				if (state == Run.State.ONGOING) {
+					run.split(time);
+					return Command.Type.SPLIT;
+				} else if (state == Run.State.PAUSED && run.isSegmented()) {
+					run.resume(time);
+					return Command.Type.RESUME;
+				}
+				break;
+			case START:
+				if (state == Run.State.READY || state == Run.State.STOPPED
+						|| state == Run.State.PAUSED) {
+					run.start(time);
+					return Command.Type.START;
+				}
+				break;
+			case PAUSE:
+				if (state == Run.State.ONGOING) {
+					run.pause(time);
+					return Command.Type.PAUSE;
+				}
+				break;
+			case RESUME:
+				if (state == Run.State.PAUSED) {
+					run.resume(time);
+					return Command.Type.RESUME;
+				}
+				break;
+			case TOGGLE_PAUSE:
+				if (state == Run.State.ONGOING) {
+					run.pause(time);
+					return Command.Type.PAUSE;
+				} else if (state == Run.State.PAUSED) {
+					run.resume(time);
+					return Command.Type.RESUME;
+				}
+				break;
+			case STOP:
+				if (state == Run.State.ONGOING) {
+					run.stop();
+					return Command.Type.STOP;
+				}
+				break;
+			case RESET:
+				if (state != Run.State.NULL) {
+					run.reset();
+					return Command.Type.RESET;
+				}
+				break;
+			case SAVE_AND_RESET:
+				if (state != Run.State.NULL) {
+					run.saveLiveTimes(!run.isPersonalBest());
+					run.reset();
+					return Command.Type.RESET;
+				}
+				break;
+			case UNSPLIT:
+				if (state == Run.State.ONGOING || state == Run.State.STOPPED) {
+					if (time - lastUnsplit > GHOST_DELAY) {
+						lastUnsplit = time;
+						run.unsplit();
+						return Command.Type.UNSPLIT;
+					}
+				}
+				break;
+			case SKIP:
+				if (state == Run.State.ONGOING) {
+					if (time - lastSkip > GHOST_DELAY) {
+						lastSkip = time;
+						run.skip();
+						return Command.Type.SKIP;
+					}
+				}
+				break;
+		}
+		return null;
+	}
+
+	/**
+	 * Records the given transition in the journal. An attempt is only
+	 * recorded if its run has a file, since restoring it needs said file.
+	 *
+	 * @param   run     - the run the transition was applied to.
+	 * @param   applied - the transition applied.
+	 * @param   time    - the time stamp of the transition.
+	 */
+	private void journal(Run run, Command.Type applied, long time) {
+		if (applied == Command.Type.START) {
+			AttemptLog log = run.getAttemptLog();
+			journaling = (log != null);
+			if (journaling) {
+				journal.begin(log.getRunFile(), time);
+			} else {
+				journal.clear();
+			}
+		} else if (applied == Command.Type.RESET) {
+			if (journaling) {
+				journal.clear();
+			}
+			journaling = false;
+			return;
+		}
+		if (journaling) {
+			journal.record(applied, time);
+		}
+	}
+
+	// ---------------------------------------------------------- INTERNAL TYPE
+
+	/**
+	 * A command submitted to the core. Commands are immutable so that they
+	 * can be safely handed from one thread to another.
+	 */
+	static final class Command {
+
+		/**
+		 * Enumeration of the commands understood by the core. Each command
+		 * has a code identifying it in the {@link LiveJournal}, which must
+		 * never change nor be reused, whatever the order of the commands.
+		 */
+		enum Type {
+			/**
+			 * Splits, starts a ready run or resumes a paused segmented run.
+			 */
+			SPLIT(0),
+
+			/**
+			 * Splits or resumes a paused segmented run, but never starts it.
+			 */
+			SERVER_SPLIT(1),
+
+			START(2),
+
+			PAUSE(3),
+
+			RESUME(4),
+
+			/**
+			 * Pauses an on-going run or resumes a paused one.
+			 */
+			TOGGLE_PAUSE(5),
+
+			STOP(6),
+
+			RESET(7),
+
+			UNSPLIT(8),
+
+			SKIP(9),
+
+			/**
+			 * Saves the live times as the registered times of the run, the
+			 * whole run if it is a personal best or only the best segments
+			 * otherwise, and resets it.
+			 */
+			SAVE_AND_RESET(10),
+
+			/**
+			 * Leaves the run untouched, only calling back once the commands
+			 * submitted before have been processed.
+			 */
+			SYNC(11);
+
+			private static final Type[] BY_CODE;
+
+			static {
+				int max = 0;
+				for (Type type : values()) {
+					max = Math.max(max, type.code);
+				}
+				BY_CODE = new Type[max + 1];
+				for (Type type : values()) {
+					if (BY_CODE[type.code] != null) {
+						throw new AssertionError("duplicate code " + type.code);
+					}
+					BY_CODE[type.code] = type;
+				}
+			}
+
+			private final int code;
+
+			private Type(int code) {
+				this.code = code;
+			}
+
+			/**
+			 * Returns the code identifying this command in the journal.
+			 *
+			 * @return  the code of this command.
+			 */
+			int getCode() {
+				return code;
+			}
+
+			/**
+			 * Returns the command of given code.
+			 *
+			 * @param   code    - the code of a command.
+			 * @return  the command of given code, or {@code null} if no
+			 *          command has this code.
+			 */
+			static Type fromCode(int code) {
+				if (code < 0 || code >= BY_CODE.length) {
+					return null;
+				}
+				return BY_CODE[code];
+			}
+		}
+
+		final Type type;
+
+		final long time;
+
+		final Run run;
+
+		final Callback callback;
+
+		Command(Type type, long time, Run run, Callback callback) {
+			this.type     = type;
+			this.time     = time;
+			this.run      = run;
+			this.callback = callback;
+		}
+	}
+
+	/**
+	 * Owner of the run driven by the core, which is the run commands apply
+	 * to when they are submitted.
+	 */
+	interface Owner {
+
+		/**
+		 * Returns the run currently opened.
+		 *
+		 * @return  the current run.
+		 */
+		Run getRun();
+	}
+
+	/**
+	 * Work to execute on the core thread once a command has been processed.
+	 * A callback is the only place other than the core itself where the run
+	 * can be read or written consistently, but it delays the commands that
+	 * follow and must therefore be short.
+	 */
+	interface Callback {
+
+		/**
+		 * Called on the core thread once the command has been processed.
+		 *
+		 * @param   run - the run the command was submitted for.
+		 */
+		void processed(Run run);
+	}
+}
@@ -6,11 +6,13 @@ import org.fenix.utils.UserSettings;
 import org.fenix.utils.config.Configuration;
 
 import java.awt.*;
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Stores the configuration of Llanfair. This class actually provides two levels
@@ -20,6 +22,11 @@ import java.util.Locale;
  * read from a run file and passed down by the main class. Local values have a
  * higher priority and thus are always used instead of global values if 
  * defined. This allows users to set properties on a per-run basis.
+ *
+ * <p>Each property is given a slot when created. The value of a property is
+ * resolved from the local and global configurations the first time it is
+ * requested, then read from its slot until the property is set or another run
+ * is opened.</p>
  * 
  * @author Xavier "Xunkar" Sencert
  * @version 1.3
@@ -70,6 +77,13 @@ public class Settings {
 	public static final Property<Integer> hotkeyStop = new Property<>( "hotkey.stop" );
 	public static final Property<Integer> hotkeyPause = new Property<>( "hotkey.pause" );
 	public static final Property<Integer> hotkeyLock = new Property<>( "hotkey.lock" );
+	public static final Property<Integer> altHotkeySplit = new Property<>( "hotkeyAlt.split" );
+	public static final Property<Integer> altHotkeyUnsplit = new Property<>( "hotkeyAlt.unsplit" );
+	public static final Property<Integer> altHotkeySkip = new Property<>( "hotkeyAlt.skip" );
+	public static final Property<Integer> altHotkeyReset = new Property<>( "hotkeyAlt.reset" );
+	public static final Property<Integer> altHotkeyStop = new Property<>( "hotkeyAlt.stop" );
+	public static final Property<Integer> altHotkeyPause = new Property<>( "hotkeyAlt.pause" );
+	public static final Property<Integer> altHotkeyLock = new Property<>( "hotkeyAlt.lock" );
 
 	/* HEADER properties */
 
@@ -126,6 +140,36 @@ public class Settings {
 	public static final Property<Boolean> footerShowSumOfBest = new Property<>( "footer.sumOfBest" );
 	public static final Property<Boolean> footerShowWorldRecord = new Property<>("footer.worldRecord");
 
+	/**
+	 * Marks the slot of a property whose value must be read again from the
+	 * configurations.
+	 */
+	private static final Object UNRESOLVED = new Object();
+
+	/**
+	 * The resolved value of each property, by slot. Also used as the lock
+	 * when resolving or setting a value.
+	 */
+	private static final AtomicReferenceArray<Object> values
+			= new AtomicReferenceArray<Object>( Property.P.size() );
+
+	static {
+		invalidate();
+	}
+
+	/**
+	 * Marks the value of a property written to a configuration as needing to
+	 * be read again, whoever wrote it. Registered with each configuration
+	 * before any other listener, so that the listeners notified after it read
+	 * the new value.
+	 */
+	private static final PropertyChangeListener INVALIDATOR
+			= new PropertyChangeListener() {
+		@Override public void propertyChange( PropertyChangeEvent event ) {
+			invalidate( event.getPropertyName() );
+		}
+	};
+
 	private static Configuration global = null;
 	private static Run run = null;
 
@@ -140,7 +184,14 @@ public class Settings {
 		if ( run == null ) {
 			throw new NullPointerException( "Null run" );
 		}
-		Settings.run = run;
+		synchronized ( values ) {
+			if ( Settings.run != null ) {
+				Settings.run.removeSettingChangeListener( INVALIDATOR );
+			}
+			Settings.run = run;
+			run.addSettingChangeListener( INVALIDATOR );
+			invalidate();
+		}
 	}
 
 	/**
@@ -198,9 +249,35 @@ public class Settings {
 	 */
 	private static void retrieve() {
 		global = Configuration.newInstance( new File(UserSettings.getSettingsPath() + File.separator + "llanfair.xml" ) );
+		global.addPropertyChangeListener( INVALIDATOR );
 		setDefaultValues();
 	}
 
+	/**
+	 * Marks the value of every property as needing to be read again from the
+	 * configurations.
+	 */
+	private static void invalidate() {
+		for ( int slot = 0; slot < values.length(); slot++ ) {
+			values.set( slot, UNRESOLVED );
+		}
+	}
+
+	/**
+	 * Marks the value of the property of given key as needing to be read
+	 * again from the configurations. The lock is taken so that a value being
+	 * resolved concurrently from the previous configuration is not kept.
+	 */
+	private static void invalidate( String key ) {
+		synchronized ( values ) {
+			for ( Property<?> property : Property.P ) {
+				if ( property.key.equals( key ) ) {
+					values.set( property.slot, UNRESOLVED );
+				}
+			}
+		}
+	}
+
 	private static void setDefault(String key, Object value, boolean force) {
 		if (force || !global.contains(key))
 			global.put(key, value);
@@ -251,6 +328,13 @@ public class Settings {
 		setDefault( hotkeyStop.key, -1, force );
 		setDefault( hotkeyPause.key, -1, force );
 		setDefault( hotkeyLock.key, -1, force );
+		setDefault( altHotkeySplit.key, -1, force );
+		setDefault( altHotkeyUnsplit.key, -1, force );
+		setDefault( altHotkeySkip.key, -1, force );
+		setDefault( altHotkeyReset.key, -1, force );
+		setDefault( altHotkeyStop.key, -1, force );
+		setDefault( altHotkeyPause.key, -1, force );
+		setDefault( altHotkeyLock.key, -1, force );
 
 		setDefault( headerShowSubtitle.key, true, force );
 		setDefault( headerShowTitle.key, true, force );
@@ -314,6 +398,11 @@ public class Settings {
 
 		private String key;
 
+		/**
+		 * Index of the resolved value of this property.
+		 */
+		private final int slot;
+
 		/**
 		 * Creates a new property of given key. If the key contains a dot, the
 		 * property name is interpreted as {@code section.key} allowing callers
@@ -324,6 +413,7 @@ public class Settings {
 		 */
 		private Property( String fullKey ) {
 			this.key = fullKey;
+			this.slot = P.size();
 			P.add( this );
 		}
 
@@ -341,19 +431,20 @@ public class Settings {
 		 * read from the local configuration, and if no value has been defined
 		 * for this property, it will be read from the global configuration. The
 		 * first property to call this method will trigger the global
-		 * configuration to be read and loaded in memory.
+		 * configuration to be read and loaded in memory. The value is then
+		 * kept until it is written to either configuration or the run
+		 * changes.
 		 *
 		 * @return the local value of this property, or the global one if there
 		 *  isn't a locally defined value
 		 */
+		@SuppressWarnings( "unchecked" )
 		public T get() {
-			if ( global == null ) {
-				retrieve();
+			Object value = values.get( slot );
+			if ( value == UNRESOLVED ) {
+				value = resolve();
 			}
-			if ( run != null && run.containsSetting( key ) ) {
-				return run.getSetting(key);
-			}
-			return global.get(key);
+			return ( T ) value;
 		}
 
 		/**
@@ -374,6 +465,9 @@ public class Settings {
 		 * @param locally if the value must be stored in the local configuration
 		 */
 		public void set( T value, boolean locally ) {
+			// The slot is invalidated by the first listener of the
+			// configuration, so the lock is not held while notifying the
+			// other listeners.
 			if ( locally ) {
 				run.putSetting( key, value );
 			} else {
@@ -381,6 +475,28 @@ public class Settings {
 			}
 		}
 
+		/**
+		 * Reads the value of this property from the configurations and stores
+		 * it in its slot.
+		 */
+		private Object resolve() {
+			synchronized ( values ) {
+				Object value = values.get( slot );
+				if ( value == UNRESOLVED ) {
+					if ( global == null ) {
+						retrieve();
+					}
+					if ( run != null && run.containsSetting( key ) ) {
+						value = run.getSetting( key );
+					} else {
+						value = global.get( key );
+					}
+					values.set( slot, value );
+				}
+				return value;
+			}
+		}
+
 		/**
 		 * Compares a property to a given string. This property is equal to
 		 * the given string if and only if the string is equal to the full key
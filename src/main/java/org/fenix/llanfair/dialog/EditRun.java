@@ -179,11 +179,14 @@ implements ActionListener, ListSelectionListener {
 		recordCategory = run.getRecordCategory();
 
 		if(!recordCategory.getId().equals("")) {
-			try {
-				recordString = new JLabel(WorldRecordParser.getRecord(recordCategory));
-			} catch(Exception e) {
-				this.master.showError("Error displaying selected world record information.", e);
-			}
+			recordString = new JLabel(WorldRecordService.getInstance().getRecord(
+					recordCategory, new WorldRecordService.Listener() {
+				@Override public void recordFetched(Category category, String record) {
+					if (category.getId().equals(recordCategory.getId())) {
+						recordString.setText(record);
+					}
+				}
+			}));
 		}
 		else {
 			recordString = new JLabel();
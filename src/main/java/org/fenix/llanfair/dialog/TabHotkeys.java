@@ -1,5 +1,6 @@
 package org.fenix.llanfair.dialog;
 
+import org.fenix.llanfair.HotkeyTable;
 import org.fenix.llanfair.Language;
 import org.fenix.llanfair.config.Settings;
 import org.fenix.utils.gui.GBC;
@@ -28,16 +29,29 @@ class TabHotkeys extends SettingsTab {
 	 */
 	private List<KeyField> keyFields;
 
+	/**
+	 * List of the key fields of the alternate binding of each hotkey, in the
+	 * same order as {@code keyFields}.
+	 */
+	private List<KeyField> altKeyFields;
+
 	/**
 	 * List of labels displaying the name of each key field.
 	 */
 	private List<JLabel> keyLabels;
 
+	/**
+	 * Header of the column of alternate key fields.
+	 */
+	private JLabel altKeyHeader;
+
 	// ----------------------------------------------------------- CONSTRUCTORS
 
 	/**
 	 * Creates the "Hotkeys" settings tab. Only called by {@link EditSettings}.
+	 * Every hotkey setting holds an {@code Integer} binding.
 	 */
+	@SuppressWarnings("unchecked")
 	TabHotkeys() {
 		final Component that = this;
 
@@ -48,17 +62,25 @@ class TabHotkeys extends SettingsTab {
 			public void actionPerformed(ActionEvent e) { Settings.useGlobalHotkeys.set(globalHotKeys.isSelected()); }
 		});
 
-		keyFields = new ArrayList<KeyField>();
-		keyLabels = new ArrayList<JLabel>();
+		keyFields    = new ArrayList<KeyField>();
+		altKeyFields = new ArrayList<KeyField>();
+		keyLabels    = new ArrayList<JLabel>();
+		altKeyHeader = new JLabel("" + Language.ALTERNATE_HOTKEY);
 
 		int index = 0;
-		for (Settings.Property<?> setting : Settings.getAll("hotkey")) {
+		for (Settings.Property<?> setting : Settings.getAll("hotkey.")) {
 			keyFields.add(new KeyField(
 					index, (Settings.Property<Integer>) setting)
 			);
 			keyLabels.add(new JLabel("" + setting));
 			index++;
 		}
+		for (Settings.Property<?> setting : Settings.getAll("hotkeyAlt.")) {
+			altKeyFields.add(new KeyField(
+					index, (Settings.Property<Integer>) setting)
+			);
+			index++;
+		}
 
 		place();
 	}
@@ -82,16 +104,18 @@ class TabHotkeys extends SettingsTab {
 	private void place() {
 		setLayout(new GridBagLayout());
 
-		int row;
-		for (row = 0; row < keyFields.size(); row++) {
+		add(altKeyHeader, GBC.grid(2, 0).insets(0, 5, 0, 0));
+		for (int i = 0; i < keyFields.size(); i++) {
+			int row = i + 1;
 			add(
-					keyLabels.get(row),
+					keyLabels.get(i),
 					GBC.grid(0, row).insets(10, 0, 10, 10).anchor(GBC.LINE_END)
 			);
-			add(keyFields.get(row), GBC.grid(1, row));
+			add(keyFields.get(i), GBC.grid(1, row));
+			add(altKeyFields.get(i), GBC.grid(2, row).insets(0, 5, 0, 0));
 		}
 
-		add(globalHotKeys, GBC.grid(2, 3).insets(0, 50, 0, 0).anchor(GBC.LINE_START));
+		add(globalHotKeys, GBC.grid(3, 4).insets(0, 50, 0, 0).anchor(GBC.LINE_START));
 	}
 
 	// --------------------------------------------------------- INTERNAL TYPES
@@ -99,7 +123,8 @@ class TabHotkeys extends SettingsTab {
 	/**
 	 * A text field representing a hotkey setting. Clicking such field allows
 	 * the user to define a key for this particular setting, using the tables
-	 * from {@code JNativeHook}.
+	 * from {@code JNativeHook}. The key can be held with modifiers to define
+	 * a chord.
 	 *
 	 * @author  Xavier "Xunkar" Sencert
 	 */
@@ -146,8 +171,9 @@ class TabHotkeys extends SettingsTab {
 			setName(setting.getKey());
 			setPreferredSize(SIZE);
 			setHorizontalAlignment(CENTER);
-			String text = NativeKeyEvent.getKeyText(setting.get());
-			setText(setting.get() == -1 ? "" + Language.DISABLED : text);
+			int binding = setting.get();
+			setText(binding == HotkeyTable.DISABLED
+					? "" + Language.DISABLED : HotkeyTable.getText(binding));
 
 			originalBgColor = getBackground();
 
@@ -185,7 +211,7 @@ class TabHotkeys extends SettingsTab {
 
 		private void setKey(int code, String keyText) {
 			setting.set(code);
-			if (code == -1)
+			if (code == HotkeyTable.DISABLED)
 				setText("" + Language.DISABLED);
 			else
 				setText(keyText);
@@ -215,19 +241,26 @@ class TabHotkeys extends SettingsTab {
 		public void mouseReleased(MouseEvent event) {}
 
 		/**
-		 * When a key is pressed we set the captured key as the new value
-		 * for the setting we represent. If escape is pressed, the hotkey
-		 * becomes disabled. After registering the update, we no longer
-		 * listen for native key events.
+		 * When a key is pressed we set the captured key, along with the
+		 * modifiers held, as the new value for the setting we represent.
+		 * Modifier keys alone are ignored so that chords can be captured. If
+		 * escape is pressed, the hotkey becomes disabled. After registering
+		 * the update, we no longer listen for native key events.
 		 */
 		public void nativeKeyPressed(NativeKeyEvent event) {
 			int    code = event.getKeyCode();
 			String text = null;
 
+			if (HotkeyTable.isModifierKey(code))
+				return;
+
 			if (code == NativeKeyEvent.VC_ESCAPE)
-				code = -1;
-			else
-				text = NativeKeyEvent.getKeyText(code);
+				code = HotkeyTable.DISABLED;
+			else {
+				code = HotkeyTable.encode(code,
+						HotkeyTable.getModifiers(event.getModifiers()));
+				text = HotkeyTable.getText(code);
+			}
 
 			setKey(code, text);
 			enableKeyListening(false);
@@ -2,6 +2,7 @@ package org.fenix.llanfair.gui;
 
 import org.fenix.llanfair.*;
 import org.fenix.llanfair.Run.State;
+import org.fenix.llanfair.config.Accuracy;
 import org.fenix.llanfair.config.Settings;
 import org.fenix.utils.Images;
 import org.fenix.utils.gui.GBC;
@@ -13,6 +14,7 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 
 /**
  * Core panel displaying the main informations for a run, namely: the run and 
@@ -57,10 +59,9 @@ class Core extends JPanel implements ActionListener {
 	private static final int MIN_WIDTH = 50;
 
 	/**
-	 * Dummy object used so we can get a string format for zero time instead of new'ing up
-	 * a Time object each time.
+	 * Number of nanoseconds between two blinks of the timer while paused.
 	 */
-	private static final Time zeroTime = new Time(0);
+	private static final long BLINK_DELAY = 400L * Clock.NANOS_PER_MILLI;
 
 	// ------------------------------------------------------------- ATTRIBUTES
 
@@ -70,20 +71,51 @@ class Core extends JPanel implements ActionListener {
 	private Run run;
 
 	/**
-	 * Thread updating the value of the timers and repainting them every
-	 * hundredth of a second.
+	 * Snapshot of the run as of the last event handled, from which the state
+	 * and the registered times are read. The timers read the latest snapshot
+	 * of the run instead, on every frame.
 	 */
-	private Timer timer;
+	private Run.Snapshot snapshot;
+
+	/**
+	 * Updates requested by the property change events, applied once the
+	 * burst of events they belong to has been processed.
+	 */
+	private final UpdateScheduler updates = new UpdateScheduler(
+			"core", new UpdateScheduler.Updates() {
+		@Override public void updateFonts(int identifier) {
+			Core.this.updateFonts(identifier);
+		}
+		@Override public void updateVisibility(int identifier) {
+			Core.this.updateVisibility(identifier);
+		}
+		@Override public void updateValues(int identifier) {
+			Core.this.updateValues(identifier);
+		}
+		@Override public void updateColors(int identifier) {
+			Core.this.updateColors(identifier);
+		}
+		@Override public void updateSize() {
+			Core.this.updateSize();
+			Core.this.forceResize();
+		}
+	});
+
+	/**
+	 * Scheduler updating the value of the timers and repainting them
+	 * whenever their display changes.
+	 */
+	private FrameScheduler timer;
 
 	/**
 	 * Label displaying the main timer, timing the whole run.
 	 */
-	private JLabel splitTimer;
+	private TimerLabel splitTimer;
 
 	/**
 	 * Label displaying the segment timer, timing the current segment.
 	 */
-	private JLabel segmentTimer;
+	private TimerLabel segmentTimer;
 
 	/**
 	 * Label displaying the name of the current segment.
@@ -118,9 +150,37 @@ class Core extends JPanel implements ActionListener {
 	private Time segmentTime;
 
 	/**
-	 * Time when the run was paused, if it was.
+	 * Registered split time of the current segment in nanoseconds, or
+	 * {@code Long.MAX_VALUE} if undefined.
+	 */
+	private long splitNanos;
+
+	/**
+	 * Registered segment time of the current segment in nanoseconds, or
+	 * {@code Long.MAX_VALUE} if undefined.
 	 */
-	private Time pauseTime;
+	private long segmentNanos;
+
+	/**
+	 * Text displayed by the main timer, reused on every tick.
+	 */
+	private final TimerText splitText;
+
+	/**
+	 * Text displayed by the segment timer, reused on every tick.
+	 */
+	private final TimerText segmentText;
+
+	/**
+	 * Accuracy of the timers, cached to avoid reading the settings on every
+	 * tick.
+	 */
+	private Accuracy accuracy;
+
+	private Color colorTimer;
+	private Color colorNegativeTime;
+	private Color colorTimeLost;
+	private Color colorBackground;
 
 	/**
 	 * Flag indicating wether or not the split time for the current segment
@@ -158,9 +218,9 @@ class Core extends JPanel implements ActionListener {
 	 * @param   run - the run to represent.
 	 */
 	Core(Run run) {
-		timer         = new Timer(10, this);
-		splitTimer    = new JLabel();
-		segmentTimer  = new JLabel();
+		timer         = new FrameScheduler("core", this, this);
+		splitTimer    = new TimerLabel();
+		segmentTimer  = new TimerLabel();
 		name          = new JLabel();
 		icon          = new JLabel();
 		split         = new JLabel();
@@ -169,6 +229,10 @@ class Core extends JPanel implements ActionListener {
 		labelSplit    = new JLabel("" + Language.LB_CR_SPLIT);
 		labelSegment  = new JLabel("" + Language.LB_CR_SEGMENT);
 		labelBest     = new JLabel("" + Language.LB_CR_BEST);
+		splitText     = new TimerText();
+		segmentText   = new TimerText();
+		splitNanos    = Long.MAX_VALUE;
+		segmentNanos  = Long.MAX_VALUE;
 		blinkTime     = 0L;
 		preferredSize = null;
 		resize        = false;
@@ -192,6 +256,9 @@ class Core extends JPanel implements ActionListener {
 	 */
 	final void setRun(Run run) {
 		this.run = run;
+		snapshot = run.getSnapshot();
+		accuracy = Settings.accuracy.get();
+		cacheIcons();
 		updateValues(ALL);
 		updateVisibility(ALL);
 		updateColors(ALL);
@@ -216,12 +283,10 @@ class Core extends JPanel implements ActionListener {
 			Graphics graphics = getGraphics();
 			if (graphics != null) {
 				Time tmFake = new Time(600000L);
-				Time tmRun  = run.getTime(Segment.SET);
+				Time tmRun  = snapshot.getTime(Segment.SET);
 
 				FontMetrics coreFontMetric = graphics.getFontMetrics(Settings.coreFont.get());
 				FontMetrics coreOtherTimeFontMetric = graphics.getFontMetrics(Settings.coreOtherTimeFont.get());
-				FontMetrics coreTimerFontMetric = graphics.getFontMetrics(Settings.coreTimerFont.get());
-				FontMetrics coreSegmentTimerFontMetric = graphics.getFontMetrics(Settings.coreSegmentTimerFont.get());
 
 				// Segment Name
 				int segmentNameWidth = 0;
@@ -260,16 +325,20 @@ class Core extends JPanel implements ActionListener {
 					iconHeight = Settings.coreIconSize.get();
 					iconWidth = iconHeight;   // always assume square icon size (will be scaled as such)
 				}
-				// Run Timer
-				int splitTimerWidth = coreTimerFontMetric.stringWidth("" + (tmRun == null ? tmFake : tmRun));
-				int splitTimerHeight = coreTimerFontMetric.getHeight();
+				// Run Timer, measured by its label whose digits all take the
+				// width of the widest one
+				String timerText = "" + (tmRun == null ? tmFake : tmRun);
+				Dimension splitTimerSize = splitTimer.getPreferredSize(timerText);
+				int splitTimerWidth = splitTimerSize.width;
+				int splitTimerHeight = splitTimerSize.height;
 
 				// Segment Timer
 				int segmentTimerWidth = 0;
 				int segmentTimerHeight = 0;
 				if (Settings.coreShowSegmentTimer.get()) {
-					segmentTimerWidth = coreSegmentTimerFontMetric.stringWidth("" + (tmRun == null ? tmFake : tmRun));
-					segmentTimerHeight = coreSegmentTimerFontMetric.getHeight();
+					Dimension segmentTimerSize = segmentTimer.getPreferredSize(timerText);
+					segmentTimerWidth = segmentTimerSize.width;
+					segmentTimerHeight = segmentTimerSize.height;
 				}
 
 				int maxHeight = Math.max(iconHeight, splitTimerHeight + segmentTimerHeight);
@@ -288,70 +357,105 @@ class Core extends JPanel implements ActionListener {
 	// -------------------------------------------------------------- CALLBACKS
 
 	/**
-	 * Callback invoked by the updater thread {@code timer}. Every hundredth
-	 * of a second we update the values of the timers and change their color
-	 * if we’ve reached a loss of time.
+	 * Callback invoked by the frame scheduler {@code timer}. We update the
+	 * values of the timers and change their color if we’ve reached a loss of
+	 * time, then schedule the next frame for the next time one of the timers
+	 * changes: the next visible digit change at the configured accuracy, a
+	 * loss of time or a blink. This method does not allocate unless the text
+	 * of a timer changes.
 	 */
 	@Override public synchronized void actionPerformed(ActionEvent event) {
-		long now            = System.currentTimeMillis();
-		Segment current     = run.getSegment(run.getCurrent());
-
-		long pause          = run.getPauseTime();
-
-//		System.out.println("PAUSE: " + pause);
-
-		Time splitElapsed;
-		Time segmentElapsed;
-
-//		if(pause != 0L && Llanfair.isServerStarted()) {
-//			splitElapsed = new Time(now + pause - run.getStartTime());
-//			segmentElapsed = new Time(now + pause - current.getStartTime());
-//		}
-//		else {
-			splitElapsed = new Time(now - run.getStartTime());
-			segmentElapsed = new Time(now - current.getStartTime());
-//		}
-
-
-		if (splitElapsed.getMilliseconds() < 0)
-			splitTimer.setForeground(Settings.colorNegativeTime.get());
-		else
-			splitTimer.setForeground(Settings.colorTimer.get());
-
-		if (run.getState().equals(State.PAUSED)) {
-			splitTimer.setText("" + pauseTime);
-			if (blinkTime == 0L || now - blinkTime >= 400L) {
-				Color bg = Settings.colorBackground.get();
-				if (splitTimer.getForeground().equals(bg)) {
-					if (pauseTime.compareTo(splitTime) > 0) {
-						splitTimer.setForeground(Settings.colorTimeLostWhileBehind.get());
+		long now            = Clock.get().nanoTime();
+		Run.Snapshot state  = run.getSnapshot();
+		long splitElapsed   = now - state.getStartTime();
+		long segmentElapsed = now - state.getSegmentStartTime();
+		boolean changed     = false;
+		long    next;
+
+		if (state.getState() == State.PAUSED) {
+			long pauseTime = state.getLastPauseTimeStamp() - state.getStartTime();
+			changed |= updateText(splitTimer, splitText, Math.abs(pauseTime));
+			if (blinkTime == 0L || now - blinkTime >= BLINK_DELAY) {
+				if (splitTimer.getForeground() == colorBackground) {
+					if (pauseTime > splitNanos) {
+						changed |= setForeground(splitTimer, colorTimeLost);
 					} else {
-						splitTimer.setForeground(Settings.colorTimer.get());
+						changed |= setForeground(splitTimer, colorTimer);
 					}
 				} else {
-					splitTimer.setForeground(bg);
+					changed |= setForeground(splitTimer, colorBackground);
 				}
 				blinkTime = now;
 			}
+			next = BLINK_DELAY - (now - blinkTime);
 		} else {
-			if (splitElapsed.getMilliseconds() < 0) {
-				splitTimer.setText("-" + splitElapsed);
-				segmentTimer.setText("" + zeroTime);
+			if (splitElapsed < 0L) {
+				changed |= updateText(splitTimer, splitText, splitElapsed);
+				changed |= updateText(segmentTimer, segmentText, 0L);
+				changed |= setForeground(splitTimer, colorNegativeTime);
+				next = Time.getNanosToNextUnit(splitElapsed, accuracy);
 			} else {
-				splitTimer.setText("" + splitElapsed);
-				segmentTimer.setText("" + segmentElapsed);
-			}
+				changed |= updateText(splitTimer, splitText, splitElapsed);
+				changed |= updateText(segmentTimer, segmentText, segmentElapsed);
+				if (!splitLoss && splitElapsed > splitNanos) {
+					splitLoss = true;
+				}
+				changed |= setForeground(splitTimer, splitLoss ? colorTimeLost : colorTimer);
 
-			if (!splitLoss && splitElapsed.compareTo(splitTime) > 0) {
-				splitLoss = true;
-				splitTimer.setForeground(Settings.colorTimeLostWhileBehind.get());
+				next = Time.getNanosToNextUnit(splitElapsed, accuracy);
+				if (segmentTimer.isVisible()) {
+					next = Math.min(next,
+							Time.getNanosToNextUnit(segmentElapsed, accuracy));
+				}
+				if (!splitLoss && splitNanos != Long.MAX_VALUE) {
+					next = Math.min(next, splitNanos - splitElapsed + 1L);
+				}
+				if (!segmentLoss && segmentNanos != Long.MAX_VALUE
+						&& segmentElapsed <= segmentNanos) {
+					next = Math.min(next, segmentNanos - segmentElapsed + 1L);
+				}
 			}
-			if (!segmentLoss && segmentElapsed.compareTo(segmentTime) > 0) {
+			if (!segmentLoss && segmentElapsed > segmentNanos) {
 				segmentLoss = true;
-				segmentTimer.setForeground(Settings.colorTimeLostWhileBehind.get());
+				changed |= setForeground(segmentTimer, colorTimeLost);
 			}
 		}
-		Toolkit.getDefaultToolkit().sync();
+		if (changed) {
+			Toolkit.getDefaultToolkit().sync();
+		}
+		// The run may have stopped since this frame was scheduled.
+		if (state.getState() == State.ONGOING
+				|| state.getState() == State.PAUSED) {
+			timer.schedule(next);
+		}
+	}
+
+	/**
+	 * Subscribes this component to the properties it displays, so that the
+	 * dispatcher only calls {@link #processPropertyChangeEvent} for those.
+	 *
+	 * @param   dispatcher  - the dispatcher of the property change events.
+	 */
+	void subscribe(PropertyDispatcher dispatcher) {
+		PropertyChangeListener listener = new PropertyChangeListener() {
+			@Override public void propertyChange(PropertyChangeEvent event) {
+				processPropertyChangeEvent(event);
+			}
+		};
+		dispatcher.subscribe(listener,
+				Run.STATE_PROPERTY, Run.CURRENT_SEGMENT_PROPERTY,
+				Run.DELAYED_START_PROPERTY);
+		dispatcher.subscribe(listener,
+				Settings.colorForeground, Settings.colorTime, Settings.colorTimer,
+				Settings.colorNegativeTime, Settings.colorTimeLostWhileBehind,
+				Settings.colorBackground, Settings.compareMethod,
+				Settings.accuracy, Settings.coreShowBestTime,
+				Settings.coreShowSegmentTime, Settings.coreShowSplitTime,
+				Settings.coreShowSegmentName, Settings.coreIconSize,
+				Settings.coreTimerFont, Settings.coreSegmentTimerFont,
+				Settings.coreShowSegmentTimer, Settings.coreShowIcons,
+				Settings.coreFont, Settings.coreOtherTimeFont,
+				Settings.windowUserResizable, Settings.windowWidth);
 	}
 
 	/**
@@ -361,68 +465,70 @@ class Core extends JPanel implements ActionListener {
 	 * @param   event   - the event describing the update.
 	 */
 	void processPropertyChangeEvent(PropertyChangeEvent event) {
+		if (event instanceof Run.Event && event.getSource() == run) {
+			snapshot = ((Run.Event) event).getSnapshot();
+		}
 		String property = event.getPropertyName();
-		long pause = run.getPauseTime();
 		if (Run.STATE_PROPERTY.equals(property)) {
-			updateValues(ALL);
-			updateVisibility(TIME);
-			if (run.getState().equals(State.PAUSED)) {
-				long now  = System.currentTimeMillis();
-//				if(pause != 0L && Llanfair.isServerStarted()) {
-//					pauseTime = new Time(now + pause - run.getStartTime());
-//				}
-				pauseTime = new Time(now - run.getStartTime());
-			} else {
-				updateColors(TIMER);
+			updates.updateValues(ALL);
+			updates.updateVisibility(TIME);
+			if (snapshot.getState() != State.PAUSED) {
+				updates.updateColors(TIMER);
 			}
 		} else if (Run.CURRENT_SEGMENT_PROPERTY.equals(property)) {
-			updateValues(ALL & ~TIMER);
-			updateColors(TIMER);
+			updates.updateValues(ALL & ~TIMER);
+			updates.updateColors(TIMER);
 		} else if (Run.DELAYED_START_PROPERTY.equals(property)) {
-			updateValues(TIMER);
-			updateColors(TIMER);
+			updates.updateValues(TIMER);
+			updates.updateColors(TIMER);
 		} else if (Settings.colorForeground.equals(property)) {
-			updateColors(NAME);
+			updates.updateColors(NAME);
 		} else if (Settings.colorTime.equals(property)) {
-			updateColors(TIME);
-		} else if (Settings.colorTimer.equals(property)) {
-			updateColors(TIMER);
+			updates.updateColors(TIME);
+		} else if (Settings.colorTimer.equals(property)
+				|| Settings.colorNegativeTime.equals(property)
+				|| Settings.colorTimeLostWhileBehind.equals(property)
+				|| Settings.colorBackground.equals(property)) {
+			updates.updateColors(TIMER);
 		} else if (Settings.compareMethod.equals(property)) {
-			updateValues(TIME);
-			updateColors(TIMER);
-			forceResize();
+			updates.updateValues(TIME);
+			updates.updateColors(TIMER);
+			updates.updateSize();
 		} else if (Settings.accuracy.equals(property)) {
-			updateValues(TIME | TIMER);
-			forceResize();
+			accuracy = Settings.accuracy.get();
+			updates.updateValues(TIME | TIMER);
+			updates.updateSize();
 		} else if (Settings.coreShowBestTime.equals(property)
 				|| Settings.coreShowSegmentTime.equals(property)
 				|| Settings.coreShowSplitTime.equals(property)) {
-			updateVisibility(TIME);
-			forceResize();
+			updates.updateVisibility(TIME);
+			updates.updateSize();
 		} else if (Settings.coreShowSegmentName.equals(property)) {
-			updateVisibility(NAME);
-			forceResize();
+			updates.updateVisibility(NAME);
+			updates.updateSize();
 		} else if (Settings.coreIconSize.equals(property)) {
-			forceResize();
+			cacheIcons();
+			updates.updateValues(ICON);
+			updates.updateSize();
 		} else if (Settings.coreTimerFont.equals(property)
 				|| Settings.coreSegmentTimerFont.equals(property)) {
-			updateFonts(TIMER);
-			forceResize();
+			updates.updateFonts(TIMER);
+			updates.updateSize();
 		} else if (Settings.coreShowSegmentTimer.equals(property)) {
-			updateVisibility(TIMER);
-			forceResize();
+			updates.updateVisibility(TIMER);
+			updates.updateSize();
 		} else if (Settings.coreShowIcons.equals(property)) {
-			updateVisibility(ICON);
-			forceResize();
+			cacheIcons();
+			updates.updateVisibility(ICON);
+			updates.updateSize();
 		} else if (Settings.coreFont.equals(property)) {
-			updateFonts(NAME);
-			forceResize();
+			updates.updateFonts(NAME);
+			updates.updateSize();
 		} else if (Settings.coreOtherTimeFont.equals(property)) {
-			updateFonts(TIME);
-			forceResize();
+			updates.updateFonts(TIME);
+			updates.updateSize();
 		} else if (Settings.windowUserResizable.equals(property) || Settings.windowWidth.equals(property)) {
-			updateSize();
-			forceResize();
+			updates.updateSize();
 		}
 	}
 
@@ -430,6 +536,22 @@ class Core extends JPanel implements ActionListener {
 		resize = true;
 		revalidate();
 	}
+
+	/**
+	 * Rescales the icons of every segment in advance, so that moving to the
+	 * next segment finds its icon in the cache.
+	 */
+	private void cacheIcons() {
+		if (Settings.coreShowIcons.get()) {
+			int iconSize = Settings.coreIconSize.get();
+			for (int i = 0; i < run.getRowCount(); i++) {
+				ImageIcon img = run.getSegment(i).getIcon();
+				if (img != null) {
+					Images.getScaled(img, iconSize);
+				}
+			}
+		}
+	}
 	/**
 	 * Callback invoked by the parent when the run table of segments is
 	 * updated.
@@ -437,6 +559,8 @@ class Core extends JPanel implements ActionListener {
 	 * @param   event   - the event describing the update.
 	 */
 	void processTableModelEvent(TableModelEvent event) {
+		snapshot = run.getSnapshot();
+		cacheIcons();
 		resize = true;
 	}
 
@@ -495,7 +619,7 @@ class Core extends JPanel implements ActionListener {
 			name.setVisible(Settings.coreShowSegmentName.get());
 		}
 		if ((identifier & TIME) == TIME) {
-			State   state   = run.getState();
+			State   state   = snapshot.getState();
 			boolean visible = (state == State.ONGOING || state == State.PAUSED);
 			split.setVisible(Settings.coreShowSplitTime.get());
 			labelSplit.setVisible(visible && Settings.coreShowSplitTime.get());
@@ -519,9 +643,9 @@ class Core extends JPanel implements ActionListener {
 	 * @param   identifier  - one of the constant update identifier.
 	 */
 	private void updateValues(int identifier) {
-		State   state      = run.getState();
+		State   state      = snapshot.getState();
 		boolean hasCurrent = (state == State.ONGOING || state == State.PAUSED);
-		int     currentIdx = run.getCurrent();
+		int     currentIdx = snapshot.getCurrent();
 		Segment currentSgt = null;
 
 		if (hasCurrent) {
@@ -531,12 +655,16 @@ class Core extends JPanel implements ActionListener {
 			if (hasCurrent) {
 				splitLoss   = false;
 				segmentLoss = false;
-				splitTime   = run.getTime(currentIdx, Segment.SET);
-				segmentTime = currentSgt.getTime(Segment.SET);
+				splitTime   = snapshot.getTime(currentIdx, Segment.SET);
+				segmentTime = snapshot.getSegmentTime(currentIdx, Segment.SET);
+				splitNanos  = (splitTime == null ? Long.MAX_VALUE : splitTime.getNanoseconds());
+				segmentNanos = (segmentTime == null ? Long.MAX_VALUE : segmentTime.getNanoseconds());
 				split.setText("" + (splitTime == null ? "?" : splitTime));
 				segment.setText("" + (segmentTime == null ? "?" : segmentTime));
-				Time bestTime = currentSgt.getTime(Segment.BEST);
+				Time bestTime = snapshot.getSegmentTime(currentIdx, Segment.BEST);
 				best.setText("" + (bestTime == null ? "?" : bestTime));
+				// The scheduled frame waits for the previous thresholds
+				timer.restart();
 			} else {
 				split.setText("");
 				segment.setText("");
@@ -555,7 +683,7 @@ class Core extends JPanel implements ActionListener {
 				ImageIcon img = currentSgt.getIcon();
 				if (img != null) {
 					icon.setIcon(
-							Images.rescale(img, Settings.coreIconSize.get()));
+							Images.getScaled(img, Settings.coreIconSize.get()));
 				} else {
 					icon.setIcon(null);
 				}
@@ -565,12 +693,14 @@ class Core extends JPanel implements ActionListener {
 		}
 		if ((identifier & TIMER) == TIMER) {
 			synchronized (this) {
+				splitText.invalidate();
+				segmentText.invalidate();
 				if (state == State.STOPPED) {
 					timer.stop();
 					splitLoss   = false;
 					segmentLoss = false;
 					segmentTimer.setText("");
-					Time time = run.getTime(Segment.LIVE);
+					Time time = snapshot.getTime(Segment.LIVE);
 					splitTimer.setText("" + (time == null ? Language.RUN_STOPPED : time));
 				} else if (state == State.NULL) {
 					splitTimer.setText("" + Language.RUN_NULL);
@@ -582,7 +712,7 @@ class Core extends JPanel implements ActionListener {
 					String timeString = getLiveTimeString();
 					splitTimer.setText("" + (timeString == null ? Language.RUN_READY : timeString));
 					segmentTimer.setText("");
-				} else if (state == State.ONGOING) {
+				} else if (state == State.ONGOING || state == State.PAUSED) {
 					timer.restart();
 				}
 			}
@@ -611,8 +741,12 @@ class Core extends JPanel implements ActionListener {
 		}
 		if ((identifier & TIMER) == TIMER) {
 			synchronized (this) {
-				Color color = Settings.colorTimer.get();
-				if (isShowingNegativeTime() && run.getState() == State.READY)
+				colorTimer        = Settings.colorTimer.get();
+				colorNegativeTime = Settings.colorNegativeTime.get();
+				colorTimeLost     = Settings.colorTimeLostWhileBehind.get();
+				colorBackground   = Settings.colorBackground.get();
+				Color color = colorTimer;
+				if (isShowingNegativeTime() && snapshot.getState() == State.READY)
 					splitTimer.setForeground(Settings.colorNegativeTime.get());
 				else
 					splitTimer.setForeground(color);
@@ -647,9 +781,36 @@ class Core extends JPanel implements ActionListener {
 	private void updateSize() {
 	}
 
+	/**
+	 * Displays the given number of nanoseconds in the given timer label. The
+	 * label is only updated if the displayed text actually changes.
+	 *
+	 * @return  {@code true} if the text changed.
+	 */
+	private boolean updateText(TimerLabel label, TimerText text, long nanos) {
+		if (text.set(nanos, accuracy)) {
+			label.setText(text.getChars(), text.getLength());
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Sets the foreground color of the given label if it changed.
+	 *
+	 * @return  {@code true} if the color changed.
+	 */
+	private static boolean setForeground(JComponent label, Color color) {
+		if (label.getForeground() != color) {
+			label.setForeground(color);
+			return true;
+		}
+		return false;
+	}
+
 	private boolean isShowingNegativeTime() {
 		if (run != null) {
-			Time time = run.getTime(Segment.LIVE);
+			Time time = snapshot.getTime(Segment.LIVE);
 			if (time == null)
 				time = new Time(0 - run.getDelayedStart());
 
@@ -661,7 +822,7 @@ class Core extends JPanel implements ActionListener {
 
 	private String getLiveTimeString() {
 		if (run != null) {
-			Time time = run.getTime(Segment.LIVE);
+			Time time = snapshot.getTime(Segment.LIVE);
 			if (time == null)
 				time = new Time(0 - run.getDelayedStart());
 
@@ -1,6 +1,9 @@
 package org.fenix.llanfair.gui;
 
+import org.fenix.WorldRecord.Category;
+import org.fenix.WorldRecord.WorldRecordService;
 import org.fenix.llanfair.Language;
+import org.fenix.llanfair.PropertyDispatcher;
 import org.fenix.llanfair.Run;
 import org.fenix.llanfair.Run.State;
 import org.fenix.llanfair.Segment;
@@ -10,8 +13,10 @@ import org.fenix.utils.gui.GBC;
 import org.fenix.utils.locale.LocaleEvent;
 
 import javax.swing.*;
+import javax.swing.event.TableModelEvent;
 import java.awt.*;
 import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 
 /**
  * A simple pane displaying the bare minimum of information concerning the
@@ -35,8 +40,39 @@ class Footer extends JPanel {
 
 
 	private Run run;
+
+	/**
+	 * Snapshot of the run as of the last event handled, from which every
+	 * time is read.
+	 */
+	private Run.Snapshot snapshot;
+
 	private Time tmDlta;
 
+	/**
+	 * Updates requested by the property change events, applied once the
+	 * burst of events they belong to has been processed.
+	 */
+	private final UpdateScheduler updates = new UpdateScheduler(
+			"footer", new UpdateScheduler.Updates() {
+		@Override public void updateFonts(int identifier) {
+			Footer.this.updateFonts(identifier);
+		}
+		@Override public void updateVisibility(int identifier) {
+			Footer.this.updateVisibility(identifier);
+		}
+		@Override public void updateValues(int identifier) {
+			Footer.this.updateValues(identifier);
+		}
+		@Override public void updateColors(int identifier) {
+			Footer.this.updateColors(identifier);
+		}
+		@Override public void updateSize() {
+			Footer.this.updateSize();
+			Footer.this.forceResize();
+		}
+	});
+
 	private JLabel labelPrev;   // P.Se:
 	private JLabel liveL;       // Left-hand Live Time
 	private JLabel liveR;       // Right-hand Live Time
@@ -65,6 +101,19 @@ class Footer extends JPanel {
 
 	private JLabel worldRecord;
 
+	/**
+	 * Displays the world record once fetched, unless the category of the run
+	 * changed in the meantime.
+	 */
+	private final WorldRecordService.Listener recordListener
+			= new WorldRecordService.Listener() {
+		@Override public void recordFetched(Category category, String record) {
+			if (category.getId().equals(run.getRecordCategory().getId())) {
+				worldRecord.setText(record);
+			}
+		}
+	};
+
 	/**
 	 * Creates a default panel displaying informations for the given run.
 	 *
@@ -113,8 +162,8 @@ class Footer extends JPanel {
 			int timeW;
 			int timeH = coreOtherTimeFontMetrics.getHeight();
 			int smtmW;
-			if (run.getRowCount() > 0) {
-				Time segmentTime = run.getSegment(0).getTime(Segment.RUN);
+			if (snapshot.getRowCount() > 0) {
+				Time segmentTime = snapshot.getSegmentTime(0, Segment.RUN);
 				Time tenthTime = new Time(segmentTime.getMilliseconds() / 10L);
 				timeW = coreOtherTimeFontMetrics.stringWidth("" + segmentTime);
 				smtmW = coreOtherTimeFontMetrics.stringWidth("" + tenthTime);
@@ -182,11 +231,42 @@ class Footer extends JPanel {
 	 */
 	final void setRun(Run run) {
 		this.run = run;
+		snapshot = run.getSnapshot();
 		updateValues(ALL & ~TEXT);
 	}
 
 	// -------------------------------------------------------------- CALLBACKS
 
+	/**
+	 * Subscribes this component to the properties it displays, so that the
+	 * dispatcher only calls {@link #processPropertyChangeEvent} for those.
+	 *
+	 * @param   dispatcher  - the dispatcher of the property change events.
+	 */
+	void subscribe(PropertyDispatcher dispatcher) {
+		PropertyChangeListener listener = new PropertyChangeListener() {
+			@Override public void propertyChange(PropertyChangeEvent event) {
+				processPropertyChangeEvent(event);
+			}
+		};
+		dispatcher.subscribe(listener,
+				Run.CURRENT_SEGMENT_PROPERTY, Run.STATE_PROPERTY,
+				Run.RECORD_CATEGORY_PROPERTY);
+		dispatcher.subscribe(listener,
+				Settings.colorTimeGainedWhileBehind,
+				Settings.colorTimeLostWhileBehind,
+				Settings.colorTimeLostWhileAhead,
+				Settings.colorTimeGainedWhileAhead, Settings.colorTime,
+				Settings.colorNewRecord, Settings.colorForeground,
+				Settings.accuracy, Settings.compareMethod,
+				Settings.footerUseSplitData, Settings.footerShowBestTime,
+				Settings.footerMultiline, Settings.footerShowDeltaLabels,
+				Settings.footerShowWorldRecord, Settings.footerVerbose,
+				Settings.coreFont, Settings.coreOtherTimeFont,
+				Settings.windowUserResizable, Settings.windowWidth,
+				Settings.footerShowSumOfBest);
+	}
+
 	/**
 	 * Callback invoked by the parent when the run or the application's
 	 * settings have seen one of their properties updated.
@@ -194,67 +274,68 @@ class Footer extends JPanel {
 	 * @param   event   - the event describing the update.
 	 */
 	void processPropertyChangeEvent(PropertyChangeEvent event) {
+		if (event instanceof Run.Event && event.getSource() == run) {
+			snapshot = ((Run.Event) event).getSnapshot();
+		}
 		String property = event.getPropertyName();
 
 		if (Run.CURRENT_SEGMENT_PROPERTY.equals(property)) {
-			updateValues(ALL & ~TEXT);
-			updateColors(TIME | DELTA);
-			updateVisibility(ALL);
+			updates.updateValues(ALL & ~TEXT);
+			updates.updateColors(TIME | DELTA);
+			updates.updateVisibility(ALL);
 		} else if (Settings.colorTimeGainedWhileBehind.equals(property)
 		           || Settings.colorTimeLostWhileBehind.equals(property)
 		           || Settings.colorTimeLostWhileAhead.equals(property)
 		           || Settings.colorTimeGainedWhileAhead.equals(property)) {
-			updateColors(DELTA);
+			updates.updateColors(DELTA);
 
 		} else if (Settings.colorTime.equals(property)
 				|| Settings.colorNewRecord.equals(property)) {
-			updateColors(TIME | DELTA);
+			updates.updateColors(TIME | DELTA);
 
 		} else if (Settings.colorForeground.equals(property)) {
-			updateColors(TEXT);
+			updates.updateColors(TEXT);
 
 		} else if (Settings.accuracy.equals(property)
 				|| Settings.compareMethod.equals(property)) {
-			updateValues(ALL & ~TEXT);
-			forceResize();
+			updates.updateValues(ALL & ~TEXT);
+			updates.updateSize();
 
 		} else if (Run.STATE_PROPERTY.equals(property)) {
-			if (run.getState() == State.NULL || run.getState() == State.READY) {
-				updateValues(ALL & ~TEXT);
+			if (snapshot.getState() == State.NULL || snapshot.getState() == State.READY) {
+				updates.updateValues(ALL & ~TEXT);
 			}
-			updateVisibility(ALL);
+			updates.updateVisibility(ALL);
 		} else if (Settings.footerUseSplitData.equals(property)) {
-			updateValues(ALL);
+			updates.updateValues(ALL);
 		} else if (Settings.footerShowBestTime.equals(property)
 				|| Settings.footerMultiline.equals(property)) {
 
-			updateVisibility(BEST);
-			forceResize();
+			updates.updateVisibility(BEST);
+			updates.updateSize();
 		} else if (Settings.footerShowDeltaLabels.equals(property)
 				|| Settings.footerShowWorldRecord.equals(property)) {
-			updateVisibility(TEXT);
-			forceResize();
+			updates.updateVisibility(TEXT);
+			updates.updateSize();
 		} else if (Settings.footerVerbose.equals(property)) {
-			updateValues(DELTA);
-			updateVisibility(VERBOSE);
-			forceResize();
+			updates.updateValues(DELTA);
+			updates.updateVisibility(VERBOSE);
+			updates.updateSize();
 		} else if (Settings.coreFont.equals(property)) {
-			updateFonts(TEXT);
-			forceResize();
+			updates.updateFonts(TEXT);
+			updates.updateSize();
 		} else if (Settings.coreOtherTimeFont.equals(property)) {
-			updateFonts(TIME | DELTA);
-			forceResize();
+			updates.updateFonts(TIME | DELTA);
+			updates.updateSize();
 		} else if (Settings.windowUserResizable.equals(property)
 		           || Settings.windowWidth.equals(property)) {
-			updateSize();
-			forceResize();
+			updates.updateSize();
 		} else if (Settings.footerShowSumOfBest.equals(property)) {
-			updateVisibility(BEST | TEXT);
-			updateValues(TIME | TEXT);
-			updateSize();
-			forceResize();
+			updates.updateVisibility(BEST | TEXT);
+			updates.updateValues(TIME | TEXT);
+			updates.updateSize();
 		} else if (Run.RECORD_CATEGORY_PROPERTY.equals(property)) {
-			updateValues(WORLD_RECORD);
+			updates.updateValues(WORLD_RECORD);
 		}
 	}
 
@@ -263,6 +344,18 @@ class Footer extends JPanel {
 		revalidate();
 	}
 
+	/**
+	 * Callback invoked by the parent when the run table of segments is
+	 * updated.
+	 *
+	 * @param   event   - the event describing the update.
+	 */
+	void processTableModelEvent(TableModelEvent event) {
+		snapshot = run.getSnapshot();
+		updates.updateValues(ALL & ~TEXT);
+		updates.updateColors(TIME | DELTA);
+	}
+
 	/**
 	 * Callback invoked by the parent when default local for this instance of
 	 * the JVM has changed.
@@ -397,7 +490,7 @@ class Footer extends JPanel {
 		if ((identifier & TIME) == TIME) {
 			Color colorTM = Settings.colorTime.get();
 			Color colorNR = Settings.colorNewRecord.get();
-			if (run.hasPreviousSegment() && run.isBestSegment(run.getPrevious())) {
+			if (snapshot.hasPreviousSegment() && snapshot.isBestSegment(snapshot.getPrevious())) {
 				liveL.setForeground(colorNR);
 				liveR.setForeground(colorNR);
 			} else {
@@ -410,13 +503,13 @@ class Footer extends JPanel {
 			sumOfBest.setForeground(colorTM);
 		}
 		if ((identifier & DELTA) == DELTA) {
-			if (run.hasPreviousSegment()) {
+			if (snapshot.hasPreviousSegment()) {
 				Color colorTM = Settings.colorTime.get();
 				deltaBest.setForeground(colorTM);
 				inlineDeltaBest.setForeground(colorTM);
 				if (delta.getText().equals("--")) {
 					delta.setForeground(colorTM);
-				} else if (run.isBestSegment(run.getPrevious())){
+				} else if (snapshot.isBestSegment(snapshot.getPrevious())){
 					Color colorNR = Settings.colorNewRecord.get();
 					delta.setForeground(colorNR);
 					deltaBest.setForeground(colorNR);
@@ -481,28 +574,24 @@ class Footer extends JPanel {
 	 */
 	private void updateValues(int identifier) {
 		boolean useSplit    = Settings.footerUseSplitData.get();
-		boolean hasPrevious = run.hasPreviousSegment();
-		int     pIndex      = run.getPrevious();
-		Segment pSegment    = null;
+		boolean hasPrevious = snapshot.hasPreviousSegment();
+		int     pIndex      = snapshot.getPrevious();
 		Time    live;
-  
-		if (hasPrevious) {
-			pSegment = run.getSegment(pIndex);
-		}
+
 		if ((identifier & TIME) == TIME) {
 			Time    set;
 			if (hasPrevious) {
 				if (useSplit) {
-					live  = run.getTime(pIndex, Segment.LIVE);
-					set   = run.getTime(pIndex, Segment.SET);
+					live  = snapshot.getTime(pIndex, Segment.LIVE);
+					set   = snapshot.getTime(pIndex, Segment.SET);
 				} else {
-					live  = pSegment.getTime(Segment.LIVE);
-					set   = pSegment.getTime(Segment.SET);
+					live  = snapshot.getSegmentTime(pIndex, Segment.LIVE);
+					set   = snapshot.getSegmentTime(pIndex, Segment.SET);
 				}
 				time.setText("" + (set == null ? "--" : set));
 				liveL.setText("" + (live == null ? "--" : live));
 				liveR.setText(liveL.getText());
-				Time bTime = pSegment.getTime(Segment.BEST);
+				Time bTime = snapshot.getSegmentTime(pIndex, Segment.BEST);
 				inlineBest.setText("| " + (bTime == null ? "--" : bTime));
 				best.setText("" + (bTime == null ? "--" : bTime));
 			} else {
@@ -512,7 +601,7 @@ class Footer extends JPanel {
 				best.setText("");
 				inlineBest.setText("");
 			}
-			Time sumOfBestTime = run.getSumOfBest();
+			Time sumOfBestTime = snapshot.getSumOfBest();
 			if (sumOfBestTime.getMilliseconds() > 0)
 				sumOfBest.setText(sumOfBestTime.toString());
 			else
@@ -521,8 +610,8 @@ class Footer extends JPanel {
 		if ((identifier & DELTA) == DELTA) {
 			if (hasPrevious) {
 				if (useSplit) {
-					tmDlta = run.getTime(pIndex, Segment.DELTA);
-					live      = run.getTime(pIndex, Segment.LIVE);
+					tmDlta = snapshot.getTime(pIndex, Segment.DELTA);
+					live      = snapshot.getTime(pIndex, Segment.LIVE);
 
 					if (tmDlta == null || live == null) {
 						delta.setText("--");
@@ -530,26 +619,26 @@ class Footer extends JPanel {
 						delta.setText(tmDlta.toString(true));
 					}
 				} else {
-					tmDlta = pSegment.getTime(Segment.DELTA);
-					live      = pSegment.getTime(Segment.LIVE);
-					Time set  = pSegment.getTime(Segment.SET);
+					tmDlta = snapshot.getSegmentTime(pIndex, Segment.DELTA);
+					live      = snapshot.getSegmentTime(pIndex, Segment.LIVE);
+					Time set  = snapshot.getSegmentTime(pIndex, Segment.SET);
 
-					Time dBst = pSegment.getTime(Segment.DELTA_BEST);
+					Time dBst = snapshot.getSegmentTime(pIndex, Segment.DELTA_BEST);
 					inlineDeltaBest.setText("| " + (dBst == null ? "--" : dBst.toString(true)));
 					deltaBest.setText("" + (dBst == null ? "--" : dBst.toString(true)));
 
 					if (set != null && pIndex > 1) {
-						set = set.clone();
+						long setNanos = set.getNanoseconds();
 						for (int i = pIndex - 1; i >= 0; i--) {
-							Segment pSeg = run.getSegment(i);
-							Time    ante = pSeg.getTime(Segment.LIVE);
+							Time ante = snapshot.getSegmentTime(i, Segment.LIVE);
 							if (ante == null) {
-								set.add(pSeg.getTime(Segment.SET));
+								setNanos += Time.nanosOf(
+										snapshot.getSegmentTime(i, Segment.SET));
 							} else {
 								break;
 							}
 						}
-						tmDlta = Time.getDelta(live, set);
+						tmDlta = Time.ofNanos(Time.nanosOf(live) - setNanos);
 					}
 					if (tmDlta == null || live == null) {
 						delta.setText("--");
@@ -559,8 +648,8 @@ class Footer extends JPanel {
 						delta.setText(tmDlta.toString(true));
 					}
 					if (pIndex > 0) {
-						Time sTime = run.getSegment(pIndex - 1)
-														.getTime(Segment.SET);
+						Time sTime = snapshot.getSegmentTime(pIndex - 1,
+								Segment.SET);
 						if (sTime == null) {
 							delta.setText("--");
 						}
@@ -589,7 +678,8 @@ class Footer extends JPanel {
 			labelSumOfBest.setText("" + Language.LB_FT_SUM_OF_BEST);
 		}
 		if((identifier & WORLD_RECORD) == WORLD_RECORD) {
-			worldRecord.setText(run.getRecordString());
+			worldRecord.setText(WorldRecordService.getInstance().getRecord(
+					run.getRecordCategory(), recordListener));
 		}
 	}
 
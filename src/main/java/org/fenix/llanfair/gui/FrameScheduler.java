@@ -0,0 +1,168 @@
+package org.fenix.llanfair.gui;
+
+import org.fenix.llanfair.Clock;
+import org.fenix.utils.PerfCounter;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+
+/**
+ * Schedules the frames of an animated component. Rather than ticking at a
+ * fixed rate, each frame tells the scheduler how long to wait before the
+ * next one, typically until the next time its display changes. While the
+ * component is not showing, frames are spaced by {@code IDLE_DELAY} instead,
+ * and a frame is run as soon as the component shows again.
+ *
+ * <p>When launched with {@code -Dllanfair.perf=true}, the scheduler reports
+ * the number of frames per second it achieved and how late the frames ran
+ * compared to the time they were scheduled for.</p>
+ */
+final class FrameScheduler implements ActionListener, HierarchyListener {
+
+	// -------------------------------------------------------------- CONSTANTS
+
+	/**
+	 * Number of nanoseconds between two frames while the component is not
+	 * showing.
+	 */
+	static final long IDLE_DELAY = 500L * Clock.NANOS_PER_MILLI;
+
+	/**
+	 * Number of nanoseconds between two reports of the frame statistics.
+	 */
+	private static final long REPORT_DELAY = 5000L * Clock.NANOS_PER_MILLI;
+
+	// ------------------------------------------------------------- ATTRIBUTES
+
+	private final JComponent component;
+
+	private final ActionListener frame;
+
+	private final Timer timer;
+
+	private final String name;
+
+	/**
+	 * Clock time stamp the next frame is scheduled for.
+	 */
+	private long target;
+
+	private long reportTime;
+
+	private int frames;
+
+	private long totalLateness;
+
+	private long maxLateness;
+
+	// ----------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Creates a stopped scheduler running the frames of the given component.
+	 *
+	 * @param   name        - the name of the component in the reports.
+	 * @param   component   - the animated component.
+	 * @param   frame       - the listener drawing a frame, which must call
+	 *                        {@link #schedule(long)} to get another one.
+	 */
+	FrameScheduler(String name, JComponent component, ActionListener frame) {
+		this.name      = name;
+		this.component = component;
+		this.frame     = frame;
+		timer          = new Timer(0, this);
+		target         = 0L;
+		reportTime     = 0L;
+
+		timer.setRepeats(false);
+		timer.setCoalesce(true);
+		component.addHierarchyListener(this);
+	}
+
+	// -------------------------------------------------------------- INTERFACE
+
+	/**
+	 * Runs a frame as soon as possible, then the frames it schedules.
+	 */
+	void restart() {
+		schedule(0L);
+	}
+
+	/**
+	 * Cancels the scheduled frame.
+	 */
+	void stop() {
+		timer.stop();
+	}
+
+	/**
+	 * Schedules the next frame after the given number of nanoseconds, or
+	 * after {@code IDLE_DELAY} if the component is not showing. Should be
+	 * called by every frame.
+	 *
+	 * @param   delay   - the number of nanoseconds to wait.
+	 */
+	void schedule(long delay) {
+		if (!component.isShowing()) {
+			delay = Math.max(delay, IDLE_DELAY);
+		}
+		// Timers have a precision of a millisecond, so round up to make sure
+		// the frame comes after the change it waits for.
+		long millis = (delay + Clock.NANOS_PER_MILLI - 1L) / Clock.NANOS_PER_MILLI;
+		target = Clock.get().nanoTime() + delay;
+		timer.setInitialDelay((int) Math.min(millis, Integer.MAX_VALUE));
+		timer.restart();
+	}
+
+	// -------------------------------------------------------------- CALLBACKS
+
+	@Override public void actionPerformed(ActionEvent event) {
+		if (PerfCounter.ENABLED) {
+			measure();
+		}
+		frame.actionPerformed(event);
+	}
+
+	/**
+	 * Runs a frame right away when the component shows again, instead of
+	 * waiting for the end of the idle delay.
+	 */
+	@Override public void hierarchyChanged(HierarchyEvent event) {
+		if ((event.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0
+				&& component.isShowing() && timer.isRunning()) {
+			restart();
+		}
+	}
+
+	// -------------------------------------------------------------- UTILITIES
+
+	/**
+	 * Records how late the current frame is and reports the statistics every
+	 * {@code REPORT_DELAY} nanoseconds.
+	 */
+	private void measure() {
+		long now      = Clock.get().nanoTime();
+		long lateness = Math.max(0L, now - target);
+		frames++;
+		totalLateness += lateness;
+		maxLateness    = Math.max(maxLateness, lateness);
+
+		if (reportTime == 0L) {
+			reportTime = now;
+		} else if (now - reportTime >= REPORT_DELAY) {
+			double seconds = (double) (now - reportTime) / (1000L * Clock.NANOS_PER_MILLI);
+			PerfCounter.report(
+					"%s frames: %.1f fps, jitter avg %.2f ms, max %.2f ms",
+					name, frames / seconds,
+					(double) totalLateness / frames / Clock.NANOS_PER_MILLI,
+					(double) maxLateness / Clock.NANOS_PER_MILLI
+			);
+			reportTime    = now;
+			frames        = 0;
+			totalLateness = 0L;
+			maxLateness   = 0L;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package org.fenix.llanfair.gui;
 
 import org.fenix.llanfair.Language;
+import org.fenix.llanfair.PropertyDispatcher;
 import org.fenix.llanfair.Run;
 import org.fenix.llanfair.Run.State;
 import org.fenix.llanfair.Segment;
@@ -12,12 +13,15 @@ import org.fenix.utils.locale.LocaleEvent;
 import javax.swing.*;
 import javax.swing.event.TableModelEvent;
 import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 
 /**
  * Graph panel displaying information concerning a run. It includes an actual
  * graph where each vertex is a live split time and a scale. The vertices are 
- * placed in accordance to {@link Run#getCompareTime()}.
+ * placed in accordance to {@link Run.Snapshot#getCompareTime()}.
  *
  * @author  Xavier "Xunkar" Sencert
  */
@@ -77,6 +81,34 @@ class Graph extends JPanel {
 	 */
 	protected Run run;
 
+	/**
+	 * Snapshot of the run as of the last event handled, from which every
+	 * time is read.
+	 */
+	protected Run.Snapshot snapshot;
+
+	/**
+	 * Updates requested by the property change events, applied once the
+	 * burst of events they belong to has been processed.
+	 */
+	private final UpdateScheduler updates = new UpdateScheduler(
+			"graph", new UpdateScheduler.Updates() {
+		@Override public void updateFonts(int identifier) {
+			Graph.this.updateFonts(identifier);
+		}
+		@Override public void updateVisibility(int identifier) {}
+		@Override public void updateValues(int identifier) {
+			Graph.this.updateValues(identifier);
+		}
+		@Override public void updateColors(int identifier) {
+			Graph.this.updateColors(identifier);
+		}
+		@Override public void updateSize() {
+			Graph.this.updateSize();
+			Graph.this.forceResize();
+		}
+	});
+
 	/**
 	 * Canvas where the graph will be drawn.
 	 */
@@ -127,7 +159,34 @@ class Graph extends JPanel {
 	 */
 	void setRun(Run run) {
 		this.run = run;
+		snapshot = run.getSnapshot();
 		updateValues(TIME);
+		canvas.clearGraph();
+	}
+
+	/**
+	 * Subscribes this component to the properties it displays, so that the
+	 * dispatcher only calls {@link #processPropertyChangeEvent} for those.
+	 *
+	 * @param   dispatcher  - the dispatcher of the property change events.
+	 */
+	void subscribe(PropertyDispatcher dispatcher) {
+		PropertyChangeListener listener = new PropertyChangeListener() {
+			@Override public void propertyChange(PropertyChangeEvent event) {
+				processPropertyChangeEvent(event);
+			}
+		};
+		dispatcher.subscribe(listener,
+				Run.CURRENT_SEGMENT_PROPERTY, Run.STATE_PROPERTY);
+		dispatcher.subscribe(listener,
+				Settings.colorForeground, Settings.colorTime,
+				Settings.colorBackground, Settings.colorTimeGainedWhileBehind,
+				Settings.colorTimeLostWhileBehind,
+				Settings.colorTimeGainedWhileAhead,
+				Settings.colorTimeLostWhileAhead, Settings.colorNewRecord,
+				Settings.graphScale, Settings.compareMethod, Settings.accuracy,
+				Settings.coreFont, Settings.windowUserResizable,
+				Settings.windowWidth);
 	}
 
 	/**
@@ -137,44 +196,53 @@ class Graph extends JPanel {
 	 * @param   event   - the event describing the update.
 	 */
 	void processPropertyChangeEvent(PropertyChangeEvent event) {
+		if (event instanceof Run.Event && event.getSource() == run) {
+			snapshot = ((Run.Event) event).getSnapshot();
+		}
 		String property = event.getPropertyName();
 		// Settings.COLOR_FOREGROUND
 		if (Settings.colorForeground.equals(property)) {
-			updateColors(TEXT);
-			canvas.repaint();
+			updates.updateColors(TEXT);
+			canvas.clearGraph();
 		// Settings.COLOR_TIME
 		} else if (Settings.colorTime.equals(property)) {
-			updateColors(TIME);
+			updates.updateColors(TIME);
 		// Settings.COLOR_BACKGROUND, COLOR_TIME_LOST, COLOR_TIME_GAINED
-		// or Run.CURRENT_SEGMENT_PROPERTY
 		} else if (Settings.colorBackground.equals(property)
 				|| Settings.colorTimeGainedWhileBehind.equals(property)
 		        || Settings.colorTimeLostWhileBehind.equals(property)
 				|| Settings.colorTimeGainedWhileAhead.equals(property)
 		        || Settings.colorTimeLostWhileAhead.equals(property)
-				|| Settings.colorNewRecord.equals(property)
-				|| Run.CURRENT_SEGMENT_PROPERTY.equals(property)) {
-			canvas.repaint();
+				|| Settings.colorNewRecord.equals(property)) {
+			canvas.clearGraph();
+		// Run.CURRENT_SEGMENT_PROPERTY, only the new vertex is drawn unless
+		// we unsplit
+		} else if (Run.CURRENT_SEGMENT_PROPERTY.equals(property)) {
+			if ((Integer) event.getNewValue() < (Integer) event.getOldValue()) {
+				canvas.clearGraph();
+			} else {
+				canvas.repaint();
+			}
 		// Settings.COMPARE_PERCENT or Settings.COMPARE_METHOD
 		} else if (Settings.graphScale.equals(property)
 				|| Settings.compareMethod.equals(property)) {
-			updateValues(TIME);
-			canvas.repaint();
+			updates.updateValues(TIME);
+			canvas.clearGraph();
 		// Settings.ACCURACY
 		} else if (Settings.accuracy.equals(property)) {
-			updateValues(TIME);
+			updates.updateValues(TIME);
 		// Run.STATE_PROPERTY
 		} else if (Run.STATE_PROPERTY.equals(property)) {
-			if (run.getState() == State.READY) {
-				canvas.repaint();
-			} else if (run.getState() == State.NULL) {
-				updateValues(TIME);
+			if (snapshot.getState() == State.READY) {
+				canvas.clearGraph();
+			} else if (snapshot.getState() == State.NULL) {
+				updates.updateValues(TIME);
+				canvas.clearGraph();
 			}
 		} else if (Settings.coreFont.equals(property)) {
-			updateFonts(ALL);
+			updates.updateFonts(ALL);
 		} else if (Settings.windowUserResizable.equals(property) || Settings.windowWidth.equals(property)) {
-			updateSize();
-			forceResize();
+			updates.updateSize();
 		}
 	}
 
@@ -189,6 +257,7 @@ class Graph extends JPanel {
 	 * @param   event   - the event describing the update.
 	 */
 	void processTableModelEvent(TableModelEvent event) {
+		snapshot   = run.getSnapshot();
 		int type   = event.getType();
 		int column = event.getColumn();
 		if (type != TableModelEvent.UPDATE
@@ -197,7 +266,7 @@ class Graph extends JPanel {
 				|| column == Run.COLUMN_SEGMENT
 				|| column == Run.COLUMN_TIME) {
 			updateValues(TIME);
-			canvas.repaint();
+			canvas.clearGraph();
 		}
 	}
 
@@ -216,17 +285,28 @@ class Graph extends JPanel {
 	/**
 	 * Returns a percent representing the delta split time of the segment of
 	 * given index in relation to a set fraction of the whole run given by
-	 * {@link Run#getCompareTime()}.
+	 * {@link Run.Snapshot#getCompareTime()}.
 	 *
 	 * @param   index   - the index of the segment to compare.
 	 * @return  the percent of the segment delta split time and the run’s
 	 *          compare time.
 	 */
 	protected long getCompareTimePercent(int index) {
-		long compare = run.getCompareTime().getMilliseconds();
-		long delta   = run.getTime(index, Segment.DELTA).getMilliseconds();
+		return getCompareTimePercent(snapshot.getTime(index, Segment.DELTA),
+				snapshot.getCompareTime().getMilliseconds());
+	}
 
-		return (delta * 100L) / compare;
+	/**
+	 * Returns a percent representing the given delta split time in relation
+	 * to the given compare time, so that the compare time can be computed
+	 * once for every vertex. Without any compare time, such as when the run
+	 * has no registered time, the delta is drawn on the axis.
+	 */
+	private static long getCompareTimePercent(Time delta, long compare) {
+		if (compare == 0L) {
+			return 0L;
+		}
+		return (delta.getMilliseconds() * 100L) / compare;
 	}
 
 	/**
@@ -252,7 +332,7 @@ class Graph extends JPanel {
 	private void updateValues(int identifier) {
 		// TIME
 		if ((identifier & TIME) == TIME) {
-			Time time = run.getCompareTime();
+			Time time = snapshot.getCompareTime();
 			scale.setText("" + (time == null ? "???" : time));
 		}
 		// TEXT
@@ -299,82 +379,172 @@ class Graph extends JPanel {
 
 	/**
 	 * A simple panel whose paint method has been overriden to draw the graph.
+	 * The graph is drawn in an offscreen image which is kept between paints:
+	 * each paint only draws the vertices of the segments split since the
+	 * previous one. The image is redrawn from scratch when the canvas is
+	 * resized or when {@link #clearGraph()} is called. The image is rendered
+	 * at the scale of the graphics, so that it stays sharp on scaled
+	 * displays.
 	 *
 	 * @author  Xavier "Xunkar" Sencert
 	 */
 	protected class Canvas extends JPanel {
 
+		// ----------------------------------------------------- ATTRIBUTES
+
+		/**
+		 * The graph drawn so far, or {@code null} if it must be redrawn.
+		 */
+		private BufferedImage graph;
+
+		/**
+		 * Size of the canvas and scale of the graphics the graph was drawn
+		 * for.
+		 */
+		private int graphW;
+
+		private int graphH;
+
+		private double scaleX;
+
+		private double scaleY;
+
+		/**
+		 * Number of segments whose vertex has been drawn in the graph.
+		 */
+		private int drawn;
+
+		/**
+		 * Coordinates of the last drawn vertex.
+		 */
+		private int prevX;
+
+		private int prevY;
+
 		// ----------------------------------------------------- INTERFACE
 
+		/**
+		 * Discards the graph drawn so far, which is redrawn on the next
+		 * paint. Must be called whenever a vertex already drawn changes.
+		 */
+		void clearGraph() {
+			graph = null;
+			repaint();
+		}
+
 		/**
 		 * Draws the graph onto the canvas.
 		 */
 		@Override protected void paintComponent(Graphics g) {
-			Graphics2D g2 = (Graphics2D) g;
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-					RenderingHints.VALUE_ANTIALIAS_ON);
-
 			int clipH = getHeight();
 			int clipW = getWidth();
+			if (clipW <= 0 || clipH <= 0) {
+				return;
+			}
+
+			AffineTransform transform = ((Graphics2D) g).getTransform();
+			double sx = Math.max(1.0, transform.getScaleX());
+			double sy = Math.max(1.0, transform.getScaleY());
+
+			int current = (snapshot.getState() == State.NULL
+					? 0 : snapshot.getCurrent());
+			if (graph == null || graphW != clipW || graphH != clipH
+					|| scaleX != sx || scaleY != sy || current < drawn) {
+				graph = new BufferedImage(
+						(int) Math.ceil(clipW * sx), (int) Math.ceil(clipH * sy),
+						BufferedImage.TYPE_INT_ARGB);
+				graphW = clipW;
+				graphH = clipH;
+				scaleX = sx;
+				scaleY = sy;
+				drawn  = 0;
+				prevX  = 0;
+				prevY  = clipH / 2;
+
+				Graphics2D g2 = createGraphics();
+				g2.setColor(Settings.colorBackground.get());
+				g2.fillRect(0, 0, clipW, clipH);
+
+				// Draw the axis.
+				g2.setColor(Settings.colorForeground.get());
+				g2.drawLine(0, clipH / 2, clipW, clipH / 2);
+				g2.dispose();
+			}
+			if (drawn < current) {
+				Graphics2D g2 = createGraphics();
+				g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+						RenderingHints.VALUE_ANTIALIAS_ON);
+				drawVertices(g2, current);
+				g2.dispose();
+			}
+			g.drawImage(graph, 0, 0, clipW, clipH, null);
+		}
+
+		// ----------------------------------------------------- UTILITIES
+
+		/**
+		 * Returns a graphics drawing in the graph with the coordinates of
+		 * the canvas.
+		 */
+		private Graphics2D createGraphics() {
+			Graphics2D g2 = graph.createGraphics();
+			g2.scale(scaleX, scaleY);
+			return g2;
+		}
+
+		/**
+		 * Draws the vertices of the segments split since the last call, up
+		 * to the given segment excluded.
+		 */
+		private void drawVertices(Graphics2D g2, int current) {
+			int clipH = graphH;
+			int clipW = graphW;
 			int halfH = clipH / 2;
 
-			g2.setColor(Settings.colorBackground.get());
-			g2.fillRect(0, 0, clipW, clipH);
-  
 			Color colorFG = Settings.colorForeground.get();
 			Color colorTG = Settings.colorTimeGainedWhileAhead.get();
 			Color colorTL = Settings.colorTimeLostWhileBehind.get();
 			Color colorRC = Settings.colorNewRecord.get();
 
-			// Draw the axis.
-			g2.setColor(colorFG);
-			g2.drawLine(0, halfH, clipW, halfH);
-
-			if (run.getState() != State.NULL) {
-				int    segCnt = run.getRowCount();
-				double segGap = (double) clipW / segCnt;
-
-				if (run.hasPreviousSegment()) {
-					// Coordinates of the last drawn vertex.
-					int prevX = 0;
-					int prevY = halfH;
-
-					for (int i = 0; i < run.getCurrent(); i++) {
-						Time delta = run.getTime(i, Segment.DELTA);
-						Time live  = run.getTime(i, Segment.LIVE);
-						if (delta != null && live != null) {
-							int percent = (int) getCompareTimePercent(i);
-							g2.setColor(run.isBetterSegment(i) ? colorTG : colorTL);
-							if (run.isBestSegment(i)) {
-								g2.setColor(colorRC);
-							}
-
-							// Coordinates of this segment’s vertex.
-							int coordY = halfH - ((percent * halfH) / 100);
-							coordY     = Math.min(clipH - HALF_THICKNESS, coordY);
-							coordY     = Math.max(HALF_THICKNESS, coordY);
-							int coordX = (int) ((i + 1) * segGap);
-
-							// Set the brush depending on the delta.
-							g2.setStroke(GRAPH_STROKE);
-
-							// Make sure the last vertex reaches the pane’s end.
-							if (i == segCnt - 1) {
-								coordX = Math.min(coordX - 1, clipW);
-							}
-							g2.drawLine(prevX, prevY, coordX, coordY);
-
-							// Projection along the x axis.
-							g2.setColor(colorFG);
-							g2.setStroke(DASHED_STROKE);
-							g2.drawLine(coordX, halfH, coordX, coordY);
-
-							prevY = coordY;
-							prevX = coordX;
-						}
+			int    segCnt  = snapshot.getRowCount();
+			double segGap  = (double) clipW / segCnt;
+			long   compare = snapshot.getCompareTime().getMilliseconds();
+
+			for (int i = drawn; i < current; i++) {
+				Time delta = snapshot.getTime(i, Segment.DELTA);
+				Time live  = snapshot.getTime(i, Segment.LIVE);
+				if (delta != null && live != null) {
+					int percent = (int) getCompareTimePercent(delta, compare);
+					g2.setColor(snapshot.isBetterSegment(i) ? colorTG : colorTL);
+					if (snapshot.isBestSegment(i)) {
+						g2.setColor(colorRC);
+					}
+
+					// Coordinates of this segment’s vertex.
+					int coordY = halfH - ((percent * halfH) / 100);
+					coordY     = Math.min(clipH - HALF_THICKNESS, coordY);
+					coordY     = Math.max(HALF_THICKNESS, coordY);
+					int coordX = (int) ((i + 1) * segGap);
+
+					// Set the brush depending on the delta.
+					g2.setStroke(GRAPH_STROKE);
+
+					// Make sure the last vertex reaches the pane’s end.
+					if (i == segCnt - 1) {
+						coordX = Math.min(coordX - 1, clipW);
 					}
+					g2.drawLine(prevX, prevY, coordX, coordY);
+
+					// Projection along the x axis.
+					g2.setColor(colorFG);
+					g2.setStroke(DASHED_STROKE);
+					g2.drawLine(coordX, halfH, coordX, coordY);
+
+					prevY = coordY;
+					prevX = coordX;
 				}
 			}
+			drawn = current;
 		}
 
 	}
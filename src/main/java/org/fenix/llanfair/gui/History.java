@@ -1,5 +1,6 @@
 package org.fenix.llanfair.gui;
 
+import org.fenix.llanfair.PropertyDispatcher;
 import org.fenix.llanfair.Run;
 import org.fenix.llanfair.Run.State;
 import org.fenix.llanfair.Segment;
@@ -7,13 +8,16 @@ import org.fenix.llanfair.Time;
 import org.fenix.llanfair.config.Merge;
 import org.fenix.llanfair.config.Settings;
 import org.fenix.utils.Images;
+import org.fenix.utils.PerfCounter;
 import org.fenix.utils.gui.GBC;
 
 import javax.swing.*;
 import javax.swing.event.TableModelEvent;
 import java.awt.*;
 import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -23,6 +27,10 @@ import java.util.List;
  * segments in the run and the number of segments to display as per the 
  * settings. If the history is set to display blank rows, the number of 
  * segments in the viewport is always the number of desired segments.
+ * <p>
+ * The history is virtualized: it only holds as many rows as the viewport
+ * can display and binds them to the segments in view, rebinding them as the
+ * viewport scrolls, so its cost does not depend on the length of the run.
  *
  * @author  Xavier "Xunkar" Sencert
  * @version 1.2
@@ -48,6 +56,13 @@ public class History extends JPanel {
 	 */
 	Run run;
 
+	/**
+	 * Snapshot of the run as of the last event handled, from which the
+	 * timing state and every time are read. Package-private as to make it
+	 * available to inner types.
+	 */
+	Run.Snapshot snapshot;
+
 	/**
 	 * Current number of segments to display in the history, in other words,
 	 * the number of rows currently displayed in the viewport.
@@ -55,8 +70,9 @@ public class History extends JPanel {
 	private int rowCount;
 
 	/**
-	 * List containing the rows of segment to be displayed in the history. This
-	 * list will contain all the rows we could need.
+	 * List containing the rows of segment to be displayed in the history, in
+	 * their display order. This list contains as many rows as the viewport
+	 * can display, each bound to a segment or unbound and hidden.
 	 *
 	 * @see SegmentRow
 	 */
@@ -73,6 +89,22 @@ public class History extends JPanel {
 	 */
 	private boolean resize;
 
+	/**
+	 * Index of the segment currently highlighted by the marker, so that
+	 * moving the marker only refreshes the two rows concerned.
+	 */
+	private int marked;
+
+	/**
+	 * Number of row updates done while handling the current event.
+	 */
+	private int updates;
+
+	/**
+	 * Measures the cost of the events handled by the history.
+	 */
+	private final PerfCounter perf;
+
 	// ----------------------------------------------------------- CONSTRUCTORS
 
 	/**
@@ -87,6 +119,8 @@ public class History extends JPanel {
 		segmentRows   = new ArrayList<SegmentRow>();
 		preferredSize = null;
 		resize        = false;
+		marked        = -1;
+		perf          = new PerfCounter("history");
 
 		setRun(run);
 		setOpaque(false);
@@ -112,6 +146,7 @@ public class History extends JPanel {
 	 */
 	final void setRun(Run run) {
 		this.run = run;
+		snapshot = run.getSnapshot();
 		populateRows();
 	}
 
@@ -137,7 +172,7 @@ public class History extends JPanel {
 						Settings.historyTimeFont.get()
 				);
 				Time tmFake = new Time(600000L);
-				Time tmRun  = run.getTime(Segment.SET);
+				Time tmRun  = snapshot.getTime(Segment.SET);
 				int  wRun   = timeMetric.stringWidth(
 						"" + (tmRun == null ? tmFake : tmRun)
 				);
@@ -192,44 +227,86 @@ public class History extends JPanel {
 
 	// -------------------------------------------------------------- CALLBACKS
 
+	/**
+	 * Subscribes this component to the properties it displays, so that the
+	 * dispatcher only calls {@link #processPropertyChangeEvent} for those.
+	 *
+	 * @param   dispatcher  - the dispatcher of the property change events.
+	 */
+	void subscribe(PropertyDispatcher dispatcher) {
+		PropertyChangeListener listener = new PropertyChangeListener() {
+			@Override public void propertyChange(PropertyChangeEvent event) {
+				processPropertyChangeEvent(event);
+			}
+		};
+		dispatcher.subscribe(listener,
+				Run.CURRENT_SEGMENT_PROPERTY, Run.STATE_PROPERTY);
+		dispatcher.subscribe(listener,
+				Settings.historyTabular, Settings.historySegmentFont,
+				Settings.historyTimeFont, Settings.historyMultiline,
+				Settings.historyIconSize, Settings.historyIcons,
+				Settings.historyAlwaysShowLast, Settings.historyOffset,
+				Settings.historyRowCount, Settings.historyBlankRows,
+				Settings.colorTimeGainedWhileAhead,
+				Settings.colorTimeLostWhileAhead,
+				Settings.colorTimeGainedWhileBehind,
+				Settings.colorTimeLostWhileBehind, Settings.colorNewRecord,
+				Settings.colorHighlight, Settings.colorTime,
+				Settings.colorForeground, Settings.accuracy,
+				Settings.compareMethod, Settings.historyDeltas,
+				Settings.historyLiveTimes, Settings.historyMerge,
+				Settings.windowUserResizable, Settings.windowWidth);
+	}
+
 	/**
 	 * Callback invoked by the parent when the run or the application's
-	 * settings have seen one of their properties updated.
+	 * settings have seen one of their properties updated. Run events only
+	 * refresh the rows whose values changed: a split refreshes the row of the
+	 * segment just split and moves the marker.
 	 *
 	 * @param   event   - the event describing the update.
 	 */
 	void processPropertyChangeEvent(PropertyChangeEvent event) {
+		if (event instanceof Run.Event && event.getSource() == run) {
+			snapshot = ((Run.Event) event).getSnapshot();
+		}
 		String property = event.getPropertyName();
+		long   start    = perf.start();
+		updates = 0;
 
 		if (Run.CURRENT_SEGMENT_PROPERTY.equals(property)) {
 			int neu = (Integer) event.getNewValue();
 			int old = (Integer) event.getOldValue();
 			// Display the live time for the segment we just split.
-			int previous = run.getPrevious();
+			int previous = snapshot.getPrevious();
 			if (previous > -1) {
 				updateValues(LIVE, previous, previous);
 			}
 			// And move to the next segment in the history.
-			updateColors(MARKER);
+			updateMarker();
 			computeViewport();
 			// If we unsplit, restore the previous segment values.
 			if (neu < old) {
 				updateValues(TIME, neu, neu);
 				updateColors(TIME, neu, neu);
-				segmentRows.get(neu).live.setText("");
-				segmentRows.get(neu).delta.setText("");
+				SegmentRow row = getRow(neu);
+				if (row != null) {
+					row.live.setText("");
+					row.delta.setText("");
+				}
 			}
 //            updateColumnWidth();
 		} else if (Run.STATE_PROPERTY.equals(property)) {
 			// Clear the history when the run is reset.
-			if (run.getState() == State.READY) {
+			if (snapshot.getState() == State.READY) {
 				computeViewport();
 				updateValues(TIME | LIVE);
-				updateColors(MARKER | TIME);
+				updateColors(TIME);
+				updateMarker();
 //                updateColumnWidth();
 				// When the run stops, clear the marker.
-			} else if (run.getState() == State.STOPPED) {
-				updateColors(MARKER);
+			} else if (snapshot.getState() == State.STOPPED) {
+				updateMarker();
 			}
 		} else if (Settings.historyTabular.equals(property)) {
 			updateVisibility(LIVE | DELTA);
@@ -244,9 +321,11 @@ public class History extends JPanel {
 			updateValues(LINE);
 			forceResize();
 		} else if (Settings.historyIconSize.equals(property)) {
+			cacheIcons();
 			updateValues(ICON);
 			forceResize();
 		} else if (Settings.historyIcons.equals(property)) {
+			cacheIcons();
 			updateVisibility(ICON);
 			forceResize();
 		} else if (Settings.historyAlwaysShowLast.equals(property)
@@ -285,6 +364,7 @@ public class History extends JPanel {
 			updateSize();
 			forceResize();
 		}
+		perf.stop(start, property, updates);
 	}
 
 	/**
@@ -294,9 +374,12 @@ public class History extends JPanel {
 	 * @param   event   - the event describing the update.
 	 */
 	void processTableModelEvent(TableModelEvent event) {
+		snapshot     = run.getSnapshot();
 		int type     = event.getType();
 		int firstRow = event.getFirstRow();
 		int lastRow  = event.getLastRow();
+		long start   = perf.start();
+		updates = 0;
 
 		if (type == TableModelEvent.INSERT) {
 			populateRows();
@@ -307,32 +390,33 @@ public class History extends JPanel {
 			if (firstRow == TableModelEvent.HEADER_ROW) {
 				populateRows();
 			} else {
+				cacheIcons();
 				updateValues(TIME | NAME | ICON, firstRow, lastRow);
 				updateVisibility(ICON);
 			}
 		}
+		perf.stop(start, "table", updates);
 	}
 
 	// -------------------------------------------------------------- UTILITIES
 
 	/**
-	 * Creates a segment row for each segment in the run, counting possible
-	 * blank rows in advance and places them in the panel. Each row is then
-	 * displayed using {@code setVisible()} depending on wether we want it
-	 * in the viewport or not. This function should be called everytime the
-	 * run structure is changed and rows must be added or removed.
+	 * Creates as many segment rows as the viewport can display and places
+	 * them in the panel. The rows are then bound to the segments in the
+	 * viewport by {@code computeViewport()}. This function should be called
+	 * everytime the run structure is changed or the number of rows to display
+	 * is updated.
 	 */
 	private void populateRows() {
 		// Clear the panel and the row list.
 		removeAll();
 		segmentRows.clear();
-		// At most, we need as much segments as the run has or as much as
-		// is demanded by the user.
-		int count = Math.max(Settings.historyRowCount.get(), run.getRowCount());
-		// Create and place the rows.
+		// At most, we display as much segments as demanded by the user.
+		int count = Math.max(Settings.historyRowCount.get(), 0);
+		// Create and place the rows, unbound until we compute the viewport.
 		for (int i = 0; i < count; i++) {
 			SegmentRow row = new SegmentRow();
-			add(row, GBC.grid(0, i).fill(GBC.HORIZONTAL).anchor(GBC.NORTH).weight(1.0, 0.0));
+			add(row, getRowConstraints(i));
 			segmentRows.add(i, row);
 		}
 
@@ -341,23 +425,38 @@ public class History extends JPanel {
 		// that all the rows appear top-aligned.
 		// jesus christ, why is layouting so shit that this is even required!?
 		if (Settings.historyBlankRows.get()) {
-			if (run.getRowCount() < count) {
+			if (snapshot.getRowCount() < count) {
 				JPanel filler = new JPanel();
 				filler.setOpaque(false);
 				add(filler, GBC.grid(0, count).fill(GBC.BOTH).anchor(GBC.NORTH).weight(1.0, 1.0));
 			}
 		}
-		// Fill the rows with the segment data and colorize.
-		updateValues(ALL);
-		updateColors(ALL);
 		updateFonts(ALL);
 		updateVisibility(ALL);
-		// Only display the segments we can currently see.
+		cacheIcons();
+		// Bind the rows to the segments we can currently see.
+		marked = snapshot.getCurrent();
 		computeViewport();
 		// Force computation of minimum component size.
 		forceResize();
 	}
 
+	/**
+	 * Rescales the icons of every segment in advance, so that binding a row
+	 * while the run is ongoing finds its icon in the cache.
+	 */
+	private void cacheIcons() {
+		if (Settings.historyIcons.get()) {
+			int iconSize = Settings.historyIconSize.get();
+			for (int i = 0; i < run.getRowCount(); i++) {
+				ImageIcon runIcon = run.getSegment(i).getIcon();
+				if (runIcon != null) {
+					Images.getScaled(runIcon, iconSize);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Asks the component to compute its minimum size and assume it. Should be
 	 * called everytime an update to the run or the settings could impact the
@@ -369,42 +468,107 @@ public class History extends JPanel {
 	}
 
 	/**
-	 * Computes which segments need to be displayed in the history and sets
-	 * their visibility accordingly.
+	 * Computes which segments need to be displayed in the history and binds
+	 * the rows to them. Rows already bound to a segment still in view keep
+	 * it, so scrolling by one segment only rebinds a single row.
 	 */
 	private void computeViewport() {
 		// If we display blank rows, the row count is always the value
 		// from the settings, else check how much segments are in the run.
 		rowCount = Settings.historyRowCount.get();
 		if (!Settings.historyBlankRows.get()) {
-			rowCount = Math.min(run.getRowCount(), rowCount);
+			rowCount = Math.min(snapshot.getRowCount(), rowCount);
 		}
 		// If we always display the last segment, we scroll on n-1 segments.
 		boolean showLast  = Settings.historyAlwaysShowLast.get();
 		int     realCount = showLast ? rowCount - 1 : rowCount;
 		int     endOffset = showLast ? 2 : 1;
 		// Find out which segment will be at the end of the history.
-		int desired = run.getCurrent() + Settings.historyOffset.get();
+		int desired = snapshot.getCurrent() + Settings.historyOffset.get();
 		int lastSeg = (desired < realCount) ? realCount - 1 : desired;
-		if (lastSeg > run.getRowCount() - endOffset) {
-			lastSeg = run.getRowCount() - endOffset;
+		if (lastSeg > snapshot.getRowCount() - endOffset) {
+			lastSeg = snapshot.getRowCount() - endOffset;
 		}
-		// Set the visibility of every segments accordingly.
-		for (int i = 0; i < segmentRows.size(); i++) {
-			boolean visible = (i > lastSeg - realCount) && (i <= lastSeg);
-			segmentRows.get(i).setVisible(visible);
+		// List the segments in view, in display order, followed by the last
+		// segment if the setting is enabled. Remaining slots stay blank.
+		int   slotCount = segmentRows.size();
+		int[] segments  = new int[slotCount];
+		int   firstSeg  = Math.max(0, lastSeg - realCount + 1);
+		int   slot      = 0;
+		for (int i = firstSeg; i <= lastSeg && slot < slotCount; i++) {
+			segments[slot++] = i;
 		}
-		// Display the last segment if the setting is enabled.
-		if (Settings.historyAlwaysShowLast.get() && run.getRowCount() > 0) {
-			segmentRows.get(run.getRowCount() - 1).setVisible(true);
+		if (showLast && snapshot.getRowCount() > 0 && slot < slotCount) {
+			segments[slot++] = snapshot.getRowCount() - 1;
 		}
+		Arrays.fill(segments, slot, slotCount, -1);
+
+		// Keep the rows already bound to a segment in view, and rebind the
+		// others to the remaining segments.
+		SegmentRow[] slots = new SegmentRow[slotCount];
+		List<SegmentRow> unused = new ArrayList<SegmentRow>();
+		for (SegmentRow row : segmentRows) {
+			int position = -1;
+			if (row.index > -1) {
+				for (int i = 0; i < slot; i++) {
+					if (segments[i] == row.index) {
+						position = i;
+						break;
+					}
+				}
+			}
+			if (position > -1) {
+				slots[position] = row;
+			} else {
+				unused.add(row);
+			}
+		}
+		GridBagLayout layout = (GridBagLayout) getLayout();
+		boolean moved = false;
+		for (int i = 0; i < slotCount; i++) {
+			if (slots[i] == null) {
+				slots[i] = unused.remove(0);
+				slots[i].bind(segments[i]);
+			}
+			if (slots[i] != segmentRows.get(i)) {
+				layout.setConstraints(slots[i], getRowConstraints(i));
+				segmentRows.set(i, slots[i]);
+				moved = true;
+			}
+		}
+		if (moved) {
+			revalidate();
+		}
+	}
+
+	/**
+	 * Returns the row currently bound to the given segment.
+	 *
+	 * @param   index   - the index of the segment.
+	 * @return  the row displaying the segment, or {@code null} if the segment
+	 *          is not in the viewport.
+	 */
+	private SegmentRow getRow(int index) {
+		for (SegmentRow row : segmentRows) {
+			if (index > -1 && row.index == index) {
+				return row;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the layout constraints of the row displayed in the given slot.
+	 */
+	private static GBC getRowConstraints(int slot) {
+		return GBC.grid(0, slot).fill(GBC.HORIZONTAL).anchor(GBC.NORTH).weight(1.0, 0.0);
 	}
 
 	private void updateColumnWidth() {
 		int width = 0;
 		int height = 0;
-		if (run.hasPreviousSegment()) {
-			SegmentRow previous = segmentRows.get(run.getPrevious());
+		SegmentRow previous = getRow(snapshot.getPrevious());
+		if (snapshot.hasPreviousSegment() && previous != null) {
 			FontMetrics metrics = getGraphics().getFontMetrics(
 					Settings.historyTimeFont.get()
 			);
@@ -419,44 +583,57 @@ public class History extends JPanel {
 		}
 	}
 
+	/**
+	 * Moves the marker to the current segment, refreshing only the rows of
+	 * the segments it leaves and reaches.
+	 */
+	private void updateMarker() {
+		int current = snapshot.getCurrent();
+		if (current != marked) {
+			updateColors(MARKER, marked, marked);
+			updateColors(MARKER, current, current);
+			marked = current;
+		}
+	}
+
 	private void updateColors(int identifier, int first, int last) {
-		for (int i = first; i <= last; i++) {
-			segmentRows.get(i).updateColors(i, identifier);
+		for (SegmentRow row : segmentRows) {
+			if (row.index >= first && row.index <= last) {
+				row.updateColors(identifier);
+			}
 		}
 	}
 
 	private void updateColors(int identifier) {
-		updateColors(identifier, 0, run.getRowCount() - 1);
+		for (SegmentRow row : segmentRows) {
+			row.updateColors(identifier);
+		}
 	}
 
 	private void updateValues(int identifier, int first, int last) {
-		for (int i = first; i <= last; i++) {
-			segmentRows.get(i).updateValues(i, identifier);
+		for (SegmentRow row : segmentRows) {
+			if (row.index >= first && row.index <= last) {
+				row.updateValues(identifier);
+			}
 		}
 	}
 
 	private void updateValues(int identifier) {
-		updateValues(identifier, 0, run.getRowCount() - 1);
-	}
-
-	private void updateVisibility(int identifier, int first, int last) {
-		for (int i = first; i <= last; i++) {
-			segmentRows.get(i).updateVisibility(i, identifier);
+		for (SegmentRow row : segmentRows) {
+			row.updateValues(identifier);
 		}
 	}
 
 	private void updateVisibility(int identifier) {
-		updateVisibility(identifier, 0, run.getRowCount() - 1);
-	}
-
-	private void updateFonts(int identifier, int first, int last) {
-		for (int i = first; i <= last; i++) {
-			segmentRows.get(i).updateFonts(i, identifier);
+		for (SegmentRow row : segmentRows) {
+			row.updateVisibility(identifier);
 		}
 	}
 
 	private void updateFonts(int identifier) {
-		updateFonts(identifier, 0, run.getRowCount() - 1);
+		for (SegmentRow row : segmentRows) {
+			row.updateFonts(identifier);
+		}
 	}
 
 	private void updateSize() {
@@ -475,6 +652,12 @@ public class History extends JPanel {
 
 		// ----------------------------------------------------- ATTRIBUTES
 
+		/**
+		 * Index of the segment represented by this row, or -1 if this row is
+		 * not bound to any segment.
+		 */
+		int index;
+
 		/**
 		 * The icon (if any) of this segment.
 		 */
@@ -519,35 +702,56 @@ public class History extends JPanel {
 			live     = new JLabel();
 			delta    = new JLabel();
 			counters = new ArrayList<JLabel>();
+			index    = -1;
 
 			icon.setHorizontalAlignment(JLabel.CENTER);
 			setOpaque(false);
+			setVisible(false);
 			placeComponents(Settings.historyMultiline.get());
 		}
 
 		// ------------------------------------------------------ INTERFACE
 
+		/**
+		 * Binds this row to the given segment and fills it with the values of
+		 * this segment. An unbound row is hidden.
+		 *
+		 * @param   segment - index of the segment to represent, or -1 to
+		 *                    unbind this row.
+		 */
+		void bind(int segment) {
+			index = segment;
+			setVisible(index > -1);
+			if (index > -1) {
+				updateValues(NAME | TIME | ICON | LIVE);
+				updateColors(NAME | TIME | MARKER | LIVE);
+			}
+		}
+
 		/**
 		 * Updates the values of the group of components specified by the
-		 * identifier for this segment row. The row must know which segment
-		 * he represents by passing the segment index.
+		 * identifier for this segment row. An unbound row only updates its
+		 * layout, its values being filled when it is bound.
 		 *
-		 * @param   index       - index of the segment represented by this row.
 		 * @param   identifier  - one of the constant update identifier.
 		 */
-		void updateValues(int index, int identifier) {
+		void updateValues(int identifier) {
+			if (index < 0) {
+				identifier &= LINE;
+			}
+			updates++;
 			if ((identifier & NAME) == NAME) {
 				name.setText(run.getSegment(index).getName());
 			}
 			if ((identifier & TIME) == TIME) {
-				Time setTime = run.getTime(index, Segment.SET);
+				Time setTime = snapshot.getTime(index, Segment.SET);
 				time.setText("" + (setTime == null ? "?" : setTime));
 			}
 			if ((identifier & ICON) == ICON) {
 				int  iconSize = Settings.historyIconSize.get();
 				ImageIcon runIcon  = run.getSegment(index).getIcon();
 				if (runIcon != null) {
-					icon.setIcon(Images.rescale(runIcon, iconSize));
+					icon.setIcon(Images.getScaled(runIcon, iconSize));
 				} else {
 					icon.setIcon(null);
 				}
@@ -563,8 +767,8 @@ public class History extends JPanel {
 				JLabel realDelta = (merge == Merge.DELTA) ? time : delta;
 				JLabel realLive  = (merge == Merge.LIVE ) ? time : live;
 
-				if (index < run.getCurrent()) {
-					Time liveTime = run.getTime(index, Segment.LIVE);
+				if (index < snapshot.getCurrent()) {
+					Time liveTime = snapshot.getTime(index, Segment.LIVE);
 					if (liveTime == null) {
 						realLive.setText("?");
 						realDelta.setText("[?]");
@@ -572,7 +776,7 @@ public class History extends JPanel {
 						realLive.setText("" + liveTime);
 
 						String    text = "?";
-						Time deltaTime = run.getTime(index, Segment.DELTA);
+						Time deltaTime = snapshot.getTime(index, Segment.DELTA);
 						if (deltaTime != null) {
 							text = deltaTime.toString(true);
 						}
@@ -583,7 +787,7 @@ public class History extends JPanel {
 						}
 					}
 				} else {
-					Time setTime = run.getTime(index, Segment.SET);
+					Time setTime = snapshot.getTime(index, Segment.SET);
 					realLive.setText(
 							(merge == Merge.LIVE) ?
 							"" + (setTime == null ? "?" : setTime)
@@ -595,12 +799,12 @@ public class History extends JPanel {
 							: ""
 					);
 				}
-				updateColors(index, LIVE);
+				updateColors(LIVE);
 			}
 			Toolkit.getDefaultToolkit().sync();
 		}
 
-		void updateVisibility(int index, int identifier) {
+		void updateVisibility(int identifier) {
 			if ((identifier & LIVE) == LIVE) {
 				live.setVisible(
 						Settings.historyLiveTimes.get() || Settings.historyTabular.get()
@@ -615,7 +819,11 @@ public class History extends JPanel {
 			}
 		}
 
-		void updateColors(int index, int identifier) {
+		void updateColors(int identifier) {
+			if (index < 0) {
+				return;
+			}
+			updates++;
 			if ((identifier & NAME) == NAME) {
 				name.setForeground(Settings.colorForeground.get());
 			}
@@ -623,7 +831,7 @@ public class History extends JPanel {
 				time.setForeground(Settings.colorTime.get());
 			}
 			if ((identifier & MARKER) == MARKER) {
-				if (run.getCurrent() == index) {
+				if (snapshot.getCurrent() == index) {
 					name.setForeground(Settings.colorHighlight.get());
 				} else {
 					name.setForeground(Settings.colorForeground.get());
@@ -632,16 +840,16 @@ public class History extends JPanel {
 			if ((identifier & LIVE) == LIVE && (index > -1)) {
 				Color neut  = Settings.colorTime.get();
 				Color recd  = Settings.colorNewRecord.get();
-				int   prev  = run.getPrevious();
+				int   prev  = snapshot.getPrevious();
 
 				Merge  merge     = Settings.historyMerge.get();
 				JLabel realDelta = (merge == Merge.DELTA) ? time : delta;
 				JLabel realLive  = (merge == Merge.LIVE ) ? time : live;
 
 				if (index <= prev) {
-					Time liveTime  = run.getTime(index, Segment.LIVE);
-					Time deltaTime = run.getTime(index, Segment.DELTA);
-					if (run.isBestSegment(index)) {
+					Time liveTime  = snapshot.getTime(index, Segment.LIVE);
+					Time deltaTime = snapshot.getTime(index, Segment.DELTA);
+					if (snapshot.isBestSegment(index)) {
 						realLive.setForeground(recd);
 						realDelta.setForeground(recd);
 					} else {
@@ -651,7 +859,7 @@ public class History extends JPanel {
 								realLive.setForeground(neut);
 								realDelta.setForeground(neut);
 							} else {
-								boolean isGainingTime = run.isBetterSegment(run.getPrevious());
+								boolean isGainingTime = snapshot.isBetterSegment(index);
 								if (compare > 0) {
 									Color color;
 									if (isGainingTime)
@@ -681,7 +889,7 @@ public class History extends JPanel {
 			}
 		}
 
-		void updateFonts(int index, int identifier) {
+		void updateFonts(int identifier) {
 			if ((identifier & NAME) == NAME) {
 				name.setFont(Settings.historySegmentFont.get());
 			}
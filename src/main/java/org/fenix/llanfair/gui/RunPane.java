@@ -1,5 +1,6 @@
 package org.fenix.llanfair.gui;
 
+import org.fenix.llanfair.PropertyDispatcher;
 import org.fenix.llanfair.Run;
 import org.fenix.llanfair.Run.State;
 import org.fenix.llanfair.config.Settings;
@@ -10,6 +11,7 @@ import javax.swing.*;
 import javax.swing.event.TableModelEvent;
 import java.awt.*;
 import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -82,6 +84,35 @@ public class RunPane extends JPanel {
 	 */
 	private Run run;
 
+	/**
+	 * Snapshot of the run as of the last event handled, from which the state
+	 * and the attempt counters are read.
+	 */
+	private Run.Snapshot snapshot;
+
+	/**
+	 * Updates requested by the property change events, applied once the
+	 * burst of events they belong to has been processed.
+	 */
+	private final UpdateScheduler updates = new UpdateScheduler(
+			"run pane", new UpdateScheduler.Updates() {
+		@Override public void updateFonts(int identifier) {
+			RunPane.this.updateFonts(identifier);
+		}
+		@Override public void updateVisibility(int identifier) {
+			RunPane.this.updateVisibility(identifier);
+		}
+		@Override public void updateValues(int identifier) {
+			RunPane.this.updateValues(identifier);
+		}
+		@Override public void updateColors(int identifier) {
+			RunPane.this.updateColors(identifier);
+		}
+		@Override public void updateSize() {
+			RunPane.this.updateSize();
+		}
+	});
+
 	/**
 	 * Label displaying the title of the current run.
 	 */
@@ -176,6 +207,7 @@ public class RunPane extends JPanel {
 			throw new NullPointerException("null run");
 		}
 		this.run = run;
+		snapshot = run.getSnapshot();
 		core.setRun(run);
 		graph.setRun(run);
 		history.setRun(run);
@@ -201,61 +233,93 @@ public class RunPane extends JPanel {
 	}
 
 	/**
-	 * Callback invoked by the parent when the run or the application's
-	 * settings have seen one of their properties updated.
+	 * Subscribes the sub-components, then this panel, to the properties they
+	 * display, so that the dispatcher only calls them for those.
 	 *
-	 * @param   event   - the event describing the update.
+	 * @param   dispatcher  - the dispatcher of the property change events.
 	 */
-	public void processPropertyChangeEvent(PropertyChangeEvent event) {
-		core.processPropertyChangeEvent(event);
-		graph.processPropertyChangeEvent(event);
-		history.processPropertyChangeEvent(event);
-		footer.processPropertyChangeEvent(event);
+	public void subscribe(PropertyDispatcher dispatcher) {
+		core.subscribe(dispatcher);
+		graph.subscribe(dispatcher);
+		history.subscribe(dispatcher);
+		footer.subscribe(dispatcher);
+
+		PropertyChangeListener listener = new PropertyChangeListener() {
+			@Override public void propertyChange(PropertyChangeEvent event) {
+				processPropertyChangeEvent(event);
+			}
+		};
+		dispatcher.subscribe(listener,
+				Run.STATE_PROPERTY, Run.NAME_PROPERTY, Run.SUBTITLE_PROPERTY,
+				Run.ATTEMPT_COUNTER_PROPERTY,
+				Run.COMPLETED_ATTEMPT_COUNTER_PROPERTY);
+		dispatcher.subscribe(listener,
+				Settings.colorBackground, Settings.colorForeground,
+				Settings.colorSeparators, Settings.historyRowCount,
+				Settings.colorTitle, Settings.colorSubTitle,
+				Settings.graphDisplay, Settings.footerDisplay,
+				Settings.headerShowTitle, Settings.headerShowSubtitle,
+				Settings.headerShowAttempts, Settings.accuracy,
+				Settings.headerTitleFont, Settings.headerSubTitleFont,
+				Settings.coreFont, Settings.windowUserResizable,
+				Settings.windowWidth);
+	}
 
+	/**
+	 * Callback invoked by the dispatcher when the run or the application's
+	 * settings have seen one of the properties we subscribed to updated.
+	 *
+	 * @param   event   - the event describing the update.
+	 */
+	private void processPropertyChangeEvent(PropertyChangeEvent event) {
+		if (event instanceof Run.Event && event.getSource() == run) {
+			snapshot = ((Run.Event) event).getSnapshot();
+		}
 		String property = event.getPropertyName();
 		if (Run.STATE_PROPERTY.equals(property)) {
-			if (run.getState() == State.READY || run.getState() == State.NULL) {
-				updateValues(ATTEMPTS | SEPARATOR);
+			if (snapshot.getState() == State.READY
+					|| snapshot.getState() == State.NULL) {
+				updates.updateValues(ATTEMPTS | SEPARATOR);
 			}
 		} else if (Run.NAME_PROPERTY.equals(property)) {
-			updateValues(TITLE);
+			updates.updateValues(TITLE);
 		} else if (Settings.colorBackground.equals(property)) {
-			updateColors(BACKGROUND);
+			updates.updateColors(BACKGROUND);
 		} else if (Settings.colorForeground.equals(property)) {
-			updateColors(TEXT);
+			updates.updateColors(TEXT);
 		} else if (Settings.colorSeparators.equals(property)) {
-			updateColors(SEPARATOR);
+			updates.updateColors(SEPARATOR);
 		} else if (Settings.historyRowCount.equals(property)) {
-			updateValues(SEPARATOR);
+			updates.updateValues(SEPARATOR);
 		} else if (Settings.colorTitle.equals(property)
 		           || Settings.colorSubTitle.equals(property)) {
-			updateColors(TITLE);
+			updates.updateColors(TITLE);
 		} else if (Settings.graphDisplay.equals(property)) {
-			updateVisibility(GRAPH);
+			updates.updateVisibility(GRAPH);
 		} else if (Settings.footerDisplay.equals(property)) {
-			updateVisibility(FOOTER);
+			updates.updateVisibility(FOOTER);
 		} else if (Settings.headerShowTitle.equals(property)) {
-			updateVisibility(TITLE);
-			updateValues(SEPARATOR);
+			updates.updateVisibility(TITLE);
+			updates.updateValues(SEPARATOR);
 		} else if (Settings.headerShowSubtitle.equals(property)) {
-			updateVisibility(SUBTITLE);
-			updateValues(SEPARATOR);
+			updates.updateVisibility(SUBTITLE);
+			updates.updateValues(SEPARATOR);
 		} else if (Settings.headerShowAttempts.equals(property)) {
-			updateVisibility(ATTEMPTS);
-			updateValues(SEPARATOR);
+			updates.updateVisibility(ATTEMPTS);
+			updates.updateValues(SEPARATOR);
 		} else if (Settings.accuracy.equals(property)
 				|| Run.SUBTITLE_PROPERTY.equals(property)) {
-			updateValues(TITLE);
+			updates.updateValues(TITLE);
 		} else if (Run.ATTEMPT_COUNTER_PROPERTY.equals(property) ||
 			Run.COMPLETED_ATTEMPT_COUNTER_PROPERTY.equals(property)) {
-			updateValues(ATTEMPTS);
+			updates.updateValues(ATTEMPTS);
 		} else if (Settings.headerTitleFont.equals(property)
 		           || Settings.headerSubTitleFont.equals(property)) {
-			updateFonts(TITLE);
+			updates.updateFonts(TITLE);
 		} else if (Settings.coreFont.equals(property)) {
-			updateFonts(ALL & ~TITLE);
+			updates.updateFonts(ALL & ~TITLE);
 		} else if (Settings.windowUserResizable.equals(property) || Settings.windowWidth.equals(property)) {
-			updateSize();
+			updates.updateSize();
 		}
 	}
 
@@ -269,6 +333,8 @@ public class RunPane extends JPanel {
 		core.processTableModelEvent(event);
 		graph.processTableModelEvent(event);
 		history.processTableModelEvent(event);
+		footer.processTableModelEvent(event);
+		snapshot = run.getSnapshot();
 		if (event.getType() == TableModelEvent.INSERT
 				|| event.getType() == TableModelEvent.DELETE
 				|| event.getType() == TableModelEvent.UPDATE) {
@@ -318,8 +384,8 @@ public class RunPane extends JPanel {
 			subTitle.setText(run.getSubTitle());
 		}
 		if ((identifier & ATTEMPTS) == ATTEMPTS) {
-			int attempts = run.getNumberOfAttempts();
-			int completedAttempts = run.getNumberOfCompletedAttempts();
+			int attempts = snapshot.getNumberOfAttempts();
+			int completedAttempts = snapshot.getNumberOfCompletedAttempts();
 			if (attempts == 0)
 				attemptCounter.setText("0");
 			else if (completedAttempts == 0)
@@ -327,7 +393,7 @@ public class RunPane extends JPanel {
 			else
 				attemptCounter.setText(String.format("%d / %d", completedAttempts, attempts));
 
-			int sessionAttempts = run.getSessionAttempts();
+			int sessionAttempts = snapshot.getSessionAttempts();
 			sessionAttemptCounter.setText(String.format("%d", sessionAttempts));
 		}
 		if ((identifier & SEPARATOR) == SEPARATOR) {
@@ -0,0 +1,414 @@
+package org.fenix.llanfair.gui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A label dedicated to the display of a timer. The glyphs a time is made of
+ * (digits, colon, period and minus sign) are rendered once for the font and
+ * color of the label into a glyph atlas, and the text is painted by copying
+ * glyphs from this atlas. Digits all take the width of the widest one, so
+ * the text does not move as the time changes, and only the glyphs that
+ * changed since the last text are repainted.
+ *
+ * <p>Any other text, such as the state of the run, is painted as regular
+ * text.</p>
+ */
+class TimerLabel extends JComponent {
+
+	// -------------------------------------------------------------- CONSTANTS
+
+	private static final long serialVersionUID = 1000L;
+
+	/**
+	 * The glyphs of the atlas, in order.
+	 */
+	private static final String GLYPHS = "0123456789:.-";
+
+	/**
+	 * Maximum number of atlases kept, one per color the label was painted in.
+	 */
+	private static final int MAX_ATLASES = 8;
+
+	// ------------------------------------------------------------- ATTRIBUTES
+
+	/**
+	 * The text of the label, in its first {@code length} characters.
+	 */
+	private char[] text;
+
+	private int length;
+
+	/**
+	 * Whether every character of the text is in the atlas.
+	 */
+	private boolean glyphText;
+
+	/**
+	 * Width of each glyph in the current font, or {@code null} if not yet
+	 * computed. Digits all take the width of the widest one.
+	 */
+	private int[] widths;
+
+	/**
+	 * Atlases rendered for the current font, by color.
+	 */
+	private final Map<Color, Atlas> atlases;
+
+	// ----------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Creates an empty timer label.
+	 */
+	TimerLabel() {
+		text      = new char[16];
+		length    = 0;
+		glyphText = true;
+		widths    = null;
+		atlases   = new HashMap<Color, Atlas>();
+
+		setOpaque(false);
+	}
+
+	// -------------------------------------------------------------- INTERFACE
+
+	/**
+	 * Returns the text displayed by this label.
+	 *
+	 * @return  the text of this label.
+	 */
+	String getText() {
+		return new String(text, 0, length);
+	}
+
+	/**
+	 * Sets the text displayed by this label.
+	 *
+	 * @param   text    - the new text, {@code null} for no text.
+	 */
+	void setText(String text) {
+		if (text == null) {
+			setText(new char[0], 0);
+		} else {
+			setText(text.toCharArray(), text.length());
+		}
+	}
+
+	/**
+	 * Sets the text displayed by this label to the given characters, which
+	 * are copied. If only some glyphs of a time changed, only those are
+	 * repainted.
+	 *
+	 * @param   chars   - the characters of the new text.
+	 * @param   count   - the number of characters of the new text.
+	 */
+	void setText(char[] chars, int count) {
+		boolean newGlyphText = isGlyphText(chars, count);
+
+		if (glyphText && newGlyphText && count == length) {
+			// Find the glyphs which changed, all digits having the same width.
+			boolean sameWidth = true;
+			int     first     = -1;
+			int     last      = -1;
+			for (int i = 0; i < count; i++) {
+				if (chars[i] != text[i]) {
+					sameWidth &= isDigit(chars[i]) && isDigit(text[i]);
+					if (first < 0) {
+						first = i;
+					}
+					last = i;
+				}
+			}
+			if (first < 0) {
+				return;
+			}
+			if (sameWidth && getWidths() != null) {
+				System.arraycopy(chars, first, text, first, last - first + 1);
+				int x = getInsets().left + getWidth(text, 0, first);
+				int w = getWidth(text, first, last + 1);
+				repaint(x, 0, w, getHeight());
+				return;
+			}
+		}
+
+		if (text.length < count) {
+			text = new char[count];
+		}
+		System.arraycopy(chars, 0, text, 0, count);
+		length    = count;
+		glyphText = newGlyphText;
+		revalidate();
+		repaint();
+	}
+
+	@Override public void setFont(Font font) {
+		atlases.clear();
+		widths = null;
+		super.setFont(font);
+	}
+
+	@Override public Dimension getPreferredSize() {
+		if (isPreferredSizeSet()) {
+			return super.getPreferredSize();
+		}
+		return getPreferredSize(text, length, glyphText);
+	}
+
+	/**
+	 * Returns the preferred size of this label if it displayed the given
+	 * text, measured as it would be painted: digits all take the width of
+	 * the widest one.
+	 *
+	 * @param   text    - the text to measure.
+	 * @return  the size of this label displaying the text.
+	 */
+	Dimension getPreferredSize(String text) {
+		char[] chars = text.toCharArray();
+		return getPreferredSize(chars, chars.length,
+				isGlyphText(chars, chars.length));
+	}
+
+	@Override public Dimension getMinimumSize() {
+		return getPreferredSize();
+	}
+
+	// -------------------------------------------------------------- CALLBACKS
+
+	/**
+	 * Paints the text, copying the glyphs from the atlas matching the color
+	 * of the label and the scale of the graphics.
+	 */
+	@Override protected void paintComponent(Graphics g) {
+		Font font = getFont();
+		if (font == null || length == 0) {
+			return;
+		}
+		Graphics2D  g2      = (Graphics2D) g;
+		Insets      insets  = getInsets();
+		FontMetrics metrics = getFontMetrics(font);
+		int top = insets.top + (getHeight() - insets.top - insets.bottom
+				- metrics.getHeight()) / 2;
+
+		if (!glyphText) {
+			g2.setRenderingHints(getTextHints());
+			g2.setColor(getForeground());
+			g2.setFont(font);
+			g2.drawChars(text, 0, length, insets.left, top + metrics.getAscent());
+			return;
+		}
+
+		AffineTransform transform = g2.getTransform();
+		double    scale = Math.max(1.0, transform.getScaleY());
+		Atlas     atlas = getAtlas(getForeground(), scale);
+		Rectangle clip  = g2.getClipBounds();
+		int x = insets.left;
+		for (int i = 0; i < length; i++) {
+			int glyph = indexOf(text[i]);
+			int width = widths[glyph];
+			if (clip == null
+					|| (x < clip.x + clip.width && x + width > clip.x)) {
+				int sx = atlas.offsets[glyph];
+				g2.drawImage(atlas.image,
+						x, top, x + width, top + atlas.height,
+						sx, 0, sx + atlas.cellWidths[glyph], atlas.image.getHeight(),
+						null);
+			}
+			x += width;
+		}
+	}
+
+	// -------------------------------------------------------------- UTILITIES
+
+	/**
+	 * Returns the width of each glyph in the current font, or {@code null} if
+	 * the label has no font yet.
+	 */
+	private int[] getWidths() {
+		if (widths == null) {
+			Font font = getFont();
+			if (font == null) {
+				return null;
+			}
+			FontMetrics metrics = getFontMetrics(font);
+			int digitWidth = 0;
+			for (char c = '0'; c <= '9'; c++) {
+				digitWidth = Math.max(digitWidth, metrics.charWidth(c));
+			}
+			widths = new int[GLYPHS.length()];
+			for (int i = 0; i < widths.length; i++) {
+				char c = GLYPHS.charAt(i);
+				widths[i] = isDigit(c) ? digitWidth : metrics.charWidth(c);
+			}
+		}
+		return widths;
+	}
+
+	private Dimension getPreferredSize(char[] chars, int count,
+			boolean glyphs) {
+		Insets insets = getInsets();
+		Font   font   = getFont();
+		if (font == null) {
+			return new Dimension(insets.left + insets.right,
+					insets.top + insets.bottom);
+		}
+		FontMetrics metrics = getFontMetrics(font);
+		int width;
+		if (glyphs) {
+			width = getWidth(chars, 0, count);
+		} else {
+			width = metrics.charsWidth(chars, 0, count);
+		}
+		return new Dimension(width + insets.left + insets.right,
+				metrics.getHeight() + insets.top + insets.bottom);
+	}
+
+	/**
+	 * Returns the width of the given characters, all in the atlas.
+	 */
+	private int getWidth(char[] chars, int start, int end) {
+		int[] glyphWidths = getWidths();
+		int   width       = 0;
+		for (int i = start; i < end; i++) {
+			width += glyphWidths[indexOf(chars[i])];
+		}
+		return width;
+	}
+
+	/**
+	 * Returns the atlas of the current font in the given color, rendering it
+	 * if needed. The atlas is rendered for the given scale, so that it stays
+	 * sharp on scaled displays.
+	 */
+	private Atlas getAtlas(Color color, double scale) {
+		Atlas atlas = atlases.get(color);
+		if (atlas == null || atlas.scale != scale) {
+			if (atlases.size() >= MAX_ATLASES) {
+				atlases.clear();
+			}
+			atlas = new Atlas(getFontMetrics(getFont()), getWidths(), color, scale);
+			atlases.put(color, atlas);
+		}
+		return atlas;
+	}
+
+	/**
+	 * Indicates whether every given character is in the atlas.
+	 */
+	private static boolean isGlyphText(char[] chars, int count) {
+		for (int i = 0; i < count; i++) {
+			if (indexOf(chars[i]) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int indexOf(char c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		switch (c) {
+		case ':':
+			return 10;
+		case '.':
+			return 11;
+		case '-':
+			return 12;
+		default:
+			return -1;
+		}
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Returns the text rendering hints of the desktop, as used by the labels.
+	 * Both the atlases and the regular text are rendered with them, so that
+	 * the glyphs look the same whichever way they are painted.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<RenderingHints.Key, Object> getTextHints() {
+		Object hints = Toolkit.getDefaultToolkit().getDesktopProperty(
+				"awt.font.desktophints");
+		if (hints instanceof Map) {
+			return (Map<RenderingHints.Key, Object>) hints;
+		}
+		Map<RenderingHints.Key, Object> defaults
+				= new HashMap<RenderingHints.Key, Object>();
+		defaults.put(RenderingHints.KEY_TEXT_ANTIALIASING,
+				RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		return defaults;
+	}
+
+	// ---------------------------------------------------------- INTERNAL TYPE
+
+	/**
+	 * The glyphs of a font, in a given color, rendered side by side in an
+	 * image. Each glyph is centered in a cell as wide as its width.
+	 */
+	private static final class Atlas {
+
+		/**
+		 * The rendered glyphs, at the scale of the atlas.
+		 */
+		final BufferedImage image;
+
+		/**
+		 * Scale the glyphs were rendered at.
+		 */
+		final double scale;
+
+		/**
+		 * Width of each glyph in the image, and its abscissa.
+		 */
+		final int[] cellWidths;
+
+		final int[] offsets;
+
+		/**
+		 * Height of the glyphs, in pixels before scaling.
+		 */
+		final int height;
+
+		Atlas(FontMetrics metrics, int[] widths, Color color, double scale) {
+			int count  = GLYPHS.length();
+			this.scale = scale;
+			cellWidths = new int[count];
+			offsets    = new int[count];
+			height     = metrics.getHeight();
+
+			int imageWidth = 0;
+			for (int i = 0; i < count; i++) {
+				cellWidths[i] = (int) Math.ceil(widths[i] * scale);
+				offsets[i]    = imageWidth;
+				imageWidth   += cellWidths[i];
+			}
+
+			image = new BufferedImage(Math.max(1, imageWidth),
+					Math.max(1, (int) Math.ceil(height * scale)),
+					BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g2 = image.createGraphics();
+			g2.setRenderingHints(getTextHints());
+			g2.setFont(metrics.getFont());
+			g2.setColor(color);
+			for (int i = 0; i < count; i++) {
+				String glyph = GLYPHS.substring(i, i + 1);
+				// Center the glyph in its cell.
+				Graphics2D cell = (Graphics2D) g2.create(
+						offsets[i], 0, cellWidths[i], image.getHeight());
+				cell.scale(scale, scale);
+				cell.drawString(glyph,
+						(widths[i] - metrics.stringWidth(glyph)) / 2.0F,
+						(float) metrics.getAscent());
+				cell.dispose();
+			}
+			g2.dispose();
+		}
+	}
+}
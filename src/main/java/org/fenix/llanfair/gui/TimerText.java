@@ -0,0 +1,72 @@
+package org.fenix.llanfair.gui;
+
+import org.fenix.llanfair.Clock;
+import org.fenix.llanfair.Time;
+import org.fenix.llanfair.config.Accuracy;
+
+/**
+ * Text of a timer, formatted into a reused buffer. The text is only
+ * formatted again when the displayed unit of time changes, and never
+ * allocates once the buffer is created.
+ */
+final class TimerText {
+
+	private final char[] chars = new char[Time.FORMAT_LENGTH + 1];
+
+	private int length = 0;
+
+	private Accuracy accuracy = null;
+
+	private long unit = 0L;
+
+	private boolean negative = false;
+
+	/**
+	 * Sets the number of nanoseconds to display.
+	 *
+	 * @return  {@code true} if the displayed text changed.
+	 */
+	boolean set(long nanos, Accuracy accuracy) {
+		boolean isNegative = (nanos < 0L);
+		long    millis     = Math.abs(nanos) / Clock.NANOS_PER_MILLI;
+		long    newUnit    = Time.getDisplayUnit(millis, accuracy);
+		if (accuracy == this.accuracy && newUnit == unit
+				&& isNegative == negative) {
+			return false;
+		}
+		this.accuracy = accuracy;
+		unit          = newUnit;
+		negative      = isNegative;
+
+		int count = 0;
+		if (isNegative) {
+			chars[count++] = '-';
+		}
+		length = count + Time.format(millis, accuracy, chars, count);
+		return true;
+	}
+
+	/**
+	 * Forces the next call to {@link #set(long, Accuracy)} to update the
+	 * text, after the label was given another text.
+	 */
+	void invalidate() {
+		accuracy = null;
+	}
+
+	/**
+	 * Returns the buffer holding the text, which is only valid until the
+	 * next call to {@link #set(long, Accuracy)}.
+	 */
+	char[] getChars() {
+		return chars;
+	}
+
+	int getLength() {
+		return length;
+	}
+
+	@Override public String toString() {
+		return new String(chars, 0, length);
+	}
+}
@@ -0,0 +1,173 @@
+package org.fenix.llanfair.gui;
+
+import org.fenix.utils.PerfCounter;
+
+import javax.swing.*;
+
+/**
+ * Collects the updates a component requests while it processes a burst of
+ * events, such as the attempt counter, state and current segment changes of
+ * a run starting, and applies them once the pending events have been
+ * processed. Updates are masks of the update identifiers of the component,
+ * so that a group of sub-components requested by several events is only
+ * updated once. A resize of the component is applied after every other
+ * update, as they all may change its size.
+ *
+ * <p>When launched with {@code -Dllanfair.perf=true}, every flush reports the
+ * number of update passes requested and the number actually applied.</p>
+ */
+final class UpdateScheduler implements Runnable {
+
+	// ------------------------------------------------------------- ATTRIBUTES
+
+	private final String name;
+
+	private final Updates updates;
+
+	private int fonts;
+
+	private int visibility;
+
+	private int values;
+
+	private int colors;
+
+	private boolean size;
+
+	private boolean scheduled;
+
+	/**
+	 * Number of update passes requested since the last flush, and saved
+	 * since the creation of the scheduler.
+	 */
+	private int requested;
+
+	private long saved;
+
+	// ----------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Creates a scheduler applying its updates to the given component.
+	 *
+	 * @param   name    - the name of the component in the reports.
+	 * @param   updates - the update methods of the component.
+	 */
+	UpdateScheduler(String name, Updates updates) {
+		this.name    = name;
+		this.updates = updates;
+	}
+
+	// -------------------------------------------------------------- INTERFACE
+
+	void updateFonts(int identifier) {
+		fonts |= identifier;
+		schedule(identifier);
+	}
+
+	void updateVisibility(int identifier) {
+		visibility |= identifier;
+		schedule(identifier);
+	}
+
+	void updateValues(int identifier) {
+		values |= identifier;
+		schedule(identifier);
+	}
+
+	void updateColors(int identifier) {
+		colors |= identifier;
+		schedule(identifier);
+	}
+
+	void updateSize() {
+		size = true;
+		schedule();
+	}
+
+	// -------------------------------------------------------------- CALLBACKS
+
+	/**
+	 * Applies the pending updates: fonts first, as they may change the size
+	 * of the components, then visibility, values and colors, and the size of
+	 * the component last, once its contents are up to date.
+	 */
+	@Override public void run() {
+		int pendingFonts      = fonts;
+		int pendingVisibility = visibility;
+		int pendingValues     = values;
+		int pendingColors     = colors;
+		boolean pendingSize   = size;
+		fonts      = 0;
+		visibility = 0;
+		values     = 0;
+		colors     = 0;
+		size       = false;
+		scheduled  = false;
+
+		int applied = 0;
+		if (pendingFonts != 0) {
+			updates.updateFonts(pendingFonts);
+			applied++;
+		}
+		if (pendingVisibility != 0) {
+			updates.updateVisibility(pendingVisibility);
+			applied++;
+		}
+		if (pendingValues != 0) {
+			updates.updateValues(pendingValues);
+			applied++;
+		}
+		if (pendingColors != 0) {
+			updates.updateColors(pendingColors);
+			applied++;
+		}
+		if (pendingSize) {
+			updates.updateSize();
+			applied++;
+		}
+
+		if (PerfCounter.ENABLED) {
+			saved += requested - applied;
+			PerfCounter.report(
+					"%s passes: %d requested, %d applied (%d saved overall)",
+					name, requested, applied, saved
+			);
+		}
+		requested = 0;
+	}
+
+	// -------------------------------------------------------------- UTILITIES
+
+	private void schedule(int identifier) {
+		if (identifier != 0) {
+			schedule();
+		}
+	}
+
+	private void schedule() {
+		requested++;
+		if (!scheduled) {
+			scheduled = true;
+			SwingUtilities.invokeLater(this);
+		}
+	}
+
+	// --------------------------------------------------------- INTERNAL TYPES
+
+	/**
+	 * The update methods of a component, each but the resize taking a mask
+	 * of its update identifiers.
+	 */
+	interface Updates {
+
+		void updateFonts(int identifier);
+
+		void updateVisibility(int identifier);
+
+		void updateValues(int identifier);
+
+		void updateColors(int identifier);
+
+		void updateSize();
+	}
+}
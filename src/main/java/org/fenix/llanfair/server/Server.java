@@ -3,89 +3,293 @@ package org.fenix.llanfair.server;
 import org.fenix.llanfair.Actions;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.Arrays;
-import java.util.Scanner;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
 
+/**
+ * Non-blocking server receiving timing events from external tools such as
+ * the SourceAutoRecord plugin. A single {@link Selector} multiplexes every
+ * connected client so any number of them can be connected at the same time,
+ * and a client disconnecting does not stop the server.
+ */
 public class Server implements Runnable {
+
+    /**
+     * Size in bytes of the receiving buffer of each client. A line longer than
+     * this is discarded.
+     */
+    private static final int BUFFER_SIZE = 1024;
+
     private Actions actions;
 
-    private boolean doStop = false;
+    private volatile boolean doStop = false;
+
+    private volatile Selector selector;
 
     private int port = 9991;
 
+    private final ServerProtocol protocol = new ServerProtocol();
+
+    private final Client.Receiver receiver = new Client.Receiver() {
+        @Override
+        public void receive(ServerEvent event) {
+            actions.processServerEvent(event);
+        }
+    };
+
     public Server(Actions actions) {
         this.actions = actions;
     }
 
-    public synchronized void doStop() {
+    public void doStop() {
         this.doStop = true;
+        Selector current = this.selector;
+        if(current != null) {
+            current.wakeup();
+        }
     }
 
-    private synchronized boolean keepRunning() {
+    private boolean keepRunning() {
         return !this.doStop;
     }
 
     @Override
     public void run() {
-        try(ServerSocket serverSocket = new ServerSocket(port)) {
-            Socket connectionSocket = serverSocket.accept();
-
-            InputStream input = connectionSocket.getInputStream();
-
-            Scanner scanner = new Scanner(input, "UTF-8");
+        try(Selector selector = Selector.open();
+            ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            this.selector = selector;
 
-            actions.showConnected();
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
 
-            while(keepRunning() && scanner.hasNextLine()) {
-                if(!keepRunning()) break;
-                String line = scanner.nextLine();
-//                System.out.println("Received: " + line);
-                actions.processServerEvent(processMessage(line));
-
-                if(line.toLowerCase().trim().equals("exit")) {
-                    actions.showDisconnected();
-                    break;
+            while(keepRunning()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if(!key.isValid()) {
+                        continue;
+                    }
+                    if(key.isAcceptable()) {
+                        accept(serverChannel, selector);
+                    } else if(key.isReadable()) {
+                        read(key);
+                    }
                 }
             }
-            if(!scanner.hasNextLine()) {
-                actions.showDisconnected();
+            for(SelectionKey key : selector.keys()) {
+                if(key.attachment() instanceof Client) {
+                    closeQuietly(key);
+                }
             }
         }
         catch(IOException e) {
             e.printStackTrace();
         }
+        finally {
+            this.selector = null;
+        }
     }
 
     public String getPort() {
         return Integer.toString(this.port);
     }
 
-    /*
-        Server messages must be formatted in the following format:
-        "c:0000000000000"
-        where c is the event code and the 13 zeroes represent the nanosecond time of the action
+    /**
+     * Accepts a pending connection and registers it with the selector.
      */
-    private ServerEvent processMessage(String message) {
-        if(message.length() == 0 || message.length() == 1) {
-            return new ServerEvent();
+    private void accept(ServerSocketChannel serverChannel, Selector selector) throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if(channel == null) {
+            return;
         }
-        String[] parts = message.split(":");
-        if(parts[0].length() > 1 && parts[0].charAt(0) == (char) 0) {
-            parts[0] = String.valueOf(parts[0].charAt(1));
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new Client());
+        actions.showConnected();
+    }
+
+    /**
+     * Reads whatever the client sent and dispatches every complete message it
+     * contains. The client is disconnected when it closes the connection or
+     * asks to exit.
+     */
+    private void read(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Client client = (Client) key.attachment();
+
+        int count;
+        try {
+            count = channel.read(client.buffer);
+        } catch(IOException e) {
+            count = -1;
+        }
+        if(count == -1 || !client.decode(protocol, receiver)) {
+            disconnect(key);
         }
-        int code;
-        long nano;
+    }
+
+    /**
+     * Returns the index of the end of the line starting at the given index,
+     * which is either its line feed or, since it never appears in text, the
+     * magic byte of a binary frame. Returns {@code -1} if the line has not
+     * been received entirely.
+     */
+    private static int indexOfLineEnd(byte[] data, int from, int to) {
+        for(int i = from; i < to; i++) {
+            if(data[i] == '\n' || data[i] == ServerProtocol.MAGIC) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] data, int from, int to, byte value) {
+        for(int i = from; i < to; i++) {
+            if(data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void disconnect(SelectionKey key) {
+        closeQuietly(key);
+        actions.showDisconnected();
+    }
+
+    private void closeQuietly(SelectionKey key) {
+        key.cancel();
         try {
-            code = Integer.parseInt(parts[0]);
-            nano = Long.parseLong(parts[1]);
-        } catch(NumberFormatException e) {
-            e.printStackTrace();
-            return new ServerEvent();
+            key.channel().close();
+        } catch(IOException e) {
+            // $FALL-THROUGH$
         }
+    }
+
+    /**
+     * State kept for each connected client.
+     */
+    static final class Client {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /**
+         * Event every message of this client is decoded into.
+         */
+        final ServerEvent event = new ServerEvent();
+
+        private boolean hasSequence = false;
+        private int lastSequence;
+
+        /**
+         * Whether the bytes received are the rest of a line which did not fit
+         * in the buffer, skipped up to the end of that line.
+         */
+        private boolean discarding = false;
 
-        return new ServerEvent(code, nano);
+        /**
+         * Dispatches to the given receiver every complete message of the
+         * buffer, be it a text line or a binary frame. Incomplete messages
+         * are kept in the buffer until the rest of the message arrives.
+         *
+         * @return {@code false} if the client asked to exit
+         */
+        boolean decode(ServerProtocol protocol, Receiver receiver) {
+            buffer.flip();
+            byte[] data = buffer.array();
+            int start = buffer.position();
+            int limit = buffer.limit();
+            if(discarding) {
+                int end = indexOfLineEnd(data, start, limit);
+                if(end == -1) {
+                    start = limit;
+                } else {
+                    discarding = false;
+                    start = (data[end] == '\n' ? end + 1 : end);
+                }
+            }
+            while(start < limit) {
+                if(data[start] == ServerProtocol.MAGIC) {
+                    if(limit - start < ServerProtocol.FRAME_SIZE) {
+                        break;
+                    }
+                    int result = protocol.decodeBinary(data, start, event);
+                    if(result == ServerProtocol.FRAME_CORRUPTED) {
+                        // Resynchronize on the next magic byte, which is
+                        // checked as a frame in turn. Without one, what
+                        // follows can only be text, or the beginning of a
+                        // frame yet to arrive.
+                        int next = indexOf(data, start + 1, limit, ServerProtocol.MAGIC);
+                        start = (next == -1 ? start + 1 : next);
+                        continue;
+                    }
+                    start += ServerProtocol.FRAME_SIZE;
+                    if(result == ServerProtocol.FRAME_OK && accept(event.getSequence())) {
+                        receiver.receive(event);
+                    }
+                } else {
+                    int newline = indexOfLineEnd(data, start, limit);
+                    if(newline == -1) {
+                        break;
+                    }
+                    if(data[newline] == ServerProtocol.MAGIC) {
+                        // A line cut short by a frame is garbage, such as
+                        // the rest of a corrupted frame, and is discarded.
+                        start = newline;
+                        continue;
+                    }
+                    int end = newline;
+                    if(end > start && data[end - 1] == '\r') {
+                        end--;
+                    }
+                    if(ServerProtocol.isExit(data, start, end)) {
+                        return false;
+                    }
+                    if(end > start) {
+                        protocol.decodeText(data, start, end, event);
+                        receiver.receive(event);
+                    }
+                    start = newline + 1;
+                }
+            }
+            buffer.position(start);
+            buffer.compact();
+
+            // A line which does not fit in the buffer can never be completed,
+            // and the rest of it must not be taken for another line.
+            if(!buffer.hasRemaining()) {
+                buffer.clear();
+                discarding = true;
+            }
+            return true;
+        }
+
+        /**
+         * Indicates whether a binary frame of given sequence number should be
+         * processed. Frames replayed by the client (with a sequence number not
+         * greater than the last one received) are ignored.
+         */
+        boolean accept(int sequence) {
+            if(hasSequence && sequence - lastSequence <= 0) {
+                return false;
+            }
+            hasSequence = true;
+            lastSequence = sequence;
+            return true;
+        }
+
+        /**
+         * Receiver of the events decoded from the messages of a client.
+         */
+        interface Receiver {
+            void receive(ServerEvent event);
+        }
     }
 }
@@ -1,16 +1,37 @@
 package org.fenix.llanfair.server;
 
+/**
+ * An event received from a server client. Events are mutable so that the
+ * server can decode every message of a client into the same instance instead
+ * of allocating a new event per message; consumers must therefore copy the
+ * values they need before returning.
+ */
 public class ServerEvent {
     private ServerAction action;
     private long nanoTime;
+    private int sequence;
 
     public ServerEvent() {
         action = ServerAction.DO_NOTHING;
         nanoTime = 0L;
+        sequence = 0;
     }
 
     public ServerEvent(int i, long time) {
-        nanoTime = time;
+        set(i, time, 0);
+    }
+
+    /**
+     * Overwrites this event with the given values.
+     *
+     * @param i the event code, as sent on the wire
+     * @param time the time of the event
+     * @param sequence the sequence number of the event, or zero if the
+     *        message did not carry one
+     */
+    void set(int i, long time, int sequence) {
+        this.nanoTime = time;
+        this.sequence = sequence;
         switch(i) {
             case 1:
                 action = ServerAction.START;
@@ -39,6 +60,15 @@ public class ServerEvent {
         }
     }
 
+    /**
+     * Resets this event to a {@link ServerAction#DO_NOTHING} event.
+     */
+    void clear() {
+        action = ServerAction.DO_NOTHING;
+        nanoTime = 0L;
+        sequence = 0;
+    }
+
     public long getNanoTime() {
         return this.nanoTime;
     }
@@ -47,6 +77,10 @@ public class ServerEvent {
         return this.action;
     }
 
+    public int getSequence() {
+        return this.sequence;
+    }
+
     public String toString() {
         return this.getAction() + " : " + this.getNanoTime();
     }
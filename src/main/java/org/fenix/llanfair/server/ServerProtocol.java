@@ -0,0 +1,177 @@
+package org.fenix.llanfair.server;
+
+import java.util.zip.CRC32;
+
+/**
+ * Decoders for the two message formats understood by the {@link Server}.
+ * Both decoders read straight from the client's receiving buffer and write
+ * into a reusable {@link ServerEvent}, so decoding a message never allocates.
+ *
+ * <p>The <em>text</em> format is a line of the form {@code c:0000000000000}
+ * where {@code c} is the event code and the digits the time of the event.</p>
+ *
+ * <p>The <em>binary</em> format is a fixed-size frame of {@link #FRAME_SIZE}
+ * bytes, all numbers being big-endian:</p>
+ *
+ * <pre>
+ * offset  size  field
+ *      0     1  magic, always {@link #MAGIC}
+ *      1     1  protocol version, currently {@link #VERSION}
+ *      2     1  event code (same codes as the text format)
+ *      3     1  flags, reserved and must be zero
+ *      4     4  sequence number, incremented by the client for each frame
+ *      8     8  time of the event
+ *     16     4  CRC-32 of bytes 0 to 15
+ * </pre>
+ *
+ * <p>The magic byte can never appear in UTF-8 text, which lets a client mix
+ * both formats on the same connection.</p>
+ */
+final class ServerProtocol {
+
+    /**
+     * First byte of every binary frame.
+     */
+    static final byte MAGIC = (byte) 0xF5;
+
+    /**
+     * Version of the binary format written in every frame.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Size in bytes of a binary frame.
+     */
+    static final int FRAME_SIZE = 20;
+
+    /**
+     * Number of leading bytes of a frame covered by its checksum.
+     */
+    private static final int CHECKED_SIZE = 16;
+
+    /**
+     * Result of a binary decode: the frame was decoded.
+     */
+    static final int FRAME_OK = 0;
+
+    /**
+     * Result of a binary decode: the frame is well-formed but was written in
+     * an unsupported version and must be skipped.
+     */
+    static final int FRAME_UNSUPPORTED = 1;
+
+    /**
+     * Result of a binary decode: the checksum does not match, the stream must
+     * be resynchronized.
+     */
+    static final int FRAME_CORRUPTED = 2;
+
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Decodes a text line into the given event. Lines that cannot be parsed
+     * decode into a {@link ServerAction#DO_NOTHING} event.
+     *
+     * @param data the buffer holding the line
+     * @param from index of the first character of the line
+     * @param to index following the last character of the line, excluding
+     *        any line terminator
+     * @param into the event to decode into
+     */
+    void decodeText(byte[] data, int from, int to, ServerEvent into) {
+        // Some clients prefix their messages with a NUL character.
+        while(from < to && data[from] == 0) {
+            from++;
+        }
+        int separator = -1;
+        for(int i = from; i < to; i++) {
+            if(data[i] == ':') {
+                separator = i;
+                break;
+            }
+        }
+        if(separator == -1) {
+            into.clear();
+            return;
+        }
+        long code = parseDigits(data, from, separator);
+        long time = parseDigits(data, separator + 1, to);
+        if(code < 0L || code > Integer.MAX_VALUE || time < 0L) {
+            into.clear();
+            return;
+        }
+        into.set((int) code, time, 0);
+    }
+
+    /**
+     * Decodes the binary frame starting at the given index into the given
+     * event. The caller must make sure {@link #FRAME_SIZE} bytes are
+     * available.
+     *
+     * @param data the buffer holding the frame
+     * @param from index of the magic byte of the frame
+     * @param into the event to decode into
+     * @return one of {@link #FRAME_OK}, {@link #FRAME_UNSUPPORTED} or
+     *         {@link #FRAME_CORRUPTED}
+     */
+    int decodeBinary(byte[] data, int from, ServerEvent into) {
+        crc.reset();
+        crc.update(data, from, CHECKED_SIZE);
+        if((int) crc.getValue() != readInt(data, from + CHECKED_SIZE)) {
+            return FRAME_CORRUPTED;
+        }
+        if(data[from + 1] != VERSION) {
+            return FRAME_UNSUPPORTED;
+        }
+        into.set(data[from + 2] & 0xff, readLong(data, from + 8), readInt(data, from + 4));
+        return FRAME_OK;
+    }
+
+    /**
+     * Indicates whether the given line is the {@code exit} command, ignoring
+     * case and surrounding whitespace.
+     */
+    static boolean isExit(byte[] data, int from, int to) {
+        while(from < to && data[from] <= ' ') {
+            from++;
+        }
+        while(to > from && data[to - 1] <= ' ') {
+            to--;
+        }
+        if(to - from != 4) {
+            return false;
+        }
+        return (data[from] | 0x20) == 'e' && (data[from + 1] | 0x20) == 'x'
+                && (data[from + 2] | 0x20) == 'i' && (data[from + 3] | 0x20) == 't';
+    }
+
+    /**
+     * Parses the decimal number written in the given range, or returns
+     * {@code -1} if the range is empty or contains anything but digits.
+     */
+    private static long parseDigits(byte[] data, int from, int to) {
+        if(from >= to || to - from > 18) {
+            return -1L;
+        }
+        long value = 0L;
+        for(int i = from; i < to; i++) {
+            int digit = data[i] - '0';
+            if(digit < 0 || digit > 9) {
+                return -1L;
+            }
+            value = value * 10L + digit;
+        }
+        return value;
+    }
+
+    private static int readInt(byte[] data, int from) {
+        return (data[from] & 0xff) << 24
+                | (data[from + 1] & 0xff) << 16
+                | (data[from + 2] & 0xff) << 8
+                | (data[from + 3] & 0xff);
+    }
+
+    private static long readLong(byte[] data, int from) {
+        return ((long) readInt(data, from) << 32) | (readInt(data, from + 4) & 0xffffffffL);
+    }
+}
@@ -8,11 +8,63 @@ package org.fenix.utils;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class Images {
+	/**
+	 * Maximum number of bytes of pixels kept by the cache of rescaled icons.
+	 */
+	private static final long CACHE_BYTES = 16L * 1024L * 1024L;
+
+	private static final Map<ScaledKey, ImageIcon> SCALED = new LinkedHashMap<ScaledKey, ImageIcon>(64, 0.75F, true);
+
+	private static long scaledBytes = 0L;
+
 	public Images() {
 	}
 
+	/**
+	 * Returns the given icon rescaled to the given size, as {@link #rescale}
+	 * does, reusing the result of a previous call with the same icon and size.
+	 * Icons are compared by identity, so a modified icon must be a new
+	 * instance. The least recently used results are discarded once they take
+	 * more than {@code CACHE_BYTES} of memory.
+	 */
+	public static ImageIcon getScaled(ImageIcon icon, int size) {
+		if(icon == null) {
+			throw new NullPointerException("Icon is null");
+		} else {
+			ScaledKey key = new ScaledKey(icon, size);
+			synchronized(SCALED) {
+				ImageIcon scaled = SCALED.get(key);
+				if(scaled != null) {
+					return scaled;
+				}
+			}
+
+			ImageIcon scaled = rescale(icon, size);
+			synchronized(SCALED) {
+				ImageIcon previous = SCALED.put(key, scaled);
+				if(previous != null) {
+					scaledBytes -= sizeOf(previous);
+				}
+				scaledBytes += sizeOf(scaled);
+				Iterator<ImageIcon> eldest = SCALED.values().iterator();
+				while(scaledBytes > CACHE_BYTES && eldest.hasNext()) {
+					ImageIcon evicted = eldest.next();
+					if(evicted != scaled) {
+						scaledBytes -= sizeOf(evicted);
+						eldest.remove();
+					}
+				}
+			}
+			return scaled;
+		}
+	}
+
 	public static ImageIcon rescale(ImageIcon icon, int size) {
 		if(icon == null) {
 			throw new NullPointerException("Icon is null");
@@ -25,10 +77,27 @@ public class Images {
 			BufferedImage buffer;
 			if(height > width) {
 				scale = (double)size / (double)height;
-				buffer = new BufferedImage((int)((double)width * scale), size, 2);
+				buffer = new BufferedImage(Math.max(1, (int)((double)width * scale)), size, 2);
 			} else {
 				scale = (double)size / (double)width;
-				buffer = new BufferedImage(size, (int)((double)height * scale), 2);
+				buffer = new BufferedImage(size, Math.max(1, (int)((double)height * scale)), 2);
+			}
+
+			// Bicubic interpolation only samples neighbouring pixels, so
+			// large reductions are done by halving the image first.
+			Image source = icon.getImage();
+			int sourceWidth = width;
+			int sourceHeight = height;
+			while(scale < 0.5D && sourceWidth > 1 && sourceHeight > 1) {
+				sourceWidth /= 2;
+				sourceHeight /= 2;
+				BufferedImage half = new BufferedImage(sourceWidth, sourceHeight, 2);
+				Graphics2D g2 = half.createGraphics();
+				g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g2.drawImage(source, 0, 0, sourceWidth, sourceHeight, null);
+				g2.dispose();
+				source = half;
+				scale *= 2.0D;
 			}
 
 			Graphics2D g2 = buffer.createGraphics();
@@ -39,10 +108,48 @@ public class Images {
 			}
 
 			g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-			g2.scale(scale, scale);
-			icon.paintIcon(null, g2, 0, 0);
+			if(source == icon.getImage()) {
+				g2.scale(scale, scale);
+				icon.paintIcon(null, g2, 0, 0);
+			} else {
+				g2.drawImage(source, 0, 0, buffer.getWidth(), buffer.getHeight(), null);
+			}
 			g2.dispose();
 			return new ImageIcon(buffer);
 		}
 	}
+
+	private static long sizeOf(ImageIcon icon) {
+		return 4L * (long)icon.getIconWidth() * (long)icon.getIconHeight();
+	}
+
+	/**
+	 * Key of the cache of rescaled icons. Only weakly references the icon so
+	 * that the cache does not keep the icons of closed runs alive.
+	 */
+	private static final class ScaledKey {
+		private final WeakReference<ImageIcon> icon;
+		private final int hash;
+		private final int size;
+
+		ScaledKey(ImageIcon icon, int size) {
+			this.icon = new WeakReference<ImageIcon>(icon);
+			this.hash = System.identityHashCode(icon) * 31 + size;
+			this.size = size;
+		}
+
+		public int hashCode() {
+			return this.hash;
+		}
+
+		public boolean equals(Object object) {
+			if(!(object instanceof ScaledKey)) {
+				return false;
+			} else {
+				ScaledKey other = (ScaledKey)object;
+				ImageIcon referent = this.icon.get();
+				return this.size == other.size && referent != null && referent == other.icon.get();
+			}
+		}
+	}
 }
@@ -6,7 +6,6 @@
 package org.fenix.utils.config;
 
 import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.DomDriver;
 import org.fenix.llanfair.SerializationUtils;
 
 import java.beans.PropertyChangeListener;
@@ -77,9 +76,9 @@ public class Configuration implements Serializable {
 	}
 
 	public <T> T get(String key) {
-		if(key != null && key.contains(".")) {
-			String[] split = key.split("\\.");
-			return this.get(split[0], split[1]);
+		int dot = key == null ? -1 : key.indexOf('.');
+		if(dot >= 0) {
+			return this.get(key.substring(0, dot), subKey(key, dot));
 		} else {
 			return this.get("", key);
 		}
@@ -111,9 +110,9 @@ public class Configuration implements Serializable {
 	}
 
 	public void put(String key, Object value) {
-		if(key != null && key.contains(".")) {
-			String[] split = key.split("\\.");
-			this.put(split[0], split[1], value);
+		int dot = key == null ? -1 : key.indexOf('.');
+		if(dot >= 0) {
+			this.put(key.substring(0, dot), subKey(key, dot), value);
 		} else {
 			this.put("", key, value);
 		}
@@ -144,9 +143,9 @@ public class Configuration implements Serializable {
 	}
 
 	public boolean contains(String key) {
-		if(key != null && key.contains(".")) {
-			String[] split = key.split("\\.");
-			return this.contains(split[0], split[1]);
+		int dot = key == null ? -1 : key.indexOf('.');
+		if(dot >= 0) {
+			return this.contains(key.substring(0, dot), subKey(key, dot));
 		} else {
 			return this.contains("", key);
 		}
@@ -165,8 +164,7 @@ public class Configuration implements Serializable {
 	}
 
 	public void serialize() {
-		XStream xstream = new XStream(new DomDriver());
-		SerializationUtils.customize(xstream);
+		XStream xstream = SerializationUtils.getXStream();
 		String xmlOutput = xstream.toXML(this);
 		FileWriter stream = null;
 
@@ -185,9 +183,17 @@ public class Configuration implements Serializable {
 
 	}
 
+	/**
+	 * Returns the key following the section of a {@code section.key} string,
+	 * found without the regular expression of {@code String.split}.
+	 */
+	private static String subKey(String key, int dot) {
+		int end = key.indexOf('.', dot + 1);
+		return end < 0 ? key.substring(dot + 1) : key.substring(dot + 1, end);
+	}
+
 	private static Configuration deserialize(File path) {
-		XStream xstream = new XStream(new DomDriver());
-		SerializationUtils.customize(xstream);
+		XStream xstream = SerializationUtils.getXStream();
 		Configuration input = (Configuration)xstream.fromXML(path);
 		input.setPath(path);
 		return input;
@@ -0,0 +1,216 @@
+package org.fenix.WorldRecord;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.fenix.llanfair.Clock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the world record service against a stub of the speedrun.com api on
+ * the loopback interface, with a {@link Clock.Manual} clock to age records.
+ */
+public class WorldRecordServiceTest
+{
+    private static final long TTL = 1000L;
+
+    private static final long TIMEOUT = 5000L;
+
+    private static final String RECORD = "World record: 01:23.500 by Ghost";
+
+    private static final String RESPONSE = "{\"data\":[{\"runs\":[{\"run\":{"
+            + "\"players\":[{\"rel\":\"guest\",\"name\":\"Ghost\"}],"
+            + "\"times\":{\"primary_t\":83.5}}}]}]}";
+
+    private final Category category = new Category("Any%", "stub-category");
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile int status = 200;
+
+    private Clock.Manual clock;
+
+    private HttpServer server;
+
+    private File cacheFile;
+
+    private String apiUrl;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        clock = new Clock.Manual(1500000000000L);
+        Clock.set(clock);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/categories/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                requests.incrementAndGet();
+                byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, body.length);
+                try(OutputStream out = exchange.getResponseBody())
+                {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+        apiUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+
+        cacheFile = File.createTempFile("llanfair", ".properties");
+        cacheFile.delete();
+    }
+
+    @After
+    public void tearDown()
+    {
+        server.stop(0);
+        cacheFile.delete();
+        Clock.set(Clock.SYSTEM);
+    }
+
+    @Test
+    public void fetchesInTheBackgroundThenCaches() throws InterruptedException
+    {
+        WorldRecordService service = new WorldRecordService(apiUrl, cacheFile, TTL);
+
+        Receiver receiver = new Receiver();
+        assertEquals(WorldRecordService.UNKNOWN, service.getRecord(category, receiver));
+        assertEquals(RECORD, receiver.await());
+
+        clock.advanceMillis(TTL - 1L);
+        assertEquals(RECORD, service.getRecord(category, null));
+        assertNoRequestBeyond(1);
+    }
+
+    @Test
+    public void fetchesAgainOnceTheTtlExpires() throws InterruptedException
+    {
+        WorldRecordService service = new WorldRecordService(apiUrl, cacheFile, TTL);
+        Receiver first = new Receiver();
+        service.getRecord(category, first);
+        first.await();
+
+        clock.advanceMillis(TTL);
+        Receiver second = new Receiver();
+        assertEquals(RECORD, service.getRecord(category, second));
+        assertEquals(RECORD, second.await());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void waitsBeforeRetryingAFailedFetch() throws InterruptedException
+    {
+        status = 500;
+        WorldRecordService service = new WorldRecordService(apiUrl, cacheFile, TTL);
+        assertEquals(WorldRecordService.UNKNOWN, service.getRecord(category, null));
+        awaitRequests(service, 1);
+        assertNoRequestBeyond(1);
+
+        clock.advanceMillis(WorldRecordService.RETRY_DELAY - 1L);
+        assertEquals(WorldRecordService.UNKNOWN, service.getRecord(category, null));
+        assertNoRequestBeyond(1);
+
+        status = 200;
+        clock.advanceMillis(1L);
+        awaitRequests(service, 2);
+    }
+
+    @Test
+    public void keepsTheLastRecordWhileUnreachable() throws InterruptedException
+    {
+        WorldRecordService service = new WorldRecordService(apiUrl, cacheFile, TTL);
+        Receiver receiver = new Receiver();
+        service.getRecord(category, receiver);
+        receiver.await();
+
+        status = 500;
+        clock.advanceMillis(TTL);
+        assertEquals(RECORD, service.getRecord(category, null));
+        awaitRequests(service, 2);
+        assertEquals(RECORD, service.getRecord(category, null));
+    }
+
+    @Test
+    public void sharesTheDiskCacheBetweenSessions() throws InterruptedException
+    {
+        Receiver receiver = new Receiver();
+        new WorldRecordService(apiUrl, cacheFile, TTL).getRecord(category, receiver);
+        receiver.await();
+        assertTrue(cacheFile.isFile());
+
+        // A fresh record on disk is used without asking the api again
+        WorldRecordService restarted = new WorldRecordService(apiUrl, cacheFile, TTL);
+        assertEquals(RECORD, restarted.getRecord(category, null));
+        assertNoRequestBeyond(1);
+
+        // An outdated one is still shown while it is fetched again
+        clock.advanceMillis(TTL);
+        WorldRecordService outdated = new WorldRecordService(apiUrl, cacheFile, TTL);
+        assertEquals(RECORD, outdated.getRecord(category, null));
+        awaitRequests(outdated, 2);
+    }
+
+    /**
+     * Asks for the record until the stub has served the given number of
+     * requests, as failed fetches notify nobody
+     */
+    private void awaitRequests(WorldRecordService service, int count) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while(requests.get() < count)
+        {
+            assertTrue("no request to the api", System.currentTimeMillis() < deadline);
+            service.getRecord(category, null);
+            Thread.sleep(10L);
+        }
+        assertEquals(count, requests.get());
+    }
+
+    /**
+     * Leaves the service some time to send an unexpected request
+     */
+    private void assertNoRequestBeyond(int count) throws InterruptedException
+    {
+        Thread.sleep(200L);
+        assertEquals(count, requests.get());
+    }
+
+    /**
+     * Listener waiting for a single record
+     */
+    private static class Receiver implements WorldRecordService.Listener
+    {
+        private final CountDownLatch fetched = new CountDownLatch(1);
+        private volatile String record;
+
+        public void recordFetched(Category category, String record)
+        {
+            this.record = record;
+            fetched.countDown();
+        }
+
+        String await() throws InterruptedException
+        {
+            assertTrue("no record fetched", fetched.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            return record;
+        }
+    }
+}
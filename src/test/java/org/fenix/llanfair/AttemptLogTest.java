@@ -0,0 +1,140 @@
+package org.fenix.llanfair;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Logs the attempts of a run driven by a {@link Clock.Manual} clock, then
+ * reads them back from the file, whole or cut short as by a crash.
+ */
+public class AttemptLogTest {
+
+	private static final long MILLI = Clock.NANOS_PER_MILLI;
+
+	private static final long TIMEOUT = 5000L;
+
+	private Clock.Manual clock;
+
+	private File runFile;
+
+	private AttemptLog log;
+
+	private Run run;
+
+	@Before public void setUp() throws IOException {
+		clock = new Clock.Manual();
+		Clock.set(clock);
+
+		runFile = File.createTempFile("llanfair", ".lfs");
+		log     = new AttemptLog(runFile);
+		run     = new Run("test");
+		for (int i = 0; i < 3; i++) {
+			run.addSegment(new Segment("segment " + i));
+		}
+		run.setAttemptLog(log);
+	}
+
+	@After public void tearDown() {
+		log.getFile().delete();
+		runFile.delete();
+		Clock.set(Clock.SYSTEM);
+	}
+
+	@Test public void attemptsAreReadBackInOrder() throws IOException {
+		logAttempts();
+
+		List<AttemptLog.Attempt> attempts = new AttemptLog(runFile).read();
+		assertEquals(2, attempts.size());
+
+		AttemptLog.Attempt reset = attempts.get(0);
+		assertEquals(3, reset.getSegmentCount());
+		assertEquals(1, reset.getResetIndex());
+		assertFalse(reset.isCompleted());
+		assertEquals(1000L * MILLI, reset.getLiveTime(0).getNanoseconds());
+		assertNull(reset.getLiveTime(1));
+		assertEquals(1, reset.getPauseCount());
+		assertEquals(1000L * MILLI, reset.getPauseStart(0));
+		assertEquals(500L * MILLI, reset.getPauseDuration(0));
+
+		AttemptLog.Attempt completed = attempts.get(1);
+		assertTrue(completed.isCompleted());
+		assertEquals(0, completed.getPauseCount());
+		for (int i = 0; i < 3; i++) {
+			assertEquals((i + 1) * 100L * MILLI,
+					completed.getLiveTime(i).getNanoseconds());
+		}
+	}
+
+	@Test public void truncatedRecordEndsTheLog() throws IOException {
+		logAttempts();
+
+		RandomAccessFile file = new RandomAccessFile(log.getFile(), "rw");
+		try {
+			file.setLength(file.length() - 3L);
+		} finally {
+			file.close();
+		}
+		List<AttemptLog.Attempt> attempts = new AttemptLog(runFile).read();
+		assertEquals(1, attempts.size());
+		assertEquals(1, attempts.get(0).getResetIndex());
+	}
+
+	@Test public void truncatedHeaderIsWrittenAgain() throws IOException {
+		FileOutputStream out = new FileOutputStream(log.getFile());
+		try {
+			out.write(new byte[] { 'L', 'F' });
+		} finally {
+			out.close();
+		}
+		assertTrue(log.read().isEmpty());
+
+		logAttempts();
+		assertEquals(2, new AttemptLog(runFile).read().size());
+	}
+
+	@Test(expected = IOException.class)
+	public void otherFilesAreRejected() throws IOException {
+		FileOutputStream out = new FileOutputStream(log.getFile());
+		try {
+			out.write(new byte[] { 'L', 'F', 'S', '1', 0, 0, 0, 0 });
+		} finally {
+			out.close();
+		}
+		log.read();
+	}
+
+	/**
+	 * Logs an attempt paused then reset after the first split, followed by a
+	 * completed attempt, and waits for both to be written.
+	 */
+	private void logAttempts() {
+		run.start();
+		clock.advanceMillis(1000L);
+		run.split();
+		run.pause();
+		clock.advanceMillis(500L);
+		run.resume();
+		clock.advanceMillis(250L);
+		run.reset();
+
+		run.start();
+		for (int i = 0; i < 3; i++) {
+			clock.advanceMillis((i + 1) * 100L);
+			run.split();
+		}
+		run.reset();
+		AttemptLog.flush(TIMEOUT);
+	}
+}
@@ -0,0 +1,148 @@
+package org.fenix.llanfair;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Drives a run with a {@link Clock.Manual} clock, so that every time it
+ * measures is known exactly.
+ */
+public class RunTimingTest {
+
+	private static final long MILLI = Clock.NANOS_PER_MILLI;
+
+	private Clock.Manual clock;
+
+	private Run run;
+
+	@Before public void setUp() {
+		clock = new Clock.Manual();
+		Clock.set(clock);
+
+		run = new Run("test");
+		for (int i = 0; i < 3; i++) {
+			run.addSegment(new Segment("segment " + i));
+		}
+	}
+
+	@After public void tearDown() {
+		Clock.set(Clock.SYSTEM);
+	}
+
+	@Test public void splitsMeasureTheElapsedClockTime() {
+		run.start();
+		clock.advanceMillis(1000L);
+		run.split();
+		clock.advanceMillis(2500L);
+		run.split();
+
+		assertEquals(1000L * MILLI, liveNanos(0));
+		assertEquals(2500L * MILLI, liveNanos(1));
+		assertEquals(3500L * MILLI,
+				run.getTime(1, Segment.LIVE).getNanoseconds());
+		assertEquals(2, run.getCurrent());
+		assertEquals(Run.State.ONGOING, run.getState());
+	}
+
+	@Test public void timesKeepSubMillisecondPrecision() {
+		run.start();
+		clock.advance(1234567L);
+		run.split();
+
+		assertEquals(1234567L, liveNanos(0));
+		assertEquals(1L, run.getSegment(0).getTime(Segment.LIVE).getMilliseconds());
+	}
+
+	@Test public void lastSplitStopsTheRun() {
+		run.start();
+		for (int i = 0; i < 3; i++) {
+			clock.advanceMillis(100L * (i + 1));
+			run.split();
+		}
+		assertEquals(Run.State.STOPPED, run.getState());
+		assertEquals(600L * MILLI, run.getTime(Segment.LIVE).getNanoseconds());
+		assertEquals(1, run.getNumberOfCompletedAttempts());
+	}
+
+	@Test public void splitsUseTheirOwnTimeStamps() {
+		run.start(0L);
+		clock.advanceMillis(5000L);
+		run.split(1000L * MILLI);
+		run.split(1500L * MILLI);
+
+		assertEquals(1000L * MILLI, liveNanos(0));
+		assertEquals(500L * MILLI, liveNanos(1));
+	}
+
+	@Test public void delayedStartCountsDownBeforeTheFirstSegment() {
+		run.setDelayedStart(2000L);
+		run.start();
+
+		assertEquals(2000L * MILLI, run.getStartTime() - clock.nanoTime());
+
+		clock.advanceMillis(2500L);
+		run.split();
+		assertEquals(500L * MILLI, liveNanos(0));
+	}
+
+	@Test public void pauseFreezesTheCurrentSegment() {
+		run.start();
+		clock.advanceMillis(1000L);
+		run.pause();
+
+		assertEquals(Run.State.PAUSED, run.getState());
+		assertEquals(1000L * MILLI, liveNanos(0));
+
+		clock.advanceMillis(5000L);
+		run.resume();
+
+		// The time spent paused does not count as elapsed
+		assertEquals(Run.State.ONGOING, run.getState());
+		assertEquals(1000L * MILLI, clock.nanoTime() - run.getStartTime());
+	}
+
+	@Test public void unsplitDiscardsTheLastSplit() {
+		run.start();
+		clock.advanceMillis(1000L);
+		run.split();
+		clock.advanceMillis(1000L);
+		run.unsplit();
+
+		assertEquals(0, run.getCurrent());
+		assertNull(run.getSegment(0).getTime(Segment.LIVE));
+	}
+
+	@Test public void resetDiscardsTheLiveTimes() {
+		run.start();
+		clock.advanceMillis(1000L);
+		run.split();
+		run.reset();
+
+		assertEquals(Run.State.READY, run.getState());
+		assertEquals(-1, run.getCurrent());
+		assertNull(run.getSegment(0).getTime(Segment.LIVE));
+	}
+
+	@Test public void snapshotsKeepTheTimesOfTheirTransition() {
+		run.start();
+		clock.advanceMillis(1000L);
+		run.split();
+		Run.Snapshot split = run.getSnapshot();
+		run.reset();
+
+		assertEquals(1, split.getCurrent());
+		assertEquals(1000L * MILLI,
+				split.getSegmentTime(0, Segment.LIVE).getNanoseconds());
+		assertEquals(1000L * MILLI,
+				split.getTime(0, Segment.LIVE).getNanoseconds());
+		assertNull(run.getSnapshot().getSegmentTime(0, Segment.LIVE));
+	}
+
+	private long liveNanos(int segment) {
+		return run.getSegment(segment).getTime(Segment.LIVE).getNanoseconds();
+	}
+}
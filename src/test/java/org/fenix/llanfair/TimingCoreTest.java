@@ -0,0 +1,171 @@
+package org.fenix.llanfair;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Submits commands to a timing core driving a run with a
+ * {@link Clock.Manual} clock, and checks the transitions it applies.
+ */
+public class TimingCoreTest {
+
+	private static final long MILLI = Clock.NANOS_PER_MILLI;
+
+	private static final long TIMEOUT = 5000L;
+
+	private Clock.Manual clock;
+
+	private Run run;
+
+	private File journalFile;
+
+	private TimingCore core;
+
+	@Before public void setUp() throws IOException {
+		clock = new Clock.Manual();
+		Clock.set(clock);
+
+		run = new Run("test");
+		for (int i = 0; i < 3; i++) {
+			run.addSegment(new Segment("segment " + i));
+		}
+		journalFile = File.createTempFile("llanfair", ".journal");
+		core = new TimingCore(new TimingCore.Owner() {
+			@Override public Run getRun() {
+				return run;
+			}
+		}, new LiveJournal(journalFile));
+		core.start();
+	}
+
+	@After public void tearDown() {
+		core.shutdown();
+		journalFile.delete();
+		Clock.set(Clock.SYSTEM);
+	}
+
+	@Test public void commandsApplyInOrderAtTheirTimeStamps() {
+		core.submit(TimingCore.Command.Type.SPLIT, 0L);
+		core.submit(TimingCore.Command.Type.SPLIT, 1000L * MILLI);
+		core.submit(TimingCore.Command.Type.SPLIT, 3000L * MILLI);
+		assertTrue(core.await(TIMEOUT));
+
+		assertEquals(Run.State.ONGOING, run.getState());
+		assertEquals(2, run.getCurrent());
+		assertEquals(1000L * MILLI, liveNanos(0));
+		assertEquals(2000L * MILLI, liveNanos(1));
+	}
+
+	@Test public void commandsDefaultToTheClockTime() {
+		core.submit(TimingCore.Command.Type.START);
+		clock.advanceMillis(750L);
+		core.submit(TimingCore.Command.Type.SPLIT);
+		assertTrue(core.await(TIMEOUT));
+
+		assertEquals(750L * MILLI, liveNanos(0));
+	}
+
+	@Test public void serverSplitNeverStartsTheRun() {
+		core.submit(TimingCore.Command.Type.SERVER_SPLIT, 0L);
+		assertTrue(core.await(TIMEOUT));
+
+		assertEquals(Run.State.READY, run.getState());
+	}
+
+	@Test public void commandsMakingNoSenseAreIgnored() {
+		core.submit(TimingCore.Command.Type.PAUSE, 0L);
+		core.submit(TimingCore.Command.Type.UNSPLIT, 0L);
+		core.submit(TimingCore.Command.Type.STOP, 0L);
+		assertTrue(core.await(TIMEOUT));
+
+		assertEquals(Run.State.READY, run.getState());
+	}
+
+	@Test public void togglePausePausesThenResumes() {
+		core.submit(TimingCore.Command.Type.START, 0L);
+		core.submit(TimingCore.Command.Type.TOGGLE_PAUSE, 1000L * MILLI);
+		assertTrue(core.await(TIMEOUT));
+		assertEquals(Run.State.PAUSED, run.getState());
+		assertEquals(1000L * MILLI, liveNanos(0));
+
+		core.submit(TimingCore.Command.Type.TOGGLE_PAUSE, 4000L * MILLI);
+		assertTrue(core.await(TIMEOUT));
+		assertEquals(Run.State.ONGOING, run.getState());
+		assertEquals(3000L * MILLI, run.getStartTime());
+	}
+
+	@Test public void bouncingUnsplitIsIgnored() {
+		core.submit(TimingCore.Command.Type.START, 0L);
+		core.submit(TimingCore.Command.Type.SPLIT, 1000L * MILLI);
+		core.submit(TimingCore.Command.Type.SPLIT, 2000L * MILLI);
+		core.submit(TimingCore.Command.Type.UNSPLIT, 3000L * MILLI);
+		core.submit(TimingCore.Command.Type.UNSPLIT, 3100L * MILLI);
+		assertTrue(core.await(TIMEOUT));
+		assertEquals(1, run.getCurrent());
+
+		core.submit(TimingCore.Command.Type.UNSPLIT, 3500L * MILLI);
+		assertTrue(core.await(TIMEOUT));
+		assertEquals(0, run.getCurrent());
+	}
+
+	@Test public void saveAndResetRegistersACompletedRun() {
+		core.submit(TimingCore.Command.Type.START, 0L);
+		for (int i = 1; i <= 3; i++) {
+			core.submit(TimingCore.Command.Type.SPLIT, i * 1000L * MILLI);
+		}
+		core.submit(TimingCore.Command.Type.SAVE_AND_RESET);
+		assertTrue(core.await(TIMEOUT));
+
+		assertEquals(Run.State.READY, run.getState());
+		for (int i = 0; i < 3; i++) {
+			Segment segment = run.getSegment(i);
+			assertNull(segment.getTime(Segment.LIVE));
+			assertEquals(1000L * MILLI, segment.getTime(Segment.RUN).getNanoseconds());
+			assertEquals(1000L * MILLI, segment.getTime(Segment.BEST).getNanoseconds());
+		}
+	}
+
+	@Test public void saveAndResetOnlyKeepsTheBestSegmentsOfAnUnfinishedRun() {
+		core.submit(TimingCore.Command.Type.START, 0L);
+		core.submit(TimingCore.Command.Type.SPLIT, 1000L * MILLI);
+		core.submit(TimingCore.Command.Type.SAVE_AND_RESET);
+		assertTrue(core.await(TIMEOUT));
+
+		assertEquals(Run.State.READY, run.getState());
+		assertEquals(1000L * MILLI,
+				run.getSegment(0).getTime(Segment.BEST).getNanoseconds());
+		assertNull(run.getSegment(0).getTime(Segment.RUN));
+	}
+
+	@Test public void callbackSeesTheRunOnceTheCommandIsApplied() {
+		final AtomicReference<Run.State> state  = new AtomicReference<Run.State>();
+		final AtomicReference<Thread>    thread = new AtomicReference<Thread>();
+
+		core.submit(TimingCore.Command.Type.START, 0L);
+		core.submit(TimingCore.Command.Type.RESET, new TimingCore.Callback() {
+			@Override public void processed(Run processed) {
+				state.set(processed.getState());
+				thread.set(Thread.currentThread());
+			}
+		});
+		assertTrue(core.await(TIMEOUT));
+
+		assertSame(Run.State.READY, state.get());
+		assertEquals("Llanfair timing core", thread.get().getName());
+		assertEquals(1, run.getNumberOfAttempts());
+	}
+
+	private long liveNanos(int segment) {
+		return run.getSegment(segment).getTime(Segment.LIVE).getNanoseconds();
+	}
+}
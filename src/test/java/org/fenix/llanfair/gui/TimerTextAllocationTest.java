@@ -0,0 +1,103 @@
+package org.fenix.llanfair.gui;
+
+import org.fenix.llanfair.Time;
+import org.fenix.llanfair.config.Accuracy;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that formatting the timers allocates nothing once warmed up, as
+ * they are formatted on every frame of a running timer.
+ */
+public class TimerTextAllocationTest {
+
+	private static final int WARMUP = 200000;
+
+	private static final int ITERATIONS = 100000;
+
+	/**
+	 * Time step of the formatted times, a bit over a hundredth of second so
+	 * that every call changes the displayed text.
+	 */
+	private static final long STEP = 10500000L;
+
+	private static final Accuracy[] ACCURACIES = Accuracy.values();
+
+	private com.sun.management.ThreadMXBean threads;
+
+	private long thread;
+
+	private final TimerText text = new TimerText();
+
+	private final char[] buffer = new char[Time.FORMAT_LENGTH];
+
+	@Before public void setUp() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+		thread = Thread.currentThread().getId();
+	}
+
+	@Test public void setAllocatesNothing() {
+		long sink = setTimes(WARMUP);
+		long baseline = allocated();
+		long before = allocated();
+		sink += setTimes(ITERATIONS);
+		long after = allocated();
+
+		assertEquals(0L, (after - before) - (before - baseline));
+		assertEquals(ITERATIONS + WARMUP, sink);
+	}
+
+	@Test public void formatAllocatesNothing() {
+		long sink = formatTimes(WARMUP);
+		long baseline = allocated();
+		long before = allocated();
+		sink += formatTimes(ITERATIONS);
+		long after = allocated();
+
+		assertEquals(0L, (after - before) - (before - baseline));
+		assertTrue(sink > 0L);
+	}
+
+	/**
+	 * Sets the timer text to increasing times with each accuracy, including
+	 * the negative times of a delayed start, and returns the number of
+	 * changes of the text.
+	 */
+	private long setTimes(int count) {
+		long changes = 0L;
+		for (int i = 0; i < count; i++) {
+			long nanos = (i - count / 2) * STEP;
+			if (text.set(nanos, ACCURACIES[i % ACCURACIES.length])) {
+				changes++;
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * Formats increasing times with each accuracy and returns the total
+	 * length of the formatted texts.
+	 */
+	private long formatTimes(int count) {
+		long length = 0L;
+		for (int i = 0; i < count; i++) {
+			long millis = i * 37L * 1000L + i;
+			length += Time.format(millis, ACCURACIES[i % ACCURACIES.length], buffer, 0);
+		}
+		return length;
+	}
+
+	private long allocated() {
+		return threads.getThreadAllocatedBytes(thread);
+	}
+}
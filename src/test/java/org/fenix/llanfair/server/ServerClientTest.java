@@ -0,0 +1,80 @@
+package org.fenix.llanfair.server;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds the messages of a client to its decoder as the server does, in reads
+ * no larger than the free space of its buffer.
+ */
+public class ServerClientTest {
+
+    private final ServerProtocol protocol = new ServerProtocol();
+
+    private final Server.Client client = new Server.Client();
+
+    private final List<ServerAction> actions = new ArrayList<ServerAction>();
+
+    private final Server.Client.Receiver receiver = new Server.Client.Receiver() {
+        @Override
+        public void receive(ServerEvent event) {
+            actions.add(event.getAction());
+        }
+    };
+
+    @Test
+    public void decodesEveryCompleteLine() {
+        assertTrue(feed("1:100\n3:2"));
+        assertEquals(Arrays.asList(ServerAction.START), actions);
+
+        assertTrue(feed("00\r\n"));
+        assertEquals(Arrays.asList(ServerAction.START, ServerAction.SPLIT), actions);
+    }
+
+    @Test
+    public void discardsTheWholeOfAnOverlongLine() {
+        StringBuilder line = new StringBuilder();
+        while(line.length() < 3 * client.buffer.capacity()) {
+            line.append('x');
+        }
+        // The tail of the line would be a valid split on its own
+        line.append("3:200\n");
+
+        assertTrue(feed(line + "1:100\n"));
+        assertEquals(Arrays.asList(ServerAction.START), actions);
+    }
+
+    @Test
+    public void stopsOnExit() {
+        assertFalse(feed("1:100\nexit\n"));
+        assertEquals(Arrays.asList(ServerAction.START), actions);
+    }
+
+    /**
+     * Sends the given text to the client and returns {@code false} if it
+     * asked to exit.
+     */
+    private boolean feed(String text) {
+        ByteBuffer data = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+        while(data.hasRemaining()) {
+            int count = Math.min(data.remaining(), client.buffer.remaining());
+            ByteBuffer read = data.duplicate();
+            read.limit(read.position() + count);
+            client.buffer.put(read);
+            data.position(data.position() + count);
+            if(!client.decode(protocol, receiver)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}